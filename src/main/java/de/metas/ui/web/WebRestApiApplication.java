@@ -27,6 +27,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import de.metas.logging.LogManager;
 import de.metas.ui.web.base.model.I_T_WEBUI_ViewSelection;
 import de.metas.ui.web.session.WebRestApiContextProvider;
+import de.metas.ui.web.view.SqlViewSelectionsCleaner;
 import de.metas.ui.web.window.model.DocumentInterfaceWrapperHelper;
 
 /*
@@ -127,6 +128,8 @@ public class WebRestApiApplication
 		
 		Services.get(IMigrationLogger.class).addTableToIgnoreList(I_T_WEBUI_ViewSelection.Table_Name);
 		
+		SqlViewSelectionsCleaner.instance.scheduleDeleteAllIfSweepOnStartupEnabled();
+
 		return adempiere;
 	}
 
@@ -1,5 +1,9 @@
 package de.metas.ui.web.dashboard;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.elasticsearch.client.Client;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,11 +14,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.ui.web.config.WebConfig;
 import de.metas.ui.web.dashboard.json.JSONDashboard;
 import de.metas.ui.web.dashboard.json.JSONDashboardChanges;
 import de.metas.ui.web.session.UserSession;
 import de.metas.ui.web.window.datatypes.json.JSONOptions;
+import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 
 /*
@@ -51,6 +58,8 @@ public class DashboardRestController
 	private UserDashboardRepository userDashboardRepo;
 	@Autowired
 	private Client elasticsearchClient;
+	@Autowired
+	private KPIDataCache kpiDataCache;
 
 	private JSONOptions newJSONOpts()
 	{
@@ -79,12 +88,44 @@ public class DashboardRestController
 		final KPI kpi = dashboardItem.getKPI();
 		final TimeRange timeRange = dashboardItem.getTimeRangeDefaults().createTimeRange(fromMillis, toMillis);
 
-		return KPIDataLoader.newInstance(elasticsearchClient, kpi)
+		return kpiDataCache.getOrLoad(kpi, timeRange, prettyValues, () -> KPIDataLoader.newInstance(elasticsearchClient, kpi)
 				.setTimeRange(timeRange)
 				.setFormatValues(prettyValues)
-				.retrieveData()
-				.setItemId(dashboardItem.getId());
+				.retrieveData())
+				.copyWithItemId(dashboardItem.getId());
+
+	}
+
+	@GetMapping("/kpis/data")
+	@ApiOperation("Gets the data of all KPI items, retrieved in one go")
+	public List<KPIDataResult> getAllKPIsData( //
+			@RequestParam(name = "fromMillis", required = false, defaultValue = "0") @ApiParam("interval rage start, in case of temporal data") final long fromMillis //
+			, @RequestParam(name = "toMillis", required = false, defaultValue = "0") @ApiParam("interval rage end, in case of temporal data") final long toMillis //
+			, @RequestParam(name = "prettyValues", required = false, defaultValue = "true") @ApiParam("if true, the server will format the values") final boolean prettyValues //
+	)
+	{
+		userSession.assertLoggedIn();
 
+		final Map<Integer, KPIDataLoader> loadersByItemId = new LinkedHashMap<>();
+		for (final UserDashboardItem dashboardItem : userDashboardRepo.getUserDashboard().getKPIItems())
+		{
+			final KPI kpi = dashboardItem.getKPI();
+			final TimeRange timeRange = dashboardItem.getTimeRangeDefaults().createTimeRange(fromMillis, toMillis);
+
+			final KPIDataLoader loader = KPIDataLoader.newInstance(elasticsearchClient, kpi)
+					.setTimeRange(timeRange)
+					.setFormatValues(prettyValues);
+			loadersByItemId.put(dashboardItem.getId(), loader);
+		}
+
+		final Map<Integer, KPIDataResult> resultsByItemId = kpiDataCache.getOrLoadAll(loadersByItemId, loadersToRun -> KPIDataLoader.retrieveData(elasticsearchClient, loadersToRun));
+
+		// NOTE: iterate the items to preserve the dashboard order
+		return loadersByItemId.keySet()
+				.stream()
+				.filter(resultsByItemId::containsKey)
+				.map(itemId -> resultsByItemId.get(itemId).copyWithItemId(itemId))
+				.collect(ImmutableList.toImmutableList());
 	}
 
 	@GetMapping("/kpis/{itemId}/data")
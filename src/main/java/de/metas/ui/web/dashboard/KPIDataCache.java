@@ -0,0 +1,341 @@
+package de.metas.ui.web.dashboard;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.adempiere.ad.expression.api.IExpressionEvaluator.OnVariableNotFound;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.Services;
+import org.compiere.util.Env;
+import org.compiere.util.Evaluatees;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Short-lived {@link KPIDataResult}s cache.
+ *
+ * Results are shared between the users of the same client, role and language, but only if the KPI's query, resolved against their session context, is the same.
+ * The requested time range is normalized to TTL-sized buckets, so requests like "last 30 days" which are issued a few seconds apart share the same result.
+ * Concurrent requests for the same key share the same elasticsearch query (single-flight).
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class KPIDataCache
+{
+	private static final Logger logger = LogManager.getLogger(KPIDataCache.class);
+
+	/** TTL to be used when the KPI has no PollIntervalSec. Set it to zero to disable caching for those KPIs. */
+	private static final String SYSCONFIG_DefaultTTLSec = "de.metas.ui.web.dashboard.KPIDataCache.DefaultTTLSec";
+	private static final int DEFAULT_DefaultTTLSec = 60;
+
+	private final ConcurrentHashMap<KPIDataCacheKey, CacheEntry> cache = new ConcurrentHashMap<>();
+
+	public KPIDataResult getOrLoad(
+			@NonNull final KPI kpi,
+			@NonNull final TimeRange timeRange,
+			final boolean formatValues,
+			@NonNull final Supplier<KPIDataResult> loader)
+	{
+		final long ttlMillis = getTTLMillis(kpi);
+		if (ttlMillis <= 0)
+		{
+			return loader.get();
+		}
+
+		final KPIDataCacheKey key = KPIDataCacheKey.of(kpi, timeRange, formatValues, ttlMillis, Env.getCtx());
+		final long nowMillis = System.currentTimeMillis();
+		final CacheEntry entry = getOrCreateEntry(key, ttlMillis, nowMillis);
+
+		try
+		{
+			return entry.getOrLoad(loader);
+		}
+		catch (final RuntimeException ex)
+		{
+			// don't cache failures
+			cache.remove(key, entry);
+			throw ex;
+		}
+		finally
+		{
+			removeExpiredEntries(nowMillis);
+		}
+	}
+
+	/**
+	 * Gets the data of all given loaders.
+	 *
+	 * The loaders whose data is not already cached (or being loaded by another request) are passed to <code>bulkLoader</code> in one call.
+	 *
+	 * @param bulkLoader loads the data of given loaders; the loaders which are missing from the result are considered failed
+	 * @return data results, indexed by the same key as the loaders; if the data of a loader could not be retrieved, it will be skipped and a warning will be logged
+	 */
+	public <K> Map<K, KPIDataResult> getOrLoadAll(
+			@NonNull final Map<K, KPIDataLoader> loadersByKey,
+			@NonNull final Function<Map<K, KPIDataLoader>, Map<K, KPIDataResult>> bulkLoader)
+	{
+		final Properties ctx = Env.getCtx();
+		final long nowMillis = System.currentTimeMillis();
+
+		final Map<K, CacheEntry> entriesByKey = new HashMap<>();
+		final Map<K, CacheEntry> entriesToLoadByKey = new HashMap<>();
+		final Map<K, KPIDataLoader> loadersToRunByKey = new LinkedHashMap<>();
+		loadersByKey.forEach((key, loader) -> {
+			final KPI kpi = loader.getKPI();
+			final long ttlMillis = getTTLMillis(kpi);
+			if (ttlMillis <= 0)
+			{
+				loadersToRunByKey.put(key, loader);
+				return;
+			}
+
+			final KPIDataCacheKey cacheKey = KPIDataCacheKey.of(kpi, loader.getTimeRange(), loader.isFormatValues(), ttlMillis, ctx);
+			final CacheEntry entry = getOrCreateEntry(cacheKey, ttlMillis, nowMillis);
+			entriesByKey.put(key, entry);
+			if (entry.tryStartLoading())
+			{
+				entriesToLoadByKey.put(key, entry);
+				loadersToRunByKey.put(key, loader);
+			}
+		});
+
+		//
+		// Load the data of the entries we claimed, and complete them before waiting for any other entry
+		final Map<K, KPIDataResult> loadedResultsByKey;
+		try
+		{
+			loadedResultsByKey = loadersToRunByKey.isEmpty() ? ImmutableMap.of() : bulkLoader.apply(loadersToRunByKey);
+		}
+		catch (final RuntimeException ex)
+		{
+			entriesToLoadByKey.values().forEach(entry -> failEntry(entry, ex));
+			throw ex;
+		}
+		entriesToLoadByKey.forEach((key, entry) -> {
+			final KPIDataResult result = loadedResultsByKey.get(key);
+			if (result != null)
+			{
+				entry.complete(result);
+			}
+			else
+			{
+				failEntry(entry, new AdempiereException("No data retrieved for " + loadersByKey.get(key).getKPI()));
+			}
+		});
+
+		//
+		// Collect the results, preserving the loaders order
+		final ImmutableMap.Builder<K, KPIDataResult> results = ImmutableMap.builder();
+		loadersByKey.forEach((key, loader) -> {
+			final CacheEntry entry = entriesByKey.get(key);
+			if (entry == null)
+			{
+				// not cached
+				final KPIDataResult result = loadedResultsByKey.get(key);
+				if (result != null)
+				{
+					results.put(key, result);
+				}
+				return;
+			}
+
+			try
+			{
+				results.put(key, entry.join());
+			}
+			catch (final RuntimeException ex)
+			{
+				logger.warn("Failed retrieving data for {}. Skipped.", loader.getKPI(), ex);
+			}
+		});
+
+		removeExpiredEntries(nowMillis);
+
+		return results.build();
+	}
+
+	public void invalidateByKPIId(final int kpiId)
+	{
+		cache.keySet().removeIf(key -> key.getKpiId() == kpiId);
+		logger.debug("Invalidated cached data for WEBUI_KPI_ID={}", kpiId);
+	}
+
+	private CacheEntry getOrCreateEntry(final KPIDataCacheKey key, final long ttlMillis, final long nowMillis)
+	{
+		return cache.compute(key, (k, existingEntry) -> {
+			if (existingEntry != null && !existingEntry.isExpired(nowMillis))
+			{
+				return existingEntry;
+			}
+			return new CacheEntry(k, nowMillis + ttlMillis);
+		});
+	}
+
+	private void failEntry(final CacheEntry entry, final RuntimeException failure)
+	{
+		// don't cache failures
+		entry.completeExceptionally(failure);
+		cache.remove(entry.getKey(), entry);
+	}
+
+	private static long getTTLMillis(final KPI kpi)
+	{
+		// NOTE: the frontend is polling the KPI data each PollIntervalSec, so there is no point to have fresher data than that
+		final int pollIntervalSec = kpi.getPollIntervalSec();
+		if (pollIntervalSec > 0)
+		{
+			return pollIntervalSec * 1000L;
+		}
+
+		final int defaultTTLSec = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_DefaultTTLSec, DEFAULT_DefaultTTLSec);
+		return defaultTTLSec * 1000L;
+	}
+
+	private void removeExpiredEntries(final long nowMillis)
+	{
+		cache.values().removeIf(entry -> entry.isExpired(nowMillis));
+	}
+
+	@lombok.Value
+	private static final class KPIDataCacheKey
+	{
+		public static KPIDataCacheKey of(final KPI kpi, final TimeRange timeRange, final boolean formatValues, final long ttlMillis, final Properties ctx)
+		{
+			// NOTE: the query might depend on any context variable (e.g. #AD_User_ID, #AD_Org_ID, #SalesRep_ID),
+			// so we key on the query resolved against the session context.
+			// The time range variables are not part of the session context, so they are preserved and the time range buckets are still shared.
+			final String esQueryCtxResolved = kpi.getESQuery().evaluate(Evaluatees.ofCtx(ctx), OnVariableNotFound.Preserve);
+
+			return new KPIDataCacheKey(
+					kpi.getId(),
+					timeRange.getFromMillis() / ttlMillis,
+					timeRange.getToMillis() / ttlMillis,
+					formatValues,
+					Env.getAD_Client_ID(ctx),
+					Env.getAD_Role_ID(ctx),
+					Env.getAD_Language(ctx),
+					esQueryCtxResolved);
+		}
+
+		private final int kpiId;
+		private final long fromBucket;
+		private final long toBucket;
+		private final boolean formatValues;
+		private final int adClientId;
+		private final int adRoleId;
+		private final String adLanguage;
+		private final String esQueryCtxResolved;
+	}
+
+	private static final class CacheEntry
+	{
+		private final KPIDataCacheKey key;
+		private final long expiresAtMillis;
+		private final AtomicBoolean loadingStarted = new AtomicBoolean(false);
+		private final CompletableFuture<KPIDataResult> result = new CompletableFuture<>();
+
+		private CacheEntry(final KPIDataCacheKey key, final long expiresAtMillis)
+		{
+			this.key = key;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		public KPIDataCacheKey getKey()
+		{
+			return key;
+		}
+
+		public boolean isExpired(final long nowMillis)
+		{
+			return nowMillis >= expiresAtMillis || result.isCompletedExceptionally();
+		}
+
+		/**
+		 * @return true if the caller shall load the result and complete this entry
+		 */
+		public boolean tryStartLoading()
+		{
+			return loadingStarted.compareAndSet(false, true);
+		}
+
+		public void complete(final KPIDataResult loadedResult)
+		{
+			result.complete(loadedResult);
+		}
+
+		public void completeExceptionally(final Throwable failure)
+		{
+			result.completeExceptionally(failure);
+		}
+
+		public KPIDataResult getOrLoad(final Supplier<KPIDataResult> loader)
+		{
+			if (tryStartLoading())
+			{
+				try
+				{
+					final KPIDataResult loadedResult = loader.get();
+					complete(loadedResult);
+					return loadedResult;
+				}
+				catch (final RuntimeException ex)
+				{
+					completeExceptionally(ex);
+					throw ex;
+				}
+			}
+
+			return join();
+		}
+
+		public KPIDataResult join()
+		{
+			try
+			{
+				return result.join();
+			}
+			catch (final CompletionException ex)
+			{
+				throw AdempiereException.wrapIfNeeded(ex.getCause() != null ? ex.getCause() : ex);
+			}
+		}
+	}
+}
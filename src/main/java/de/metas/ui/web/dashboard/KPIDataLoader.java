@@ -2,7 +2,9 @@ package de.metas.ui.web.dashboard;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 
 import org.adempiere.ad.expression.api.IExpressionEvaluator.OnVariableNotFound;
@@ -13,6 +15,9 @@ import org.compiere.util.Env;
 import org.compiere.util.Evaluatee;
 import org.compiere.util.Evaluatees;
 import org.elasticsearch.action.admin.indices.get.GetIndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.IndicesAdminClient;
@@ -23,8 +28,10 @@ import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Buck
 import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
 import org.slf4j.Logger;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import de.metas.logging.LogManager;
 
@@ -141,11 +148,21 @@ public class KPIDataLoader
 		return this;
 	}
 
-	private boolean isFormatValues()
+	/* package */ boolean isFormatValues()
 	{
 		return formatValues;
 	}
 
+	/* package */ KPI getKPI()
+	{
+		return kpi;
+	}
+
+	/* package */ TimeRange getTimeRange()
+	{
+		return mainTimeRange;
+	}
+
 	/**
 	 * Checks if KPI's elasticsearch Index and Type exists
 	 */
@@ -188,25 +205,69 @@ public class KPIDataLoader
 		final Stopwatch duration = Stopwatch.createStarted();
 
 		logger.trace("Retrieving data for {}, range={}", kpi, mainTimeRange);
-		final KPIDataResult.Builder data = KPIDataResult.builder()
-				.setRange(mainTimeRange);
+		final List<KPISearch> searches = prepareSearches();
+		executeSearches(elasticsearchClient, searches);
 
-		timeRanges.forEach(timeRange -> loadData(data, timeRange));
+		return createDataResult(searches, duration.stop());
+	}
 
-		return data
-				.setTook(duration.stop())
-				.build();
+	/**
+	 * Retrieves the data of all given loaders, using one elasticsearch multi-search request.
+	 *
+	 * @return data results, indexed by the same key as the loaders; if the data of a loader could not be retrieved, it will be skipped and a warning will be logged
+	 */
+	public static <K> Map<K, KPIDataResult> retrieveData(final Client elasticsearchClient, final Map<K, KPIDataLoader> loadersByKey)
+	{
+		if (loadersByKey.isEmpty())
+		{
+			return ImmutableMap.of();
+		}
+
+		final Stopwatch duration = Stopwatch.createStarted();
+
+		final Map<K, List<KPISearch>> searchesByKey = new LinkedHashMap<>(loadersByKey.size());
+		loadersByKey.forEach((key, loader) -> {
+			try
+			{
+				searchesByKey.put(key, loader.prepareSearches());
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed preparing the searches for {}. Skipped.", loader.kpi, ex);
+			}
+		});
+		executeSearches(elasticsearchClient, searchesByKey.values().stream().flatMap(List::stream).collect(ImmutableList.toImmutableList()));
+		duration.stop();
+
+		final ImmutableMap.Builder<K, KPIDataResult> results = ImmutableMap.builder();
+		searchesByKey.forEach((key, searches) -> {
+			final KPIDataLoader loader = loadersByKey.get(key);
+			try
+			{
+				results.put(key, loader.createDataResult(searches, duration));
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed retrieving data for {}. Skipped.", loader.kpi, ex);
+			}
+		});
+		return results.build();
 	}
 
-	private void loadData(final KPIDataResult.Builder data, final TimeRange timeRange)
+	private List<KPISearch> prepareSearches()
 	{
-		logger.trace("Loading data for {}", timeRange);
+		return timeRanges.stream()
+				.map(timeRange -> prepareSearch(mainTimeRange, timeRange))
+				.collect(ImmutableList.toImmutableList());
+	}
 
+	private KPISearch prepareSearch(final TimeRange mainTimeRange, final TimeRange timeRange)
+	{
 		//
 		// Create query evaluation context
 		final Evaluatee evalCtx = Evaluatees.mapBuilder()
-				.put("MainFromMillis", data.getRange().getFromMillis())
-				.put("MainToMillis", data.getRange().getToMillis())
+				.put("MainFromMillis", mainTimeRange.getFromMillis())
+				.put("MainToMillis", mainTimeRange.getToMillis())
 				.put("FromMillis", timeRange.getFromMillis())
 				.put("ToMillis", timeRange.getToMillis())
 				.build()
@@ -218,32 +279,113 @@ public class KPIDataLoader
 		final IStringExpression esQuery = kpi.getESQuery();
 		final String esQueryParsed = esQuery.evaluate(evalCtx, OnVariableNotFound.Preserve);
 
-		//
-		// Execute the query
-		final SearchResponse response;
-		try
-		{
-			logger.trace("Executing: \n{}", esQueryParsed);
+		final SearchRequestBuilder request = elasticsearchClient.prepareSearch(kpi.getESSearchIndex())
+				.setTypes(kpi.getESSearchTypes())
+				.setSource(esQueryParsed)
+		// .setExplain(true) // enable it only for debugging
+		;
 
-			response = elasticsearchClient.prepareSearch(kpi.getESSearchIndex())
-					.setTypes(kpi.getESSearchTypes())
-					.setSource(esQueryParsed)
-					// .setExplain(true) // enable it only for debugging
-					.get();
+		return new KPISearch(this, timeRange, esQueryParsed, request);
+	}
 
-			logger.trace("Got response: \n{}", response);
+	/**
+	 * Executes given searches and sets their responses or failures.
+	 * If there is more than one search, they will be executed in one multi-search request.
+	 * This method never fails; if the whole (multi-)search request fails, all searches are marked as failed.
+	 */
+	private static void executeSearches(final Client elasticsearchClient, final List<KPISearch> searches)
+	{
+		if (searches.isEmpty())
+		{
+			return;
+		}
+		else if (searches.size() == 1)
+		{
+			final KPISearch search = searches.get(0);
+			try
+			{
+				logger.trace("Executing: \n{}", search.getEsQuery());
+				search.setResponse(search.getRequest().get());
+			}
+			catch (final Exception e)
+			{
+				search.setFailure(e);
+			}
+			return;
 		}
-		catch (final NoNodeAvailableException e)
+
+		final MultiSearchResponse multiResponse;
+		try
 		{
-			// elastic search transport error => nothing to do about it
-			throw e;
+			final MultiSearchRequestBuilder multiRequest = elasticsearchClient.prepareMultiSearch();
+			for (final KPISearch search : searches)
+			{
+				logger.trace("Executing: \n{}", search.getEsQuery());
+				multiRequest.add(search.getRequest());
+			}
+			multiResponse = multiRequest.get();
 		}
 		catch (final Exception e)
 		{
-			throw new AdempiereException("Failed executing query for " + this + ": " + e.getLocalizedMessage()
-					+ "\nQuery: " + esQueryParsed, e);
+			// e.g. elastic search transport error => consider all searches failed, so each KPI is skipped
+			logger.warn("Failed executing the multi-search request for {}", searches, e);
+			searches.forEach(search -> search.setFailure(e));
+			return;
 		}
 
+		final MultiSearchResponse.Item[] items = multiResponse.getResponses();
+		for (int i = 0; i < searches.size(); i++)
+		{
+			final KPISearch search = searches.get(i);
+			final MultiSearchResponse.Item item = items[i];
+			if (item.isFailure())
+			{
+				search.setFailure(new AdempiereException(item.getFailureMessage()));
+			}
+			else
+			{
+				search.setResponse(item.getResponse());
+			}
+		}
+	}
+
+	private KPIDataResult createDataResult(final List<KPISearch> searches, final Stopwatch duration)
+	{
+		final KPIDataResult.Builder data = KPIDataResult.builder()
+				.setRange(mainTimeRange);
+
+		for (final KPISearch search : searches)
+		{
+			final TimeRange timeRange = search.getTimeRange();
+			final String esQueryParsed = search.getEsQuery();
+			final Exception failure = search.getFailure();
+			if (failure instanceof NoNodeAvailableException)
+			{
+				// elastic search transport error => nothing to do about it
+				throw (NoNodeAvailableException)failure;
+			}
+			else if (failure != null)
+			{
+				throw new AdempiereException("Failed executing query for " + this + ": " + failure.getLocalizedMessage()
+						+ "\nQuery: " + esQueryParsed, failure);
+			}
+
+			final SearchResponse response = search.getResponse();
+			logger.trace("Got response: \n{}", response);
+
+			loadData(data, timeRange, esQueryParsed, response);
+			data.addTookPerRange(timeRange, response.getTookInMillis());
+		}
+
+		return data
+				.setTook(duration)
+				.build();
+	}
+
+	private void loadData(final KPIDataResult.Builder data, final TimeRange timeRange, final String esQueryParsed, final SearchResponse response)
+	{
+		logger.trace("Loading data for {}", timeRange);
+
 		//
 		// Fetch data
 		try
@@ -359,4 +501,67 @@ public class KPIDataLoader
 			throw new AdempiereException("Cannot convert " + valueObj + " to millis.");
 		}
 	}
+
+	private static final class KPISearch
+	{
+		private final KPIDataLoader loader;
+		private final TimeRange timeRange;
+		private final String esQuery;
+		private final SearchRequestBuilder request;
+
+		private SearchResponse response;
+		private Exception failure;
+
+		private KPISearch(final KPIDataLoader loader, final TimeRange timeRange, final String esQuery, final SearchRequestBuilder request)
+		{
+			this.loader = loader;
+			this.timeRange = timeRange;
+			this.esQuery = esQuery;
+			this.request = request;
+		}
+
+		@Override
+		public String toString()
+		{
+			return MoreObjects.toStringHelper(this)
+					.add("kpi", loader.kpi)
+					.add("timeRange", timeRange)
+					.toString();
+		}
+
+		public TimeRange getTimeRange()
+		{
+			return timeRange;
+		}
+
+		public String getEsQuery()
+		{
+			return esQuery;
+		}
+
+		public SearchRequestBuilder getRequest()
+		{
+			return request;
+		}
+
+		public SearchResponse getResponse()
+		{
+			return response;
+		}
+
+		public void setResponse(final SearchResponse response)
+		{
+			this.response = response;
+		}
+
+		public Exception getFailure()
+		{
+			return failure;
+		}
+
+		public void setFailure(final Exception failure)
+		{
+			this.failure = failure;
+		}
+	}
 }
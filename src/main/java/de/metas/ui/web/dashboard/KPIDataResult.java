@@ -2,6 +2,7 @@ package de.metas.ui.web.dashboard;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
@@ -9,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 /*
  * #%L
@@ -43,6 +45,11 @@ public class KPIDataResult
 	@JsonProperty("took")
 	private final String took;
 
+	/** elasticsearch's took (millis), for each time range */
+	@JsonProperty("tookPerRange")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private final Map<String, Long> tookPerRange;
+
 	@JsonProperty("itemId")
 	@JsonInclude(JsonInclude.Include.NON_NULL)
 	private Integer itemId;
@@ -57,11 +64,22 @@ public class KPIDataResult
 	private KPIDataResult(final Builder builder)
 	{
 		took = builder.took;
+		tookPerRange = ImmutableMap.copyOf(builder.tookPerRange);
 
 		range = builder.range;
 		datasets = ImmutableList.copyOf(builder.datasets.values());
 	}
 
+	/** copy constructor */
+	private KPIDataResult(final KPIDataResult from, final Integer itemId)
+	{
+		took = from.took;
+		tookPerRange = from.tookPerRange;
+		this.itemId = itemId;
+		range = from.range;
+		datasets = from.datasets;
+	}
+
 	public List<KPIDataSet> getData()
 	{
 		return datasets;
@@ -73,12 +91,21 @@ public class KPIDataResult
 		return this;
 	}
 
+	/**
+	 * @return a copy of this result having given itemId; to be used when this result is shared (e.g. cached)
+	 */
+	public KPIDataResult copyWithItemId(final int itemId)
+	{
+		return new KPIDataResult(this, itemId);
+	}
+
 	public static final class Builder
 	{
 		private final LinkedHashMap<String, KPIDataSet> datasets = new LinkedHashMap<>();
 		private TimeRange range;
 
 		private String took;
+		private final LinkedHashMap<String, Long> tookPerRange = new LinkedHashMap<>();
 
 		private Builder()
 		{
@@ -112,6 +139,12 @@ public class KPIDataResult
 			return this;
 		}
 
+		public Builder addTookPerRange(final TimeRange timeRange, final long tookMillis)
+		{
+			tookPerRange.put(timeRange.isMainTimeRange() ? "main" : "offset", tookMillis);
+			return this;
+		}
+
 		public Builder putValue(final String dataSetName, final Object dataSetValueKey, final String fieldName, final Object jsonValue)
 		{
 			dataSet(dataSetName)
@@ -67,6 +67,8 @@ public class UserDashboardRepository
 	// Services
 	@Autowired
 	private UserSession userSession;
+	@Autowired
+	private KPIDataCache kpiDataCache;
 	private final transient IQueryBL queryBL = Services.get(IQueryBL.class);
 
 	private final CCache<UserDashboardKey, UserDashboard> userDashboadCache = CCache.<UserDashboardKey, UserDashboard> newLRUCache(I_WEBUI_Dashboard.Table_Name + "#UserDashboard", Integer.MAX_VALUE, 0)
@@ -180,6 +182,7 @@ public class UserDashboardRepository
 	public void invalidateKPI(final int id)
 	{
 		kpisCache.remove(id);
+		kpiDataCache.invalidateByKPIId(id);
 	}
 
 	public KPI getKPI(final int id)
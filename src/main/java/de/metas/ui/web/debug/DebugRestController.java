@@ -50,7 +50,10 @@ import de.metas.ui.web.notification.UserNotification;
 import de.metas.ui.web.notification.UserNotification.TargetType;
 import de.metas.ui.web.process.ProcessRestController;
 import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.view.DefaultView;
+import de.metas.ui.web.view.IView;
 import de.metas.ui.web.view.IViewsRepository;
+import de.metas.ui.web.view.SqlViewSelectionsCleaner;
 import de.metas.ui.web.view.ViewResult;
 import de.metas.ui.web.view.json.JSONViewResult;
 import de.metas.ui.web.window.WindowConstants;
@@ -174,6 +177,37 @@ public class DebugRestController
 				.collect(GuavaCollectors.toImmutableList());
 	}
 
+	@GetMapping("/views/selectionsCleanup/stats")
+	public Map<String, Object> getViewSelectionsCleanupStats()
+	{
+		return SqlViewSelectionsCleaner.instance.getStats();
+	}
+
+	@GetMapping("/views/{viewId}/cacheStats")
+	public Map<String, Object> getViewCacheStats(@PathVariable("viewId") final String viewIdStr)
+	{
+		final IView view = viewsRepo.getView(viewIdStr);
+		if (!(view instanceof DefaultView))
+		{
+			return ImmutableMap.of();
+		}
+
+		final DefaultView defaultView = (DefaultView)view;
+		return ImmutableMap.<String, Object> builder()
+				.put("caches", defaultView.getCacheStats()
+						.stream()
+						.map(stats -> stats.toString())
+						.collect(GuavaCollectors.toImmutableList()))
+				.put("pagesPrefetch", defaultView.getPagesPrefetchStats())
+				.build();
+	}
+
+	@GetMapping("/documents/cacheStats")
+	public Map<String, Object> getDocumentsCacheStats()
+	{
+		return documentCollection.getCacheStats();
+	}
+
 	@RequestMapping(value = "/lookups/cacheStats", method = RequestMethod.GET)
 	public List<String> getLookupCacheStats()
 	{
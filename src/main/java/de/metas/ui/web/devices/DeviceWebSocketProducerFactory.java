@@ -1,5 +1,7 @@
 package de.metas.ui.web.devices;
 
+import java.util.Objects;
+
 import org.adempiere.util.Check;
 import org.adempiere.util.Services;
 import org.springframework.stereotype.Component;
@@ -100,6 +102,31 @@ public class DeviceWebSocketProducerFactory implements WebSocketProducerFactory
 					.toString();
 		}
 
+		@Override
+		public long getPollingPeriodMillis()
+		{
+			// NOTE: the devices hub is not notifying us about value changes, so we have to poll it.
+			// Unchanged values are not published again (see isSameEvent).
+			return 1000;
+		}
+
+		/**
+		 * @return true if the device value did not change; the event timestamp is not considered
+		 */
+		@Override
+		public boolean isSameEvent(final Object event, final Object lastPublishedEvent)
+		{
+			if (!(lastPublishedEvent instanceof JSONDeviceValueChangedEvent))
+			{
+				return false;
+			}
+
+			final JSONDeviceValueChangedEvent deviceEvent = (JSONDeviceValueChangedEvent)event;
+			final JSONDeviceValueChangedEvent lastPublishedDeviceEvent = (JSONDeviceValueChangedEvent)lastPublishedEvent;
+			return Objects.equals(deviceEvent.getDeviceId(), lastPublishedDeviceEvent.getDeviceId())
+					&& Objects.equals(deviceEvent.getValue(), lastPublishedDeviceEvent.getValue());
+		}
+
 		@Override
 		public Object produceEvent()
 		{
@@ -206,6 +206,7 @@ public class HUEditorView implements IView
 	public void close()
 	{
 		invalidateAllNoNotify();
+		rowsBuffer.close();
 	}
 
 	@Override
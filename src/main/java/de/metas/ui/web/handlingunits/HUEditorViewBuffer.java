@@ -46,6 +46,9 @@ interface HUEditorViewBuffer
 	
 	long size();
 
+	/** Called when the view is closed. Shall release all resources (e.g. database selections). */
+	void close();
+
 	void invalidateAll();
 
 	boolean addHUIds(Collection<Integer> huIdsToAdd);
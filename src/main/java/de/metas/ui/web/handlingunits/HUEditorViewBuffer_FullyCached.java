@@ -110,6 +110,12 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 		return getRows().size();
 	}
 
+	@Override
+	public void close()
+	{
+		// nothing to release
+	}
+
 	@Override
 	public Stream<HUEditorRow> streamAllRecursive()
 	{
@@ -22,6 +22,8 @@ import org.compiere.util.CCache;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 
+import com.google.common.collect.ImmutableSet;
+
 import de.metas.handlingunits.model.I_M_HU;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -115,6 +117,13 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 		return getDefaultSelection().getSize();
 	}
 
+	@Override
+	public void close()
+	{
+		cache_huRowsById.clear();
+		viewSelectionFactory.scheduleDeleteSelections(ImmutableSet.of(getDefaultSelection().getSelectionId()));
+	}
+
 	@Override
 	public void invalidateAll()
 	{
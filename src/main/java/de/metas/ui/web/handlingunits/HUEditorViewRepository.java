@@ -1,29 +1,43 @@
 package de.metas.ui.web.handlingunits;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.IQueryBuilder;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
 import org.adempiere.ad.service.IADReferenceDAO;
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.model.PlainContextAware;
 import org.adempiere.util.GuavaCollectors;
 import org.adempiere.util.Services;
 import org.compiere.model.I_C_UOM;
 import org.compiere.model.I_M_Product;
+import org.compiere.util.DB;
 import org.compiere.util.Env;
 import org.slf4j.Logger;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 
 import de.metas.handlingunits.IHandlingUnitsBL;
 import de.metas.handlingunits.IHandlingUnitsDAO;
 import de.metas.handlingunits.exceptions.HUException;
 import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Item;
 import de.metas.handlingunits.model.X_M_HU;
 import de.metas.handlingunits.model.X_M_HU_PI_Version;
 import de.metas.handlingunits.storage.IHUProductStorage;
@@ -38,6 +52,7 @@ import de.metas.ui.web.handlingunits.util.HUPackingInfos;
 import de.metas.ui.web.view.descriptor.SqlViewBinding;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.datatypes.json.JSONLookupValue;
+import de.metas.ui.web.window.descriptor.sql.SqlArrays;
 import lombok.Builder;
 import lombok.NonNull;
 
@@ -99,9 +114,12 @@ public class HUEditorViewRepository
 
 	public List<HUEditorRow> retrieveHUEditorRows(final Set<Integer> huIds)
 	{
-		return retrieveTopLevelHUs(huIds)
+		final List<I_M_HU> topLevelHUs = retrieveTopLevelHUs(huIds);
+		final HUsForest husForest = HUsForest.load(topLevelHUs);
+
+		return topLevelHUs
 				.stream()
-				.map(hu -> createHUEditorRow(hu, true))
+				.map(hu -> createHUEditorRow(hu, true, husForest))
 				.collect(GuavaCollectors.toImmutableList());
 	}
 
@@ -121,7 +139,8 @@ public class HUEditorViewRepository
 		// TODO: check if the huId is part of our collection
 
 		final I_M_HU hu = InterfaceWrapperHelper.create(Env.getCtx(), huId, I_M_HU.class, ITrx.TRXNAME_None);
-		return createHUEditorRow(hu, true);
+		final HUsForest husForest = HUsForest.load(ImmutableList.of(hu));
+		return createHUEditorRow(hu, true, husForest);
 	}
 
 	private static List<I_M_HU> retrieveTopLevelHUs(final Collection<Integer> huIds)
@@ -147,7 +166,7 @@ public class HUEditorViewRepository
 				.list();
 	}
 
-	private HUEditorRow createHUEditorRow(final I_M_HU hu, final boolean topLevel)
+	private HUEditorRow createHUEditorRow(final I_M_HU hu, final boolean topLevel, final HUsForest husForest)
 	{
 		final boolean aggregatedTU = Services.get(IHandlingUnitsBL.class).isAggregateHU(hu);
 
@@ -207,17 +226,15 @@ public class HUEditorViewRepository
 		}
 		else if (X_M_HU_PI_Version.HU_UNITTYPE_LoadLogistiqueUnit.equals(huUnitTypeCode))
 		{
-			final IHandlingUnitsDAO handlingUnitsDAO = Services.get(IHandlingUnitsDAO.class);
-			handlingUnitsDAO.retrieveIncludedHUs(hu)
+			husForest.getIncludedHUs(huId)
 					.stream()
-					.map(includedHU -> createHUEditorRow(includedHU, false))
+					.map(includedHU -> createHUEditorRow(includedHU, false, husForest))
 					.forEach(huEditorRow::addIncludedRow);
 		}
 		else if (X_M_HU_PI_Version.HU_UNITTYPE_TransportUnit.equals(huUnitTypeCode))
 		{
-			final IHandlingUnitsDAO handlingUnitsDAO = Services.get(IHandlingUnitsDAO.class);
 			final IHUStorageFactory storageFactory = Services.get(IHandlingUnitsBL.class).getStorageFactory();
-			handlingUnitsDAO.retrieveIncludedHUs(hu)
+			husForest.getIncludedHUs(huId)
 					.stream()
 					.map(includedVHU -> storageFactory.getStorage(includedVHU))
 					.flatMap(vhuStorage -> vhuStorage.getProductStorages().stream())
@@ -360,4 +377,113 @@ public class HUEditorViewRepository
 				.createQuery()
 				.listIds();
 	}
+
+	/**
+	 * The included HUs (recursively) of some top level HUs, loaded with one recursive query and one (chunked) query for the included M_HU records,
+	 * instead of querying the included HUs of each HU one by one.
+	 * 
+	 * The storages are still retrieved through {@link IHUStorageFactory}, per HU.
+	 */
+	private static final class HUsForest
+	{
+		public static HUsForest load(final Collection<I_M_HU> topLevelHUs)
+		{
+			if (topLevelHUs.isEmpty())
+			{
+				return new HUsForest(ImmutableListMultimap.of());
+			}
+
+			final Set<Integer> topLevelHUIds = topLevelHUs.stream().map(I_M_HU::getM_HU_ID).collect(ImmutableSet.toImmutableSet());
+			final ListMultimap<Integer, Integer> includedHUIdsByParentId = retrieveIncludedHUIdsRecursivelly(topLevelHUIds);
+
+			//
+			// Load all included HUs
+			final Map<Integer, I_M_HU> includedHUsById = new HashMap<>();
+			retrieveHUs(ImmutableSet.copyOf(includedHUIdsByParentId.values()))
+					.forEach(hu -> includedHUsById.put(hu.getM_HU_ID(), hu));
+
+			final ImmutableListMultimap.Builder<Integer, I_M_HU> includedHUsByParentId = ImmutableListMultimap.builder();
+			includedHUIdsByParentId.forEach((parentHUId, includedHUId) -> {
+				final I_M_HU includedHU = includedHUsById.get(includedHUId);
+				if (includedHU != null)
+				{
+					includedHUsByParentId.put(parentHUId, includedHU);
+				}
+			});
+
+			return new HUsForest(includedHUsByParentId.build());
+		}
+
+		private static final int QUERY_CHUNK_SIZE = 1000;
+
+		private final ImmutableListMultimap<Integer, I_M_HU> includedHUsByParentId;
+
+		private HUsForest(final ImmutableListMultimap<Integer, I_M_HU> includedHUsByParentId)
+		{
+			this.includedHUsByParentId = includedHUsByParentId;
+		}
+
+		public List<I_M_HU> getIncludedHUs(final int huId)
+		{
+			return includedHUsByParentId.get(huId);
+		}
+
+		/**
+		 * @return included M_HU_IDs indexed by parent M_HU_ID, ordered by M_HU_ID
+		 */
+		private static ListMultimap<Integer, Integer> retrieveIncludedHUIdsRecursivelly(final Set<Integer> huIds)
+		{
+			final String sql = "WITH RECURSIVE hu_tree(M_HU_ID, Parent_HU_ID) AS ("
+					+ "\n SELECT hu." + I_M_HU.COLUMNNAME_M_HU_ID + ", NULL::numeric FROM " + I_M_HU.Table_Name + " hu WHERE hu." + I_M_HU.COLUMNNAME_M_HU_ID + " = ANY(?::integer[])"
+					+ "\n UNION ALL"
+					+ "\n SELECT child." + I_M_HU.COLUMNNAME_M_HU_ID + ", item." + I_M_HU_Item.COLUMNNAME_M_HU_ID
+					+ "\n FROM hu_tree t"
+					+ "\n INNER JOIN " + I_M_HU_Item.Table_Name + " item ON (item." + I_M_HU_Item.COLUMNNAME_M_HU_ID + " = t.M_HU_ID)"
+					+ "\n INNER JOIN " + I_M_HU.Table_Name + " child ON (child." + I_M_HU.COLUMNNAME_M_HU_Item_Parent_ID + " = item." + I_M_HU_Item.COLUMNNAME_M_HU_Item_ID + " AND child.IsActive='Y')"
+					+ "\n)"
+					+ "\n SELECT M_HU_ID, Parent_HU_ID FROM hu_tree WHERE Parent_HU_ID IS NOT NULL ORDER BY Parent_HU_ID, M_HU_ID";
+			final Object[] sqlParams = new Object[] { SqlArrays.toSqlIntArray(huIds.stream().mapToInt(Integer::intValue).toArray()) };
+
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try
+			{
+				pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+				DB.setParameters(pstmt, sqlParams);
+				rs = pstmt.executeQuery();
+
+				final ListMultimap<Integer, Integer> includedHUIdsByParentId = ArrayListMultimap.create();
+				while (rs.next())
+				{
+					includedHUIdsByParentId.put(rs.getInt("Parent_HU_ID"), rs.getInt("M_HU_ID"));
+				}
+				return includedHUIdsByParentId;
+			}
+			catch (final SQLException ex)
+			{
+				throw DBException.wrapIfNeeded(ex)
+						.setSqlIfAbsent(sql, sqlParams);
+			}
+			finally
+			{
+				DB.close(rs, pstmt);
+			}
+		}
+
+		private static List<I_M_HU> retrieveHUs(final Set<Integer> huIds)
+		{
+			final List<I_M_HU> hus = new ArrayList<>(huIds.size());
+			for (final List<Integer> huIdsChunk : Iterables.partition(huIds, QUERY_CHUNK_SIZE))
+			{
+				// NOTE: same transaction as the recursive query above, so we get the same HUs
+				Services.get(IQueryBL.class)
+						.createQueryBuilder(I_M_HU.class, Env.getCtx(), ITrx.TRXNAME_ThreadInherited)
+						.addInArrayFilter(I_M_HU.COLUMN_M_HU_ID, huIdsChunk)
+						.create()
+						.list(I_M_HU.class)
+						.forEach(hus::add);
+			}
+			return hus;
+		}
+	}
 }
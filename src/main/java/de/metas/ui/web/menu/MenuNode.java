@@ -238,11 +238,20 @@ public final class MenuNode
 
 	public MenuNode deepCopy(final MenuNodeFilter filter)
 	{
-		final IPair<MenuNode, MenuNodeFilterResolution> nodeAndResolution = deepCopy0(filter);
+		final IPair<MenuNode, MenuNodeFilterResolution> nodeAndResolution = deepCopy0(filter, true);
 		return nodeAndResolution == null ? null : nodeAndResolution.getLeft();
 	}
 
-	private IPair<MenuNode, MenuNodeFilterResolution> deepCopy0(final MenuNodeFilter filter)
+	/**
+	 * Same as {@link #deepCopy(MenuNodeFilter)} but the copied nodes are not flagged as matched by filter.
+	 */
+	public MenuNode deepCopyWithoutMatching(final MenuNodeFilter filter)
+	{
+		final IPair<MenuNode, MenuNodeFilterResolution> nodeAndResolution = deepCopy0(filter, false);
+		return nodeAndResolution == null ? null : nodeAndResolution.getLeft();
+	}
+
+	private IPair<MenuNode, MenuNodeFilterResolution> deepCopy0(final MenuNodeFilter filter, final boolean flagMatchedByFilter)
 	{
 		//
 		// Get the resolution for this node:
@@ -258,7 +267,7 @@ public final class MenuNode
 		int countAcceptedChildren = 0;
 		for (final MenuNode child : children)
 		{
-			final IPair<MenuNode, MenuNodeFilterResolution> childCopyAndResolution = child.deepCopy0(filter);
+			final IPair<MenuNode, MenuNodeFilterResolution> childCopyAndResolution = child.deepCopy0(filter, flagMatchedByFilter);
 			if (childCopyAndResolution == null)
 			{
 				continue;
@@ -292,7 +301,7 @@ public final class MenuNode
 			return null;
 		}
 
-		final boolean matchedByFilter = resolution == MenuNodeFilterResolution.Accept;
+		final boolean matchedByFilter = flagMatchedByFilter && resolution == MenuNodeFilterResolution.Accept;
 		final MenuNode thisCopy = new MenuNode(this, childrenCopy, matchedByFilter);
 		return ImmutablePair.of(thisCopy, resolution);
 	}
@@ -1,12 +1,14 @@
 package de.metas.ui.web.menu;
 
-import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import org.compiere.util.Util;
@@ -15,9 +17,15 @@ import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Sets;
 
 import de.metas.logging.LogManager;
 import de.metas.printing.esb.base.util.Check;
@@ -25,6 +33,7 @@ import de.metas.ui.web.menu.MenuNode.MenuNodeFilter.MenuNodeFilterResolution;
 import de.metas.ui.web.menu.MenuNode.MenuNodeType;
 import de.metas.ui.web.menu.exception.NoMenuNodesFoundException;
 import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.model.lookup.LookupValueFilterPredicates;
 import lombok.NonNull;
 
 /*
@@ -60,22 +69,46 @@ public final class MenuTree
 
 	private final long version;
 
-	private final MenuNode rootNode;
+	/** Root node of the canonical tree (i.e. including the nodes which are not visible) */
+	private final MenuNode canonicalRootNode;
+	/** Indexes of the visible nodes or <code>null</code> if all nodes are visible */
+	private final BitSet visibleNodeIndexes;
+	/** Root node containing only the visible nodes, materialized on demand */
+	private final Supplier<MenuNode> rootNodeSupplier;
+
+	//
+	// Canonical tree indexes, shared by all role views (see {@link #withOnlyNodeIndexes(long, BitSet)})
 	private final Map<String, MenuNode> nodesById;
+	/** Index of each node, in depth-first order. Used to represent a subset of nodes as a {@link BitSet}. */
+	private final ImmutableMap<String, Integer> nodeIndexesById;
+	/** Nodes, by their index */
+	private final ImmutableList<MenuNode> nodesByIndex;
 
 	private final ListMultimap<ArrayKey, MenuNode> nodesByTypeAndElementId;
 	private final ListMultimap<String, MenuNode> nodesByMainTableName;
 
+	//
+	// Search index, used by filter(...)
+	private static final int SEARCH_NGRAM_LENGTH = 3;
+	/** Normalized captions (see {@link #normalizeForSearch(String)}), indexed by node ID */
+	private final ImmutableMap<String, String> searchCaptionsByNodeId;
+	/** Node IDs indexed by each {@link #SEARCH_NGRAM_LENGTH}-gram of their normalized caption */
+	private final ImmutableSetMultimap<String, String> searchNodeIdsByNGram;
+
 	private MenuTree(final long version, final MenuNode rootNode)
 	{
 		super();
 		this.version = version;
 		Preconditions.checkNotNull(rootNode, "rootNode");
-		this.rootNode = rootNode;
+		canonicalRootNode = rootNode;
+		visibleNodeIndexes = null;
+		rootNodeSupplier = Suppliers.ofInstance(rootNode);
 
 		final ImmutableMap.Builder<String, MenuNode> nodesByIdBuilder = ImmutableMap.builder();
 		final ImmutableListMultimap.Builder<ArrayKey, MenuNode> nodesByTypeAndElementIdBuilder = ImmutableListMultimap.builder();
 		final ImmutableListMultimap.Builder<String, MenuNode> nodesByMainTableNameBuilder = ImmutableListMultimap.builder();
+		final ImmutableMap.Builder<String, String> searchCaptionsByNodeIdBuilder = ImmutableMap.builder();
+		final ImmutableSetMultimap.Builder<String, String> searchNodeIdsByNGramBuilder = ImmutableSetMultimap.builder();
 		rootNode.iterate(node -> {
 			nodesByIdBuilder.put(node.getId(), node);
 			nodesByTypeAndElementIdBuilder.put(mkTypeAndElementIdKey(node.getType(), node.getElementId()), node);
@@ -85,10 +118,48 @@ public final class MenuTree
 			{
 				nodesByMainTableNameBuilder.put(mainTableName, node);
 			}
+
+			final String searchCaption = normalizeForSearch(node.getCaption());
+			searchCaptionsByNodeIdBuilder.put(node.getId(), searchCaption);
+			extractNGrams(searchCaption).forEach(ngram -> searchNodeIdsByNGramBuilder.put(ngram, node.getId()));
 		});
 		nodesById = nodesByIdBuilder.build();
+		nodeIndexesById = buildNodeIndexesById(nodesById.keySet());
+		nodesByIndex = ImmutableList.copyOf(nodesById.values());
 		nodesByTypeAndElementId = nodesByTypeAndElementIdBuilder.build();
 		nodesByMainTableName = nodesByMainTableNameBuilder.build();
+		searchCaptionsByNodeId = searchCaptionsByNodeIdBuilder.build();
+		searchNodeIdsByNGram = searchNodeIdsByNGramBuilder.build();
+	}
+
+	/** Role view constructor: shares the canonical tree's indexes and only keeps track of which nodes are visible */
+	private MenuTree(final MenuTree canonicalTree, final long version, @NonNull final BitSet visibleNodeIndexes)
+	{
+		super();
+		this.version = version;
+		canonicalRootNode = canonicalTree.canonicalRootNode;
+		this.visibleNodeIndexes = visibleNodeIndexes;
+		rootNodeSupplier = Suppliers.memoize(() -> canonicalRootNode.deepCopyWithoutMatching(node -> isVisible(node) ? MenuNodeFilterResolution.Accept : MenuNodeFilterResolution.Reject));
+
+		nodesById = canonicalTree.nodesById;
+		nodeIndexesById = canonicalTree.nodeIndexesById;
+		nodesByIndex = canonicalTree.nodesByIndex;
+		nodesByTypeAndElementId = canonicalTree.nodesByTypeAndElementId;
+		nodesByMainTableName = canonicalTree.nodesByMainTableName;
+		searchCaptionsByNodeId = canonicalTree.searchCaptionsByNodeId;
+		searchNodeIdsByNGram = canonicalTree.searchNodeIdsByNGram;
+	}
+
+	private static ImmutableMap<String, Integer> buildNodeIndexesById(final Collection<String> nodeIds)
+	{
+		final ImmutableMap.Builder<String, Integer> nodeIndexesById = ImmutableMap.builder();
+		int index = 0;
+		for (final String nodeId : nodeIds)
+		{
+			nodeIndexesById.put(nodeId, index);
+			index++;
+		}
+		return nodeIndexesById.build();
 	}
 
 	private static final ArrayKey mkTypeAndElementIdKey(final MenuNodeType type, final String elementId)
@@ -100,8 +171,9 @@ public final class MenuTree
 	public String toString()
 	{
 		return MoreObjects.toStringHelper(this)
-				.add("rootNode", rootNode)
+				.add("rootNode", canonicalRootNode)
 				.add("version", version)
+				.add("visibleNodeIndexes", visibleNodeIndexes)
 				.toString();
 	}
 
@@ -112,36 +184,125 @@ public final class MenuTree
 
 	public MenuNode getRootNode()
 	{
-		return rootNode;
+		return rootNodeSupplier.get();
+	}
+
+	/**
+	 * @param canonicalNode node of the canonical tree
+	 * @return true if given node is part of this menu tree
+	 */
+	private boolean isVisible(final MenuNode canonicalNode)
+	{
+		return visibleNodeIndexes == null || visibleNodeIndexes.get(nodeIndexesById.get(canonicalNode.getId()));
+	}
+
+	/**
+	 * @param canonicalNode visible node of the canonical tree
+	 * @return the node from {@link #getRootNode()} which corresponds to given canonical node
+	 */
+	private MenuNode toVisibleNode(final MenuNode canonicalNode)
+	{
+		if (visibleNodeIndexes == null)
+		{
+			return canonicalNode;
+		}
+
+		// NOTE: skip the root node, which is at index "0"
+		final List<MenuNode> canonicalPath = getPath(canonicalNode);
+		MenuNode node = getRootNode();
+		for (final MenuNode pathElement : canonicalPath.subList(1, canonicalPath.size()))
+		{
+			final String pathElementId = pathElement.getId();
+			node = node.getChildren()
+					.stream()
+					.filter(child -> pathElementId.equals(child.getId()))
+					.findFirst()
+					.orElseThrow(() -> new IllegalStateException("Visible node " + pathElementId + " was not found in the materialized tree")); // shall not happen
+		}
+		return node;
+	}
+
+	/**
+	 * @return the indexes of the nodes accepted by given predicate
+	 * @see #withOnlyNodeIndexes(long, BitSet)
+	 */
+	public BitSet getNodeIndexes(@NonNull final Predicate<MenuNode> predicate)
+	{
+		final BitSet nodeIndexes = new BitSet(nodeIndexesById.size());
+		nodesById.forEach((nodeId, node) -> {
+			if (predicate.test(node))
+			{
+				nodeIndexes.set(nodeIndexesById.get(nodeId));
+			}
+		});
+		return nodeIndexes;
+	}
+
+	/**
+	 * The returned tree shares this tree's node maps and search index; the nodes are materialized only when {@link #getRootNode()} is called.
+	 *
+	 * @param nodeIndexes the indexes of the leaf nodes to keep (see {@link #getNodeIndexes(Predicate)})
+	 * @return a new menu tree containing only the leaf nodes with given indexes and the grouping nodes which are having at least one of those leafs
+	 */
+	public MenuTree withOnlyNodeIndexes(final long version, @NonNull final BitSet nodeIndexes)
+	{
+		Preconditions.checkState(visibleNodeIndexes == null, "Only the canonical menu tree can be restricted: %s", this);
+
+		final BitSet visibleNodeIndexes = new BitSet(nodesByIndex.size());
+		visibleNodeIndexes.set(nodeIndexesById.get(canonicalRootNode.getId()));
+		for (int nodeIndex = nodeIndexes.nextSetBit(0); nodeIndex >= 0; nodeIndex = nodeIndexes.nextSetBit(nodeIndex + 1))
+		{
+			final MenuNode leafNode = nodesByIndex.get(nodeIndex);
+			if (leafNode.isGroupingNode())
+			{
+				// grouping nodes are visible only if they are having at least one visible leaf
+				continue;
+			}
+
+			// Make the leaf and its parents visible.
+			// NOTE: we stop at the first visible parent because its parents are already visible.
+			for (MenuNode node = leafNode; node != null; node = node.getParent())
+			{
+				final int index = nodeIndexesById.get(node.getId());
+				if (visibleNodeIndexes.get(index))
+				{
+					break;
+				}
+				visibleNodeIndexes.set(index);
+			}
+		}
+
+		return new MenuTree(this, version, visibleNodeIndexes);
 	}
 
 	public MenuNode getNodeById(final String nodeId)
 	{
 		final MenuNode node = nodesById.get(nodeId);
-		if (node == null)
+		if (node == null || !isVisible(node))
 		{
 			throw new NoMenuNodesFoundException("No menu node found for nodeId=" + nodeId);
 		}
-		return node;
+		return toVisibleNode(node);
 	}
 
 	public Stream<MenuNode> streamNodesByAD_Menu_ID(final int adMenuId)
 	{
 		return nodesById.values()
 				.stream()
-				.filter(node -> node.getAD_Menu_ID() == adMenuId);
+				.filter(node -> node.getAD_Menu_ID() == adMenuId)
+				.filter(this::isVisible)
+				.map(this::toVisibleNode);
 	}
 
 	private MenuNode getFirstNodeByElementIdOrNull(final MenuNodeType type, final String elementId)
 	{
 		final ArrayKey key = mkTypeAndElementIdKey(type, elementId);
-		final List<MenuNode> nodes = nodesByTypeAndElementId.get(key);
-		if (nodes == null || nodes.isEmpty())
-		{
-			return null;
-		}
-
-		return nodes.get(0);
+		return nodesByTypeAndElementId.get(key)
+				.stream()
+				.filter(this::isVisible)
+				.findFirst()
+				.map(this::toVisibleNode)
+				.orElse(null);
 	}
 
 	public MenuNode getFirstNodeByElementId(final MenuNodeType type, final String elementId)
@@ -157,15 +318,8 @@ public final class MenuTree
 	public Optional<MenuNode> getNewRecordNodeForWindowId(final WindowId windowId)
 	{
 		final String elementId = windowId.toJson();
-		final ArrayKey key = mkTypeAndElementIdKey(MenuNodeType.NewRecord, elementId);
-		final List<MenuNode> nodes = nodesByTypeAndElementId.get(key);
-		if (nodes == null || nodes.isEmpty())
-		{
-			return Optional.empty();
-		}
-
-		final MenuNode newRecordNode = nodes.get(0);
-		return Optional.of(newRecordNode);
+		final MenuNode newRecordNode = getFirstNodeByElementIdOrNull(MenuNodeType.NewRecord, elementId);
+		return Optional.ofNullable(newRecordNode);
 	}
 
 	public Optional<MenuNode> getNewRecordNodeForTableName(final String tableName)
@@ -173,7 +327,9 @@ public final class MenuTree
 		return nodesByMainTableName.get(tableName)
 				.stream()
 				.filter(node -> node.getType() == MenuNodeType.NewRecord)
-				.findFirst();
+				.filter(this::isVisible)
+				.findFirst()
+				.map(this::toVisibleNode);
 	}
 
 	public List<MenuNode> getPath(final String nodeId)
@@ -238,10 +394,12 @@ public final class MenuTree
 			throw new IllegalArgumentException("Invalid name query '" + nameQuery + "'");
 		}
 
-		final String nameQueryLC = nameQuery.toLowerCase();
-		logger.trace("Filtering using nameQueryLC={}", nameQueryLC);
+		final String nameQueryNorm = normalizeForSearch(nameQuery);
+		final Set<String> matchingNodeIds = getNodeIdsMatchingNameQuery(nameQueryNorm);
+		logger.trace("Filtering using nameQueryNorm={}: {} matching nodes", nameQueryNorm, matchingNodeIds.size());
 
-		return getRootNode()
+		// NOTE: we are filtering the canonical tree, so we don't have to materialize the visible nodes first
+		return canonicalRootNode
 				.deepCopy(node -> {
 					if (node.isRoot())
 					{
@@ -249,7 +407,13 @@ public final class MenuTree
 						return MenuNodeFilterResolution.Accept;
 					}
 
-					final boolean matches = matchesNameQuery(node, nameQueryLC);
+					if (!isVisible(node))
+					{
+						logger.trace("Filter: reject node because it's not visible: {}", node);
+						return MenuNodeFilterResolution.Reject;
+					}
+
+					final boolean matches = matchingNodeIds.contains(node.getId());
 					if (matches)
 					{
 						logger.trace("Filter: accept node because matches: {}", node);
@@ -274,31 +438,80 @@ public final class MenuTree
 				});
 	}
 
-	private static final boolean matchesNameQuery(final MenuNode node, final String nameQueryLC)
+	/**
+	 * @param nameQueryNorm normalized name query (see {@link #normalizeForSearch(String)})
+	 * @return IDs of the nodes whose caption contains given query
+	 */
+	private Set<String> getNodeIdsMatchingNameQuery(final String nameQueryNorm)
 	{
-		final String captionNorm = stripDiacritics(node.getCaption().toLowerCase());
-		final String queryNorm = stripDiacritics(nameQueryLC);
-		return captionNorm.indexOf(queryNorm) >= 0;
+		//
+		// Narrow down the candidates to the nodes which contain all n-grams of the query
+		Set<String> candidateNodeIds = null;
+		for (final String ngram : extractNGrams(nameQueryNorm))
+		{
+			final Set<String> nodeIds = searchNodeIdsByNGram.get(ngram);
+			candidateNodeIds = candidateNodeIds == null ? nodeIds : Sets.intersection(candidateNodeIds, nodeIds);
+			if (candidateNodeIds.isEmpty())
+			{
+				return ImmutableSet.of();
+			}
+		}
+		if (candidateNodeIds == null)
+		{
+			// the query is shorter than an n-gram
+			candidateNodeIds = searchCaptionsByNodeId.keySet();
+		}
+
+		//
+		// Check the candidates
+		return candidateNodeIds.stream()
+				.filter(nodeId -> searchCaptionsByNodeId.get(nodeId).contains(nameQueryNorm))
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	private static Set<String> extractNGrams(final String string)
+	{
+		if (string.length() < SEARCH_NGRAM_LENGTH)
+		{
+			return ImmutableSet.of();
+		}
+
+		final Set<String> ngrams = new HashSet<>();
+		for (int i = 0, last = string.length() - SEARCH_NGRAM_LENGTH; i <= last; i++)
+		{
+			ngrams.add(string.substring(i, i + SEARCH_NGRAM_LENGTH));
+		}
+		return ngrams;
 	}
 
-	private static final String stripDiacritics(final String string)
+	/**
+	 * Same normalization as the lookups are using (see {@link LookupValueFilterPredicates#normalizeForMatching(String)}).
+	 */
+	private static final String normalizeForSearch(final String string)
 	{
-		String s = Normalizer.normalize(string, Normalizer.Form.NFD);
-		s = s.replaceAll("[\\p{InCombiningDiacriticalMarks}]", "");
-		return s;
+		if (string == null)
+		{
+			return "";
+		}
+		return LookupValueFilterPredicates.normalizeForMatching(string);
 	}
 
 	public MenuNode getRootNodeWithFavoritesOnly(@NonNull final MenuNodeFavoriteProvider menuNodeFavoriteProvider)
 	{
 		final Set<String> parentNodeIdsToAlwaysAccept = new HashSet<>();
 
-		return getRootNode()
+		return canonicalRootNode
 				.deepCopy(node -> {
 					if (node.isRoot())
 					{
 						return MenuNodeFilterResolution.Accept;
 					}
 
+					if (!isVisible(node))
+					{
+						return MenuNodeFilterResolution.Reject;
+					}
+
 					if (menuNodeFavoriteProvider.isFavorite(node))
 					{
 						// If favorite grouping node then we shall include all it's children, no matter what
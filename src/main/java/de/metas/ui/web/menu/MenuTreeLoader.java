@@ -1,18 +1,21 @@
 package de.metas.ui.web.menu;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
 
-import org.adempiere.ad.security.IUserRolePermissions;
-import org.adempiere.ad.security.IUserRolePermissionsDAO;
-import org.adempiere.ad.security.UserRolePermissionsKey;
-import org.adempiere.ad.security.permissions.UserMenuInfo;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
 import org.adempiere.util.Check;
-import org.adempiere.util.Services;
 import org.compiere.model.MTree;
 import org.compiere.model.MTreeNode;
 import org.compiere.model.X_AD_Menu;
+import org.compiere.util.DB;
 import org.compiere.util.Env;
 import org.slf4j.Logger;
 
@@ -52,50 +55,54 @@ final class MenuTreeLoader
 
 	// services
 	private static final transient Logger logger = LogManager.getLogger(MenuTreeLoader.class);
-	private final transient IUserRolePermissionsDAO userRolePermissionsDAO = Services.get(IUserRolePermissionsDAO.class);
 
 	private static final int DEPTH_Root = 0;
 	private static final int DEPTH_RootChildren = 1;
 
-	private UserRolePermissionsKey _userRolePermissionsKey;
-	private IUserRolePermissions _userRolePermissions; // lazy
+	/** The loaded menu trees are not versioned, because they are not depending on permissions */
+	private static final long VERSION_Canonical = 0;
+
+	private int _adClientId = -1;
+	private int _adTreeId = -1;
+	private int _rootMenuId = -1;
 	private String _adLanguage;
-	private long _version = -1;
+
+	/** AD_Menu_IDs which are inactive, either as menu entries or as nodes of the loaded tree */
+	private Set<Integer> _inactiveMenuIds;
 
 	private MenuTreeLoader()
 	{
 		super();
 	}
 
-	public MenuTreeLoader setUserRolePermissionsKey(final UserRolePermissionsKey userRolePermissionsKey)
+	public MenuTreeLoader setAD_Client_ID(final int adClientId)
 	{
-		_userRolePermissionsKey = userRolePermissionsKey;
+		_adClientId = adClientId;
 		return this;
 	}
 
-	@NonNull
-	private UserRolePermissionsKey getUserRolePermissionsKey()
+	public MenuTreeLoader setAD_Tree_ID(final int adTreeId)
 	{
-		return _userRolePermissionsKey;
+		_adTreeId = adTreeId;
+		return this;
 	}
 
-	private IUserRolePermissions getUserRolePermissions()
+	public MenuTreeLoader setRoot_Menu_ID(final int rootMenuId)
 	{
-		if (_userRolePermissions == null)
-		{
-			final UserRolePermissionsKey userRolePermissionsKey = getUserRolePermissionsKey();
-			_userRolePermissions = userRolePermissionsDAO.retrieveUserRolePermissions(userRolePermissionsKey);
-		}
-		return _userRolePermissions;
+		_rootMenuId = rootMenuId;
+		return this;
 	}
 
+	/**
+	 * Loads the canonical menu tree, i.e. all active menu nodes, no matter which role has access to them.
+	 * 
+	 * To get the menu tree of a given role, use {@link MenuTree#withOnlyNodeIndexes(long, java.util.BitSet)}.
+	 */
 	public MenuTree load()
 	{
-		if (logger.isTraceEnabled())
-		{
-			logger.trace("Loading menu tree for {}", getUserRolePermissions());
-		}
+		logger.trace("Loading menu tree for AD_Client_ID={}, AD_Tree_ID={}, Root_Menu_ID={}, AD_Language={}", _adClientId, _adTreeId, _rootMenuId, _adLanguage);
 
+		_inactiveMenuIds = retrieveInactiveMenuIds();
 		final MTreeNode rootNodeModel = retrieveRootNodeModel();
 		final MenuNode rootNode = createMenuNodeRecursivelly(rootNodeModel, DEPTH_Root);
 		if (rootNode == null)
@@ -103,12 +110,18 @@ final class MenuTreeLoader
 			throw new IllegalStateException("No root menu node available"); // shall not happen
 		}
 
-		final long version = getVersion();
-		return MenuTree.of(version, rootNode);
+		return MenuTree.of(VERSION_Canonical, rootNode);
 	}
 
 	private MenuNode createMenuNodeRecursivelly(final MTreeNode nodeModel, final int depth)
 	{
+		// NOTE: the tree is loaded in editable mode, which does not filter out the inactive nodes, so we have to do it here (including their children)
+		if (depth != DEPTH_Root && _inactiveMenuIds.contains(nodeModel.getNode_ID()))
+		{
+			logger.trace("Skip inactive menu node and its children: {}", nodeModel);
+			return null;
+		}
+
 		final MenuNode.Builder nodeBuilder = createMenuNodeBuilder(nodeModel, depth);
 		if (nodeBuilder == null)
 		{
@@ -225,24 +238,30 @@ final class MenuTreeLoader
 
 	private MTreeNode retrieveRootNodeModel()
 	{
-		final UserMenuInfo userMenuInfo = getUserMenuInfo();
-		final int adTreeId = userMenuInfo.getAD_Tree_ID();
+		final int adTreeId = _adTreeId;
 		if (adTreeId < 0)
 		{
 			throw new AdempiereException("Menu tree not found");
 		}
 
+		// NOTE: the menu tree is cached per client, so make sure we load it for that client and not for the one which happens to be in current context
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		if (_adClientId >= 0)
+		{
+			Env.setContext(ctx, Env.CTXNAME_AD_Client_ID, _adClientId);
+		}
+
 		final MTree mTree = MTree.builder()
-				.setCtx(Env.getCtx())
+				.setCtx(ctx)
 				.setTrxName(ITrx.TRXNAME_None)
 				.setAD_Tree_ID(adTreeId)
-				.setEditable(false)
+				.setEditable(true) // load all nodes, no matter if current role has access to them or not
 				.setClientTree(true)
 				.setLanguage(getAD_Language())
 				.build();
 
 		final MTreeNode rootNodeModel = mTree.getRoot();
-		int rootMenuIdEffective = userMenuInfo.getRoot_Menu_ID();
+		final int rootMenuIdEffective = _rootMenuId;
 		if (rootMenuIdEffective > 0)
 		{
 			final MTreeNode rootNodeModelEffective = rootNodeModel.findNode(rootMenuIdEffective);
@@ -259,15 +278,35 @@ final class MenuTreeLoader
 		return rootNodeModel;
 	}
 	
-	private UserMenuInfo getUserMenuInfo()
+	private Set<Integer> retrieveInactiveMenuIds()
 	{
-		final IUserRolePermissions userRolePermissions = getUserRolePermissions();
-		if (!userRolePermissions.hasPermission(IUserRolePermissions.PERMISSION_MenuAvailable))
+		final String sql = "SELECT AD_Menu_ID FROM AD_Menu WHERE IsActive='N'"
+				+ " UNION SELECT Node_ID FROM AD_TreeNodeMM WHERE AD_Tree_ID=? AND IsActive='N'";
+		final Object[] sqlParams = new Object[] { _adTreeId };
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
 		{
-			return UserMenuInfo.NONE;
-		}
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
 
-		return userRolePermissions.getMenuInfo();
+			final Set<Integer> inactiveMenuIds = new HashSet<>();
+			while (rs.next())
+			{
+				inactiveMenuIds.add(rs.getInt(1));
+			}
+			return inactiveMenuIds;
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
 	}
 
 	public MenuTreeLoader setAD_Language(String adLanguage)
@@ -281,13 +320,4 @@ final class MenuTreeLoader
 	{
 		return _adLanguage;
 	}
-
-	private long getVersion()
-	{
-		if (_version < 0)
-		{
-			_version = userRolePermissionsDAO.getCacheVersion();
-		}
-		return _version;
-	}
 }
@@ -1,5 +1,6 @@
 package de.metas.ui.web.menu;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -8,8 +9,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import org.adempiere.ad.security.IUserRolePermissions;
 import org.adempiere.ad.security.IUserRolePermissionsDAO;
 import org.adempiere.ad.security.UserRolePermissionsKey;
+import org.adempiere.ad.security.permissions.UserMenuInfo;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.user.api.IUserMenuFavoritesDAO;
 import org.adempiere.util.Services;
@@ -18,11 +21,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 
 import de.metas.logging.LogManager;
+import de.metas.ui.web.process.ProcessId;
 import de.metas.ui.web.session.UserSession;
 
 /*
@@ -55,16 +60,30 @@ public class MenuTreeRepository implements MenuNodeFavoriteProvider
 	@Autowired
 	private UserSession userSession;
 
-	private final LoadingCache<MenuTreeKey, MenuTree> menuTrees = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).build(new CacheLoader<MenuTreeKey, MenuTree>()
+	/** Menu trees containing all nodes, shared by all roles which are using the same AD_Tree_ID/Root_Menu_ID */
+	private final LoadingCache<CanonicalMenuTreeKey, MenuTree> canonicalMenuTrees = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).build(new CacheLoader<CanonicalMenuTreeKey, MenuTree>()
 	{
-
 		@Override
-		public MenuTree load(final MenuTreeKey key)
+		public MenuTree load(final CanonicalMenuTreeKey key)
 		{
-			return MenuTreeLoader.newInstance().setUserRolePermissionsKey(key.getUserRolePermissionsKey()).setAD_Language(key.getAD_Language()).load();
+			return MenuTreeLoader.newInstance()
+					.setAD_Client_ID(key.getAdClientId())
+					.setAD_Tree_ID(key.getAdTreeId())
+					.setRoot_Menu_ID(key.getRootMenuId())
+					.setAD_Language(key.getAdLanguage())
+					.load();
 		}
 	});
 
+	/** The indexes of the canonical menu tree nodes which are accessible by a given role */
+	private final Cache<MenuTreeKey, AccessibleNodeIndexes> accessibleNodeIndexes = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).build();
+
+	/**
+	 * The menu trees of recently used roles.
+	 * These are only a materialization of the canonical menu tree and accessible node indexes, so we keep only a few of them.
+	 */
+	private final Cache<MenuTreeKey, MenuTree> menuTrees = CacheBuilder.newBuilder().maximumSize(50).expireAfterAccess(10, TimeUnit.MINUTES).build();
+
 	private final LoadingCache<Integer, UserMenuFavorites> userMenuFavoritesByUserId = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).build(new CacheLoader<Integer, UserMenuFavorites>()
 	{
 
@@ -84,32 +103,52 @@ public class MenuTreeRepository implements MenuNodeFavoriteProvider
 
 	public MenuTree getMenuTree(final UserRolePermissionsKey userRolePermissionsKey, final String adLanguage)
 	{
-		try
+		final MenuTreeKey key = new MenuTreeKey(userRolePermissionsKey, adLanguage);
+		final long currentVersion = Services.get(IUserRolePermissionsDAO.class).getCacheVersion();
+
+		final MenuTree menuTree = menuTrees.getIfPresent(key);
+		if (menuTree != null && menuTree.getVersion() == currentVersion)
 		{
-			final MenuTreeKey key = new MenuTreeKey(userRolePermissionsKey, adLanguage);
-			MenuTree menuTree = menuTrees.get(key);
-
-			//
-			// If menuTree's version is not the current one, try re-acquiring it.
-			int retry = 3;
-			final long currentVersion = Services.get(IUserRolePermissionsDAO.class).getCacheVersion();
-			while (menuTree.getVersion() != currentVersion)
-			{
-				menuTrees.invalidate(key);
-				menuTree = menuTrees.get(key);
+			return menuTree;
+		}
 
-				retry--;
-				if (retry <= 0)
-				{
-					break;
-				}
-			}
-			if (menuTree.getVersion() != currentVersion)
-			{
-				logger.warn("Could not acquire menu tree version {}. Returning what we got... \nmenuTree: {}\nkey={}", currentVersion, menuTree, key);
-			}
+		final MenuTree menuTreeNew = createMenuTree(key, currentVersion);
+		menuTrees.put(key, menuTreeNew);
+		return menuTreeNew;
+	}
 
-			return menuTree;
+	private MenuTree createMenuTree(final MenuTreeKey key, final long version)
+	{
+		final IUserRolePermissions permissions = Services.get(IUserRolePermissionsDAO.class).retrieveUserRolePermissions(key.getUserRolePermissionsKey());
+		final CanonicalMenuTreeKey canonicalKey = CanonicalMenuTreeKey.of(permissions, key.getAD_Language());
+		final MenuTree canonicalMenuTree = getCanonicalMenuTree(canonicalKey);
+
+		//
+		// Get the accessible nodes.
+		// If the permissions were changed, rebuild only the accessible nodes, but not the menu tree itself.
+		AccessibleNodeIndexes accessibleNodes = accessibleNodeIndexes.getIfPresent(key);
+		if (accessibleNodes == null
+				|| accessibleNodes.getVersion() != version
+				|| !Objects.equals(accessibleNodes.getCanonicalKey(), canonicalKey)
+				|| accessibleNodes.getCanonicalMenuTree() != canonicalMenuTree)
+		{
+			accessibleNodes = AccessibleNodeIndexes.builder()
+					.version(version)
+					.canonicalKey(canonicalKey)
+					.canonicalMenuTree(canonicalMenuTree)
+					.nodeIndexes(canonicalMenuTree.getNodeIndexes(node -> isAccessible(node, permissions)))
+					.build();
+			accessibleNodeIndexes.put(key, accessibleNodes);
+		}
+
+		return canonicalMenuTree.withOnlyNodeIndexes(version, accessibleNodes.getNodeIndexes());
+	}
+
+	private MenuTree getCanonicalMenuTree(final CanonicalMenuTreeKey canonicalKey)
+	{
+		try
+		{
+			return canonicalMenuTrees.get(canonicalKey);
 		}
 		catch (final ExecutionException e)
 		{
@@ -117,8 +156,31 @@ public class MenuTreeRepository implements MenuNodeFavoriteProvider
 		}
 	}
 
+	private static boolean isAccessible(final MenuNode node, final IUserRolePermissions permissions)
+	{
+		switch (node.getType())
+		{
+			case Window:
+				return permissions.checkWindowPermission(Integer.parseInt(node.getElementId())).hasReadAccess();
+			case NewRecord:
+				// creating a new record requires write access (see DocumentPermissionsHelper)
+				return permissions.checkWindowPermission(Integer.parseInt(node.getElementId())).hasWriteAccess();
+			case Process:
+			case Report:
+				return permissions.checkProcessAccess(ProcessId.fromJson(node.getElementId()).getProcessIdAsInt()) != null;
+			default:
+				return false;
+		}
+	}
+
 	public void cacheReset()
 	{
+		canonicalMenuTrees.invalidateAll();
+		canonicalMenuTrees.cleanUp();
+
+		accessibleNodeIndexes.invalidateAll();
+		accessibleNodeIndexes.cleanUp();
+
 		menuTrees.invalidateAll();
 		menuTrees.cleanUp();
 
@@ -233,6 +295,33 @@ public class MenuTreeRepository implements MenuNodeFavoriteProvider
 		}
 	}
 
+	@lombok.Value
+	private static final class CanonicalMenuTreeKey
+	{
+		public static CanonicalMenuTreeKey of(final IUserRolePermissions permissions, final String adLanguage)
+		{
+			final UserMenuInfo menuInfo = permissions.hasPermission(IUserRolePermissions.PERMISSION_MenuAvailable) ? permissions.getMenuInfo() : UserMenuInfo.NONE;
+			return new CanonicalMenuTreeKey(permissions.getAD_Client_ID(), menuInfo.getAD_Tree_ID(), menuInfo.getRoot_Menu_ID(), adLanguage);
+		}
+
+		private final int adClientId;
+		private final int adTreeId;
+		private final int rootMenuId;
+		private final String adLanguage;
+	}
+
+	@lombok.Value
+	@lombok.Builder
+	private static final class AccessibleNodeIndexes
+	{
+		/** permissions cache version */
+		private final long version;
+		private final CanonicalMenuTreeKey canonicalKey;
+		/** the canonical menu tree on which the {@link #nodeIndexes} are applicable */
+		private final MenuTree canonicalMenuTree;
+		private final BitSet nodeIndexes;
+	}
+
 	private static final class UserMenuFavorites
 	{
 		private static final Builder builder()
@@ -11,6 +11,7 @@ import de.metas.ui.web.config.WebConfig;
 import de.metas.ui.web.notification.json.JSONNotificationsList;
 import de.metas.ui.web.session.UserSession;
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiParam;
 
 /*
  * #%L
@@ -59,12 +60,13 @@ public class NotificationRestController
 	@RequestMapping(value = "/all", method = RequestMethod.GET)
 	public JSONNotificationsList getNotifications(
 			@RequestParam(name = "limit", defaultValue = "-1") final int limit //
+			, @RequestParam(name = "afterId", required = false) @ApiParam("Return only the notifications older than this notification ID (i.e. next page)") final String afterNotificationId //
 	)
 	{
 		userSession.assertLoggedIn();
 
 		final int adUserId = userSession.getAD_User_ID();
-		final UserNotificationsList notifications = userNotificationsService.getNotifications(adUserId, limit);
+		final UserNotificationsList notifications = userNotificationsService.getNotifications(adUserId, afterNotificationId, limit);
 		return JSONNotificationsList.of(notifications, userSession.getAD_Language());
 	}
 
@@ -1,24 +1,31 @@
 package de.metas.ui.web.notification;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.Nullable;
+
 import org.adempiere.util.Check;
-import org.adempiere.util.GuavaCollectors;
 import org.slf4j.Logger;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.notification.json.JSONNotification;
 import de.metas.ui.web.notification.json.JSONNotificationEvent;
 import de.metas.ui.web.websocket.WebSocketConfig;
+import lombok.Builder;
+import lombok.NonNull;
 
 /*
  * #%L
@@ -54,15 +61,38 @@ public class UserNotificationsQueue
 	private final Set<String> activeSessions = ConcurrentHashMap.newKeySet();
 
 	private final ConcurrentHashMap<String, UserNotification> id2notification = new ConcurrentHashMap<>();
+	/** Newest notifications first, at most {@link #maxSize} */
 	private final ConcurrentLinkedDeque<UserNotification> notifications = new ConcurrentLinkedDeque<>();
+	/** The size of {@link #notifications}, because {@link ConcurrentLinkedDeque#size()} is not a constant-time operation */
+	private final AtomicInteger notificationsCount = new AtomicInteger(0);
 	private final AtomicInteger unreadCount = new AtomicInteger(0);
-
-	/* package */ UserNotificationsQueue(final int adUserId, final String adLanguage, final SimpMessagingTemplate websocketMessagingTemplate)
+	private final int maxSize;
+
+	/**
+	 * New notifications which were not yet sent to websocket.
+	 * They are collected for {@link #websocketBatchWindowMillis} and then sent in one event.
+	 */
+	private final List<JSONNotification> pendingNewNotifications = new ArrayList<>();
+	private final ScheduledExecutorService websocketBatchScheduler;
+	private final long websocketBatchWindowMillis;
+
+	@Builder
+	private UserNotificationsQueue(
+			final int adUserId,
+			@NonNull final String adLanguage,
+			@NonNull final SimpMessagingTemplate websocketMessagingTemplate,
+			final int maxSize,
+			@NonNull final ScheduledExecutorService websocketBatchScheduler,
+			final long websocketBatchWindowMillis)
 	{
 		super();
 		this.adUserId = adUserId;
 		this.adLanguage = adLanguage;
 		this.websocketMessagingTemplate = websocketMessagingTemplate;
+		Preconditions.checkArgument(maxSize > 0, "maxSize > 0");
+		this.maxSize = maxSize;
+		this.websocketBatchScheduler = websocketBatchScheduler;
+		this.websocketBatchWindowMillis = websocketBatchWindowMillis;
 		websocketEndpoint = WebSocketConfig.buildNotificationsTopicName(adUserId);
 		
 		logger.trace("Created notifications queue: {}", this); // keep it last
@@ -73,6 +103,7 @@ public class UserNotificationsQueue
 	{
 		return MoreObjects.toStringHelper(this)
 				.add("websocketEndpoint", websocketEndpoint)
+				.add("count", notificationsCount.get())
 				.add("unread", unreadCount.get())
 				.toString();
 	}
@@ -93,20 +124,34 @@ public class UserNotificationsQueue
 		logger.trace("Fired notification to WS {}: {}", websocketEndpoint, event);
 	}
 
-	public UserNotificationsList getNotificationsAsList(final int limit)
+	/**
+	 * @param afterNotificationId if not null, only the notifications which are older than this one will be returned (i.e. next page)
+	 * @param limit max notifications to return or <code>0</code> for all
+	 */
+	public UserNotificationsList getNotificationsAsList(@Nullable final String afterNotificationId, final int limit)
 	{
-		if (limit <= 0)
-		{
-			final List<UserNotification> notifications = ImmutableList.copyOf(this.notifications);
-			return UserNotificationsList.of(notifications, notifications.size(), getUnreadCount());
-		}
-		else
+		final ImmutableList.Builder<UserNotification> result = ImmutableList.builder();
+		int resultCount = 0;
+		boolean afterNotificationFound = afterNotificationId == null;
+		for (final UserNotification notification : notifications)
 		{
-			final List<UserNotification> notifications = this.notifications.stream()
-					.limit(limit)
-					.collect(GuavaCollectors.toImmutableList());
-			return UserNotificationsList.of(notifications, this.notifications.size(), getUnreadCount());
+			if (!afterNotificationFound)
+			{
+				afterNotificationFound = afterNotificationId.equals(notification.getId());
+				continue;
+			}
+
+			if (limit > 0 && resultCount >= limit)
+			{
+				break;
+			}
+
+			result.add(notification);
+			resultCount++;
 		}
+
+		// NOTE: if the afterNotificationId is no longer in queue, we return an empty page, because all notifications older than that were removed too
+		return UserNotificationsList.of(result.build(), notificationsCount.get(), getUnreadCount());
 	}
 
 	public void addActiveSessionId(final String sessionId)
@@ -127,7 +172,7 @@ public class UserNotificationsQueue
 		return !activeSessions.isEmpty();
 	}
 
-	/* package */void addNotification(final UserNotification notification)
+	/* package */synchronized void addNotification(final UserNotification notification)
 	{
 		Check.assumeNotNull(notification, "Parameter notification is not null");
 
@@ -141,6 +186,7 @@ public class UserNotificationsQueue
 			return;
 		}
 		notifications.addFirst(notification);
+		notificationsCount.incrementAndGet();
 
 		//
 		// Update unreadCount
@@ -149,12 +195,71 @@ public class UserNotificationsQueue
 			unreadCount.incrementAndGet();
 		}
 
+		removeOldestNotificationsIfFull();
+
 		logger.trace("Added notification to {}: {}", this, notification); // NOTE: log after updating unreadCount
 
 		//
 		// Notify on websocket
 		final JSONNotification jsonNotification = JSONNotification.of(notification, adLanguage);
-		fireEventOnWebsocket(JSONNotificationEvent.eventNew(jsonNotification, unreadCount.get()));
+		if (!isWebsocketBatchEnabled())
+		{
+			fireEventOnWebsocket(JSONNotificationEvent.eventNew(jsonNotification, unreadCount.get()));
+		}
+		else
+		{
+			pendingNewNotifications.add(jsonNotification);
+			if (pendingNewNotifications.size() == 1)
+			{
+				websocketBatchScheduler.schedule(this::firePendingNewNotificationsOnWebsocket, websocketBatchWindowMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Sends the new notifications which were collected in current batch window, if any.
+	 * 
+	 * NOTE: it is also called before sending any other event, to make sure the events are sent in the order they happened.
+	 */
+	private synchronized void firePendingNewNotificationsOnWebsocket()
+	{
+		if (pendingNewNotifications.isEmpty())
+		{
+			return;
+		}
+
+		final List<JSONNotification> notifications = ImmutableList.copyOf(Lists.reverse(pendingNewNotifications)); // newest first
+		pendingNewNotifications.clear();
+
+		if (notifications.size() == 1)
+		{
+			fireEventOnWebsocket(JSONNotificationEvent.eventNew(notifications.get(0), unreadCount.get()));
+		}
+		else
+		{
+			fireEventOnWebsocket(JSONNotificationEvent.eventNewBatch(notifications, unreadCount.get()));
+		}
+	}
+
+	private void removeOldestNotificationsIfFull()
+	{
+		while (notificationsCount.get() > maxSize)
+		{
+			final UserNotification notification = notifications.pollLast();
+			if (notification == null)
+			{
+				break;
+			}
+
+			notificationsCount.decrementAndGet();
+			id2notification.remove(notification.getId());
+			if (!notification.isRead())
+			{
+				unreadCount.decrementAndGet();
+			}
+
+			logger.trace("Removed oldest notification from {}: {}", this, notification);
+		}
 	}
 
 	public void markAsRead(final String notificationId)
@@ -168,14 +273,54 @@ public class UserNotificationsQueue
 		markAsRead(notification);
 	}
 
-	public void markAllAsRead()
+	public synchronized void markAllAsRead()
 	{
 		logger.trace("Marking all notifications as read (if any) for {}...", this);
-		id2notification.values().forEach(this::markAsRead);
+
+		firePendingNewNotificationsOnWebsocket();
+
+		//
+		// If the coalesced websocket events are not enabled, send one "Read" event for each notification,
+		// because that's what the frontend is expecting.
+		if (!isWebsocketBatchEnabled())
+		{
+			id2notification.values().forEach(this::markAsRead);
+			return;
+		}
+
+		int countMarkedAsRead = 0;
+		for (final UserNotification notification : id2notification.values())
+		{
+			final boolean alreadyRead = notification.setRead(true);
+			if (!alreadyRead)
+			{
+				unreadCount.decrementAndGet();
+				countMarkedAsRead++;
+			}
+		}
+
+		logger.trace("Marked {} notifications as read on {}", countMarkedAsRead, this);
+
+		//
+		// Notify on websocket, only once, no matter how many notifications were marked as read
+		if (countMarkedAsRead > 0)
+		{
+			fireEventOnWebsocket(JSONNotificationEvent.eventReadAll(unreadCount.get()));
+		}
+	}
+
+	/**
+	 * @return true if the websocket events are coalesced (i.e. NewBatch and ReadAll events are sent)
+	 */
+	private boolean isWebsocketBatchEnabled()
+	{
+		return websocketBatchWindowMillis > 0;
 	}
 
-	private void markAsRead(final UserNotification notification)
+	private synchronized void markAsRead(final UserNotification notification)
 	{
+		firePendingNewNotificationsOnWebsocket();
+
 		final boolean alreadyRead = notification.setRead(true);
 		if (alreadyRead)
 		{
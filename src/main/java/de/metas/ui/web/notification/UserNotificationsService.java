@@ -1,11 +1,17 @@
 package de.metas.ui.web.notification;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.annotation.Nullable;
+
 import org.adempiere.util.Services;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -46,7 +52,24 @@ public class UserNotificationsService
 	@Autowired
 	private SimpMessagingTemplate websocketMessagingTemplate;
 
+	/** Max notifications to keep in memory for each user. The oldest ones are removed first. */
+	@Value("${metasfresh.webui.notifications.maxPerUser:500}")
+	private int maxNotificationsPerUser;
+
+	/**
+	 * New notifications produced within this window are sent to websocket in one event ("NewBatch") and marking all as read sends one "ReadAll" event.
+	 * Zero (default) means each notification is sent immediately and each notification marked as read is sent, i.e. the events the frontend is currently handling.
+	 */
+	@Value("${metasfresh.webui.notifications.websocket.batchWindowMillis:0}")
+	private long websocketBatchWindowMillis;
+
+	private final ScheduledExecutorService websocketBatchScheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+			.setThreadNamePrefix(UserNotificationsService.class.getSimpleName() + "-websocket")
+			.setDaemon(true)
+			.build());
+
 	private final ConcurrentHashMap<Integer, UserNotificationsQueue> adUserId2notifications = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Integer> sessionId2adUserId = new ConcurrentHashMap<>();
 
 	private final AtomicBoolean subscribedToEventBus = new AtomicBoolean(false);
 
@@ -77,15 +100,47 @@ public class UserNotificationsService
 		logger.trace("Enabling for sessionId={}, adUserId={}, adLanguage={}", sessionId, adUserId, adLanguage);
 
 		final UserNotificationsQueue notificationsQueue = adUserId2notifications.computeIfAbsent(adUserId,
-				theSessionId -> new UserNotificationsQueue(adUserId, adLanguage, websocketMessagingTemplate));
+				theSessionId -> UserNotificationsQueue.builder()
+						.adUserId(adUserId)
+						.adLanguage(adLanguage)
+						.websocketMessagingTemplate(websocketMessagingTemplate)
+						.maxSize(maxNotificationsPerUser)
+						.websocketBatchScheduler(websocketBatchScheduler)
+						.websocketBatchWindowMillis(websocketBatchWindowMillis)
+						.build());
 		notificationsQueue.addActiveSessionId(sessionId);
 
+		final Integer previousAdUserId = sessionId2adUserId.put(sessionId, adUserId);
+		if (previousAdUserId != null && previousAdUserId != adUserId)
+		{
+			removeActiveSessionId(previousAdUserId, sessionId);
+		}
+
 		subscribeToEventTopicsIfNeeded();
 	}
 
 	public synchronized void disableForSession(final String sessionId)
 	{
-		// TODO: implement
+		logger.trace("Disabling for sessionId={}", sessionId);
+
+		final Integer adUserId = sessionId2adUserId.remove(sessionId);
+		if (adUserId == null)
+		{
+			return;
+		}
+
+		removeActiveSessionId(adUserId, sessionId);
+	}
+
+	private void removeActiveSessionId(final int adUserId, final String sessionId)
+	{
+		// NOTE: we keep the queue even if the user has no active sessions left,
+		// so the notifications received meanwhile are available when the user logs in again.
+		final UserNotificationsQueue notificationsQueue = adUserId2notifications.get(adUserId);
+		if (notificationsQueue != null)
+		{
+			notificationsQueue.removeActiveSessionId(sessionId);
+		}
 	}
 
 	public String getWebsocketEndpoint(final int adUserId)
@@ -103,9 +158,12 @@ public class UserNotificationsService
 		return notificationsQueue;
 	}
 
-	public UserNotificationsList getNotifications(final int adUserId, final int limit)
+	/**
+	 * @param afterNotificationId if not null, only the notifications which are older than this one will be returned (i.e. next page)
+	 */
+	public UserNotificationsList getNotifications(final int adUserId, @Nullable final String afterNotificationId, final int limit)
 	{
-		return getNotificationsQueue(adUserId).getNotificationsAsList(limit);
+		return getNotificationsQueue(adUserId).getNotificationsAsList(afterNotificationId, limit);
 	}
 
 	private void forwardEventToNotificationsQueues(final IEventBus eventBus, final Event event)
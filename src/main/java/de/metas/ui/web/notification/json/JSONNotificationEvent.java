@@ -1,12 +1,14 @@
 package de.metas.ui.web.notification.json;
 
 import java.io.Serializable;
+import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 /*
  * #%L
@@ -65,15 +67,29 @@ public final class JSONNotificationEvent implements Serializable
 		return new JSONNotificationEvent(EventType.New, notificationId, notification, unreadCount);
 	}
 
+	public static final JSONNotificationEvent eventNewBatch(final List<JSONNotification> notifications, final int unreadCount)
+	{
+		return new JSONNotificationEvent(EventType.NewBatch, notifications, unreadCount);
+	}
+
 	public static final JSONNotificationEvent eventRead(final JSONNotification notification, final int unreadCount)
 	{
 		String notificationId = notification.getId();
 		return new JSONNotificationEvent(EventType.Read, notificationId, notification, unreadCount);
 	}
 
+	public static final JSONNotificationEvent eventReadAll(final int unreadCount)
+	{
+		return new JSONNotificationEvent(EventType.ReadAll, ImmutableList.of(), unreadCount);
+	}
+
 	public static enum EventType
 	{
-		New, Read
+		New, Read,
+		/** Several new notifications (see {@link JSONNotificationEvent#notifications}) */
+		NewBatch,
+		/** All notifications were marked as read */
+		ReadAll
 	};
 
 	@JsonProperty("eventType")
@@ -86,6 +102,10 @@ public final class JSONNotificationEvent implements Serializable
 	@JsonInclude(JsonInclude.Include.NON_ABSENT)
 	private final JSONNotification notification;
 
+	@JsonProperty("notifications")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private final List<JSONNotification> notifications;
+
 	@JsonProperty("unreadCount")
 	@JsonInclude(JsonInclude.Include.NON_ABSENT)
 	private final Integer unreadCount;
@@ -96,6 +116,17 @@ public final class JSONNotificationEvent implements Serializable
 		this.eventType = eventType;
 		this.notificationId = notificationId;
 		this.notification = notification;
+		this.notifications = ImmutableList.of();
+		this.unreadCount = unreadCount;
+	}
+
+	private JSONNotificationEvent(final EventType eventType, final List<JSONNotification> notifications, final Integer unreadCount)
+	{
+		super();
+		this.eventType = eventType;
+		this.notificationId = null;
+		this.notification = null;
+		this.notifications = ImmutableList.copyOf(notifications);
 		this.unreadCount = unreadCount;
 	}
 
@@ -107,6 +138,7 @@ public final class JSONNotificationEvent implements Serializable
 				.add("eventType", eventType)
 				.add("notificationId", notificationId)
 				.add("notification", notification)
+				.add("notifications", notifications.isEmpty() ? null : notifications)
 				.toString();
 	}
 
@@ -125,6 +157,11 @@ public final class JSONNotificationEvent implements Serializable
 		return notification;
 	}
 
+	public List<JSONNotification> getNotifications()
+	{
+		return notifications;
+	}
+
 	public Integer getUnreadCount()
 	{
 		return unreadCount;
@@ -0,0 +1,195 @@
+package de.metas.ui.web.print;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.adempiere.exceptions.AdempiereException;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.ui.web.window.datatypes.DocumentPath;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Document print job. The job is rendered asynchronously and the output is kept in a local file.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public final class DocumentPrintJob
+{
+	public static enum Status
+	{
+		Pending, Running, Done, Error
+	}
+
+	private final String id;
+	private final DocumentPrintKey key;
+	private final long createdMillis;
+
+	private volatile Status status = Status.Pending;
+	private volatile File outputFile;
+	private volatile String outputContentType;
+	private volatile String errorMessage;
+	/** true if the job was removed from jobs cache, so its output will never be downloaded */
+	private boolean discarded = false;
+	private final CompletableFuture<DocumentPrintJob> result = new CompletableFuture<>();
+
+	/* package */ DocumentPrintJob(@NonNull final String id, @NonNull final DocumentPrintKey key)
+	{
+		this.id = id;
+		this.key = key;
+		createdMillis = System.currentTimeMillis();
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("id", id)
+				.add("status", status)
+				.add("key", key)
+				.toString();
+	}
+
+	public String getId()
+	{
+		return id;
+	}
+
+	/* package */ DocumentPrintKey getKey()
+	{
+		return key;
+	}
+
+	public DocumentPath getDocumentPath()
+	{
+		return key.getDocumentPath();
+	}
+
+	public int getAD_User_ID()
+	{
+		return key.getAdUserId();
+	}
+
+	/* package */ long getCreatedMillis()
+	{
+		return createdMillis;
+	}
+
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	/**
+	 * @return output file or <code>null</code> if the job is not done
+	 */
+	public File getOutputFile()
+	{
+		return outputFile;
+	}
+
+	public String getOutputContentType()
+	{
+		return outputContentType;
+	}
+
+	public String getErrorMessage()
+	{
+		return errorMessage;
+	}
+
+	/* package */ void markRunning()
+	{
+		status = Status.Running;
+	}
+
+	/**
+	 * @return true if the job was marked as done or false if the job was discarded in meantime, in which case the caller is responsible for deleting the output file
+	 */
+	/* package */ synchronized boolean markDone(@NonNull final File outputFile, @NonNull final String outputContentType)
+	{
+		if (discarded)
+		{
+			markError(new AdempiereException("Print job was discarded"));
+			return false;
+		}
+
+		this.outputFile = outputFile;
+		this.outputContentType = outputContentType;
+		status = Status.Done;
+		result.complete(this);
+		return true;
+	}
+
+	/**
+	 * Marks this job as discarded, i.e. it was removed from jobs cache.
+	 *
+	 * @return output file which shall be deleted by the caller or <code>null</code> if the job is not done yet (in which case the output will be deleted when the job is done)
+	 */
+	/* package */ synchronized File markDiscarded()
+	{
+		discarded = true;
+		return outputFile;
+	}
+
+	/* package */ void markError(@NonNull final Throwable error)
+	{
+		errorMessage = AdempiereException.wrapIfNeeded(error).getLocalizedMessage();
+		status = Status.Error;
+		result.completeExceptionally(error);
+	}
+
+	/**
+	 * Waits until the job is rendered.
+	 *
+	 * @return this job, rendered
+	 * @throws AdempiereException if rendering failed or the job was not rendered in given time
+	 */
+	/* package */ DocumentPrintJob awaitDone(final long timeout, final TimeUnit unit)
+	{
+		try
+		{
+			return result.get(timeout, unit);
+		}
+		catch (final TimeoutException ex)
+		{
+			throw new AdempiereException("Printing the document takes too long. Please try again later.", ex);
+		}
+		catch (final ExecutionException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex.getCause() != null ? ex.getCause() : ex);
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+	}
+}
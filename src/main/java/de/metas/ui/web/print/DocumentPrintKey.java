@@ -0,0 +1,51 @@
+package de.metas.ui.web.print;
+
+import de.metas.ui.web.window.datatypes.DocumentPath;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Identifies the output of a document print: same key means the same rendered report can be reused.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Value
+@Builder
+/* package */ final class DocumentPrintKey
+{
+	@NonNull
+	private final DocumentPath documentPath;
+	/** Version of the document and of its included documents, see {@link de.metas.ui.web.window.model.Document#getETag()} */
+	@NonNull
+	private final String documentVersion;
+	private final int printProcessId;
+
+	private final int adClientId;
+	private final int adRoleId;
+	private final int adUserId;
+	private final String adLanguage;
+}
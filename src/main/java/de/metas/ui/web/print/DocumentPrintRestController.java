@@ -0,0 +1,118 @@
+package de.metas.ui.web.print;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import de.metas.ui.web.config.WebConfig;
+import de.metas.ui.web.print.json.JSONDocumentPrintJob;
+import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.websocket.WebSocketConfig;
+import de.metas.ui.web.window.datatypes.DocumentPath;
+import de.metas.ui.web.window.datatypes.WindowId;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Document print jobs REST API.
+ *
+ * Usage: submit a print job, wait for it (by polling its status or by listening to {@link WebSocketConfig#buildPrintJobsTopicName(int)} topic) and then download the output.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Api
+@RestController
+@RequestMapping(value = DocumentPrintRestController.ENDPOINT)
+public class DocumentPrintRestController
+{
+	public static final String ENDPOINT = WebConfig.ENDPOINT_ROOT + "/print";
+
+	@Autowired
+	private UserSession userSession;
+
+	@Autowired
+	private DocumentPrintService documentPrintService;
+
+	@GetMapping("/websocketEndpoint")
+	public String getWebsocketEndpoint()
+	{
+		userSession.assertLoggedIn();
+
+		return WebSocketConfig.buildPrintJobsTopicName(userSession.getAD_User_ID());
+	}
+
+	@PostMapping("/{windowId}/{documentId}")
+	@ApiOperation("Submits a print job for given document. If the document was already printed and it was not changed since then, the existing print job is returned.")
+	public JSONDocumentPrintJob submitPrintJob(
+			@PathVariable("windowId") final String windowIdStr,
+			@PathVariable("documentId") final String documentIdStr)
+	{
+		userSession.assertLoggedIn();
+
+		final DocumentPath documentPath = DocumentPath.rootDocumentPath(WindowId.fromJson(windowIdStr), documentIdStr);
+		final DocumentPrintJob job = documentPrintService.submit(documentPath);
+		return JSONDocumentPrintJob.of(job);
+	}
+
+	@GetMapping("/jobs/{jobId}")
+	public JSONDocumentPrintJob getPrintJob(@PathVariable("jobId") final String jobId)
+	{
+		userSession.assertLoggedIn();
+
+		final DocumentPrintJob job = documentPrintService.getJob(jobId);
+		return JSONDocumentPrintJob.of(job);
+	}
+
+	@GetMapping("/jobs/{jobId}/{filename:.*}")
+	@ApiOperation("Downloads the print job output. If the job is not done yet, it waits for it.")
+	public ResponseEntity<Resource> downloadPrintJobOutput(
+			@PathVariable("jobId") final String jobId,
+			@PathVariable("filename") final String filename)
+	{
+		userSession.assertLoggedIn();
+
+		final DocumentPrintJob job = documentPrintService.awaitDone(documentPrintService.getJob(jobId));
+		return toDownloadResponse(job, filename);
+	}
+
+	private static ResponseEntity<Resource> toDownloadResponse(final DocumentPrintJob job, final String filename)
+	{
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(job.getOutputContentType()));
+		headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+		headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+		return new ResponseEntity<>(new FileSystemResource(job.getOutputFile()), headers, HttpStatus.OK);
+	}
+}
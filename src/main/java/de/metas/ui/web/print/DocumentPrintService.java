@@ -0,0 +1,371 @@
+package de.metas.ui.web.print;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.adempiere.util.lang.IPair;
+import org.adempiere.util.lang.ImmutablePair;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import de.metas.adempiere.report.jasper.OutputType;
+import de.metas.logging.LogManager;
+import de.metas.process.ProcessExecutionResult;
+import de.metas.process.ProcessInfo;
+import de.metas.ui.web.exceptions.EntityNotFoundException;
+import de.metas.ui.web.print.json.JSONDocumentPrintJob;
+import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.websocket.WebSocketConfig;
+import de.metas.ui.web.window.datatypes.DocumentPath;
+import de.metas.ui.web.window.model.Document;
+import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
+import de.metas.ui.web.window.model.DocumentCollection;
+import de.metas.ui.web.window.model.NullDocumentChangesCollector;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Renders document prints asynchronously.
+ *
+ * <ul>
+ * <li>reports are rendered on a bounded executor, so a lot of users printing at the same time cannot exhaust the request threads and the heap
+ * <li>the rendered report is written to a local file and the report data is not kept in memory
+ * <li>the status of a job is sent on websocket (see {@link WebSocketConfig#buildPrintJobsTopicName(int)}) each time it changes
+ * <li>if the same document was already printed and neither the document nor its included documents were changed since then, the existing job (and its output) is reused
+ * </ul>
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Service
+public class DocumentPrintService
+{
+	private static final Logger logger = LogManager.getLogger(DocumentPrintService.class);
+
+	@Autowired
+	private UserSession userSession;
+	@Autowired
+	private DocumentCollection documentCollection;
+	@Autowired
+	private SimpMessagingTemplate websocketMessagingTemplate;
+
+	private final ThreadPoolExecutor renderExecutor;
+	private final File outputDir;
+	private final long reuseMaxAgeMillis;
+	private final long awaitTimeoutMillis;
+
+	/** Print jobs by ID. Evicted jobs are deleting their output file. */
+	private final Cache<String, DocumentPrintJob> jobsById;
+	/** Latest print job ID for a given key, used to reuse already rendered reports */
+	private final ConcurrentHashMap<DocumentPrintKey, String> jobIdsByKey = new ConcurrentHashMap<>();
+
+	/* package */ DocumentPrintService(
+			@Value("${metasfresh.webui.print.threads:4}") final int threads,
+			@Value("${metasfresh.webui.print.queueSize:100}") final int queueSize,
+			@Value("${metasfresh.webui.print.maxJobs:500}") final int maxJobs,
+			@Value("${metasfresh.webui.print.expireAfterAccessMinutes:30}") final int expireAfterAccessMinutes,
+			@Value("${metasfresh.webui.print.reuseMaxAgeMinutes:10}") final int reuseMaxAgeMinutes,
+			@Value("${metasfresh.webui.print.awaitTimeoutSeconds:120}") final int awaitTimeoutSeconds)
+	{
+		final int threadsEffective = Math.max(threads, 1);
+		renderExecutor = new ThreadPoolExecutor(
+				threadsEffective, threadsEffective,
+				0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(Math.max(queueSize, 1)),
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(DocumentPrintService.class.getName() + "-render")
+						.setDaemon(true)
+						.build());
+
+		outputDir = new File(System.getProperty("java.io.tmpdir"), "metasfresh-webui-print");
+		deleteOutputFiles(outputDir); // outputs of previous runs, which are no longer referenced by any job
+		reuseMaxAgeMillis = TimeUnit.MINUTES.toMillis(Math.max(reuseMaxAgeMinutes, 0));
+		awaitTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(awaitTimeoutSeconds, 1));
+
+		jobsById = CacheBuilder.newBuilder()
+				.maximumSize(maxJobs)
+				.expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+				.removalListener(this::onJobRemoved)
+				.build();
+
+		logger.info("Document print service: threads={}, queueSize={}, maxJobs={}, expireAfterAccessMinutes={}, reuseMaxAgeMinutes={}, awaitTimeoutSeconds={}, outputDir={}",
+				threadsEffective, queueSize, maxJobs, expireAfterAccessMinutes, reuseMaxAgeMinutes, awaitTimeoutSeconds, outputDir);
+	}
+
+	private static void deleteOutputFiles(final File outputDir)
+	{
+		if (!outputDir.isDirectory())
+		{
+			return;
+		}
+
+		try (final DirectoryStream<Path> outputFiles = Files.newDirectoryStream(outputDir.toPath(), "print-*.report"))
+		{
+			for (final Path outputFile : outputFiles)
+			{
+				deleteOutputFile(outputFile.toFile(), null);
+			}
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed deleting print outputs from {}", outputDir, ex);
+		}
+	}
+
+	private static void deleteOutputFile(final File outputFile, final DocumentPrintJob job)
+	{
+		// NOTE: on most platforms, a file which is currently streamed to a client can be safely deleted
+		if (!outputFile.delete() && outputFile.exists())
+		{
+			logger.warn("Failed deleting print output {} of {}", outputFile, job);
+		}
+	}
+
+	private void onJobRemoved(final RemovalNotification<String, DocumentPrintJob> notification)
+	{
+		final DocumentPrintJob job = notification.getValue();
+		jobIdsByKey.remove(job.getKey(), job.getId());
+
+		// NOTE: if the job is not done yet, the output will be deleted when it's done (see render)
+		final File outputFile = job.markDiscarded();
+		if (outputFile != null)
+		{
+			deleteOutputFile(outputFile, job);
+		}
+	}
+
+	/**
+	 * Submits a print job for given document or returns an existing one, if the document was not changed since it was printed.
+	 */
+	public DocumentPrintJob submit(@NonNull final DocumentPath documentPath)
+	{
+		final Properties ctx = Env.copyCtx(userSession.getCtx());
+
+		// NOTE: the readonly document is never changed (it's either a shared snapshot or our own copy), so it's safe to use it after the lock is released
+		final IPair<Document, String> documentAndVersion = documentCollection.forDocumentReadonly(documentPath, NullDocumentChangesCollector.instance,
+				document -> ImmutablePair.of(document, computeDocumentVersion(document)));
+		final Document document = documentAndVersion.getLeft();
+		final int windowNo = document.getWindowNo();
+
+		final DocumentPrintKey key = DocumentPrintKey.builder()
+				.documentPath(documentPath)
+				.documentVersion(documentAndVersion.getRight())
+				.printProcessId(document.getEntityDescriptor().getPrintProcessId())
+				.adClientId(Env.getAD_Client_ID(ctx))
+				.adRoleId(Env.getAD_Role_ID(ctx))
+				.adUserId(Env.getAD_User_ID(ctx))
+				.adLanguage(Env.getAD_Language(ctx))
+				.build();
+
+		final DocumentPrintJob existingJob = getReusableJobOrNull(key);
+		if (existingJob != null)
+		{
+			logger.debug("Reusing {}", existingJob);
+			return existingJob;
+		}
+
+		final TableRecordReference recordRef = documentCollection.getTableRecordReference(documentPath);
+		final DocumentPrintJob job = new DocumentPrintJob(UUID.randomUUID().toString(), key);
+		try
+		{
+			renderExecutor.execute(() -> render(job, recordRef, windowNo, ctx));
+		}
+		catch (final RejectedExecutionException ex)
+		{
+			throw new AdempiereException("Too many documents are printed at the moment. Please try again later.", ex);
+		}
+
+		jobsById.put(job.getId(), job);
+		jobIdsByKey.put(key, job.getId());
+		return job;
+	}
+
+	/**
+	 * @return version of given document, including the versions of all its included documents (e.g. lines), because those are printed too
+	 */
+	private static String computeDocumentVersion(final Document document)
+	{
+		final Hasher hasher = Hashing.murmur3_128().newHasher();
+		updateDocumentVersion(hasher, document);
+		return hasher.hash().toString();
+	}
+
+	private static void updateDocumentVersion(final Hasher hasher, final Document document)
+	{
+		hasher.putUnencodedChars(document.getDocumentId().toJson());
+		hasher.putUnencodedChars(document.getETag().toETagString());
+
+		for (final DocumentEntityDescriptor includedEntity : document.getEntityDescriptor().getIncludedEntities())
+		{
+			final List<Document> includedDocuments = document.getIncludedDocuments(includedEntity.getDetailId(), ImmutableList.of()).toList();
+			hasher.putUnencodedChars(includedEntity.getDetailId().toJson());
+			hasher.putInt(includedDocuments.size());
+			for (final Document includedDocument : includedDocuments)
+			{
+				updateDocumentVersion(hasher, includedDocument);
+			}
+		}
+	}
+
+	private DocumentPrintJob getReusableJobOrNull(final DocumentPrintKey key)
+	{
+		final String jobId = jobIdsByKey.get(key);
+		if (jobId == null)
+		{
+			return null;
+		}
+
+		final DocumentPrintJob job = jobsById.getIfPresent(jobId);
+		if (job == null || job.getStatus() == DocumentPrintJob.Status.Error)
+		{
+			return null;
+		}
+
+		// NOTE: the report might also print data which does not change the document version (e.g. data which was changed by backend processes),
+		// so don't reuse too old outputs
+		if (System.currentTimeMillis() - job.getCreatedMillis() > reuseMaxAgeMillis)
+		{
+			return null;
+		}
+
+		return job;
+	}
+
+	/**
+	 * Waits until given job is rendered, but not longer than the configured timeout.
+	 *
+	 * @return rendered job
+	 * @throws AdempiereException if rendering failed or it takes too long
+	 */
+	public DocumentPrintJob awaitDone(@NonNull final DocumentPrintJob job)
+	{
+		return job.awaitDone(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Prints given document and waits until it's rendered (see {@link #awaitDone(DocumentPrintJob)}).
+	 */
+	public DocumentPrintJob printAndAwaitDone(@NonNull final DocumentPath documentPath)
+	{
+		return awaitDone(submit(documentPath));
+	}
+
+	/**
+	 * @return print job of the current user
+	 * @throws EntityNotFoundException if the job does not exist or it's not of current user
+	 */
+	public DocumentPrintJob getJob(@NonNull final String jobId)
+	{
+		final DocumentPrintJob job = jobsById.getIfPresent(jobId);
+		if (job == null || job.getAD_User_ID() != userSession.getAD_User_ID())
+		{
+			throw new EntityNotFoundException("Print job not found: " + jobId);
+		}
+		return job;
+	}
+
+	private void render(final DocumentPrintJob job, final TableRecordReference recordRef, final int windowNo, final Properties ctx)
+	{
+		try (final IAutoCloseable c = Env.switchContext(ctx))
+		{
+			job.markRunning();
+			fireJobChanged(job);
+
+			final ProcessExecutionResult processExecutionResult = ProcessInfo.builder()
+					.setCtx(ctx)
+					.setAD_Process_ID(job.getKey().getPrintProcessId())
+					.setWindowNo(windowNo) // important: required for ProcessInfo.findReportingLanguage
+					.setRecord(recordRef)
+					.setPrintPreview(true)
+					.setJRDesiredOutputType(OutputType.PDF)
+					//
+					.buildAndPrepareExecution()
+					.onErrorThrowException()
+					.switchContextWhenRunning()
+					.executeSync()
+					.getResult();
+
+			final File outputFile = writeOutputFile(processExecutionResult.getReportData());
+			if (!job.markDone(outputFile, processExecutionResult.getReportContentType()))
+			{
+				// the job was discarded while rendering, so nobody will download or delete the output
+				deleteOutputFile(outputFile, job);
+			}
+		}
+		catch (final Throwable ex)
+		{
+			logger.warn("Failed rendering {}", job, ex);
+			job.markError(ex);
+		}
+
+		fireJobChanged(job);
+	}
+
+	private File writeOutputFile(final byte[] reportData) throws IOException
+	{
+		Files.createDirectories(outputDir.toPath());
+		final Path outputFile = Files.createTempFile(outputDir.toPath(), "print-", ".report");
+		Files.write(outputFile, reportData);
+		return outputFile.toFile();
+	}
+
+	private void fireJobChanged(final DocumentPrintJob job)
+	{
+		try
+		{
+			final String topicName = WebSocketConfig.buildPrintJobsTopicName(job.getAD_User_ID());
+			websocketMessagingTemplate.convertAndSend(topicName, JSONDocumentPrintJob.of(job));
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed sending websocket event for {}", job, ex);
+		}
+	}
+}
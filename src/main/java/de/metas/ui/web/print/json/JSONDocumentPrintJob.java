@@ -0,0 +1,80 @@
+package de.metas.ui.web.print.json;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import de.metas.ui.web.print.DocumentPrintJob;
+import de.metas.ui.web.print.DocumentPrintJob.Status;
+import de.metas.ui.web.window.datatypes.DocumentPath;
+import lombok.ToString;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Document print job status. It's returned by the print REST API and it's also sent on websocket each time the status changes.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@SuppressWarnings("serial")
+@JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+@ToString
+public final class JSONDocumentPrintJob implements Serializable
+{
+	public static final JSONDocumentPrintJob of(final DocumentPrintJob job)
+	{
+		return new JSONDocumentPrintJob(job);
+	}
+
+	@JsonProperty("jobId")
+	private final String jobId;
+
+	@JsonProperty("windowId")
+	private final String windowId;
+
+	@JsonProperty("documentId")
+	private final String documentId;
+
+	@JsonProperty("status")
+	private final Status status;
+
+	@JsonProperty("error")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private final String error;
+
+	private JSONDocumentPrintJob(final DocumentPrintJob job)
+	{
+		jobId = job.getId();
+
+		final DocumentPath documentPath = job.getDocumentPath();
+		windowId = documentPath.getWindowId().toJson();
+		documentId = documentPath.getDocumentId().toJson();
+
+		status = job.getStatus();
+		error = job.getErrorMessage();
+	}
+}
@@ -55,6 +55,9 @@ public interface IProcessInstancesRepository
 	/** @return related process descriptors which are available to be called for given <code>preconditionsContext</code> */
 	Stream<WebuiRelatedProcessDescriptor> streamDocumentRelatedProcesses(IProcessPreconditionsContext preconditionsContext);
 
+	/** @return related process descriptor for given process, if it's available to be called for given <code>preconditionsContext</code>; else <code>null</code> */
+	WebuiRelatedProcessDescriptor getDocumentRelatedProcessOrNull(ProcessId processId, IProcessPreconditionsContext preconditionsContext);
+
 	/**
 	 * Creates a new process instance for given request.
 	 * 
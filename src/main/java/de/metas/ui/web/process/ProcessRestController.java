@@ -117,6 +117,14 @@ public class ProcessRestController
 				.flatMap(repo -> repo.streamDocumentRelatedProcesses(preconditionsContext));
 	}
 
+	/**
+	 * @return related process descriptor for given process, if it's available to be called for given <code>preconditionsContext</code>; else <code>null</code>
+	 */
+	public WebuiRelatedProcessDescriptor getDocumentRelatedProcessOrNull(@NonNull final ProcessId processId, final IProcessPreconditionsContext preconditionsContext)
+	{
+		return getRepository(processId).getDocumentRelatedProcessOrNull(processId, preconditionsContext);
+	}
+
 	private final IProcessInstancesRepository getRepository(@NonNull final ProcessId processId)
 	{
 		final String processHandlerType = processId.getProcessHandlerType();
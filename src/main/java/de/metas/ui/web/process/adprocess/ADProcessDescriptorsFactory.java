@@ -104,6 +104,24 @@ import lombok.NonNull;
 				.map(relatedProcess -> toWebuiRelatedProcessDescriptor(relatedProcess, preconditionsContext));
 	}
 
+	public WebuiRelatedProcessDescriptor getDocumentRelatedProcessOrNull(final ProcessId processId, final IProcessPreconditionsContext preconditionsContext, final IUserRolePermissions userRolePermissions)
+	{
+		final String tableName = preconditionsContext.getTableName();
+		final int adTableId = !Check.isEmpty(tableName) ? adTableDAO.retrieveTableId(tableName) : -1;
+
+		final int adWindowId = preconditionsContext.getAD_Window_ID();
+
+		final int adProcessId = processId.getProcessIdAsInt();
+		return adProcessDAO.retrieveRelatedProcessesForTableIndexedByProcessId(Env.getCtx(), adTableId, adWindowId)
+				.values()
+				.stream()
+				.filter(relatedProcess -> relatedProcess.getProcessId() == adProcessId)
+				.filter(relatedProcess -> relatedProcess.isExecutionGranted(userRolePermissions)) // only if it can be executed by current user permissions
+				.findFirst()
+				.map(relatedProcess -> toWebuiRelatedProcessDescriptor(relatedProcess, preconditionsContext))
+				.orElse(null);
+	}
+
 	private WebuiRelatedProcessDescriptor toWebuiRelatedProcessDescriptor(@NonNull final RelatedProcessDescriptor relatedProcessDescriptor, @NonNull final IProcessPreconditionsContext preconditionsContext)
 	{
 		final ProcessId processId = ProcessId.ofAD_Process_ID(relatedProcessDescriptor.getProcessId());
@@ -125,6 +125,13 @@ public class ADProcessInstancesRepository implements IProcessInstancesRepository
 		return processDescriptorFactory.streamDocumentRelatedProcesses(preconditionsContext, userRolePermissions);
 	}
 
+	@Override
+	public WebuiRelatedProcessDescriptor getDocumentRelatedProcessOrNull(final ProcessId processId, final IProcessPreconditionsContext preconditionsContext)
+	{
+		final IUserRolePermissions userRolePermissions = userSession.getUserRolePermissions();
+		return processDescriptorFactory.getDocumentRelatedProcessOrNull(processId, preconditionsContext, userRolePermissions);
+	}
+
 	@Override
 	public IProcessInstanceController createNewProcessInstance(final CreateProcessInstanceRequest request, final IDocumentChangesCollector changesCollector)
 	{
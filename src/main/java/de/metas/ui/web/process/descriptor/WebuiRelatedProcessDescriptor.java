@@ -110,11 +110,30 @@ public final class WebuiRelatedProcessDescriptor
 		return defaultQuickAction;
 	}
 
-	private ProcessPreconditionsResolution getPreconditionsResolution()
+	/**
+	 * Evaluates the preconditions (if not already evaluated) and returns the result.
+	 */
+	public ProcessPreconditionsResolution getPreconditionsResolution()
 	{
 		return preconditionsResolutionSupplier.get();
 	}
 
+	/**
+	 * @return a copy of this descriptor, having the preconditions resolution already evaluated to given value
+	 */
+	public WebuiRelatedProcessDescriptor withPreconditionsResolution(@NonNull final ProcessPreconditionsResolution preconditionsResolution)
+	{
+		return builder()
+				.processId(processId)
+				.processCaption(processCaption)
+				.processDescription(processDescription)
+				.quickAction(quickAction)
+				.defaultQuickAction(defaultQuickAction)
+				.preconditionsResolutionSupplier(() -> preconditionsResolution)
+				.debugProcessClassname(debugProcessClassname)
+				.build();
+	}
+
 	public boolean isDisabled()
 	{
 		return getPreconditionsResolution().isRejected();
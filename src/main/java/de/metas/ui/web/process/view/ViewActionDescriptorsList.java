@@ -83,7 +83,7 @@ public final class ViewActionDescriptorsList
 
 	public ViewActionDescriptor getAction(final String actionId)
 	{
-		final ViewActionDescriptor action = viewActionsByActionId.get(actionId);
+		final ViewActionDescriptor action = getActionOrNull(actionId);
 		if (action == null)
 		{
 			throw new EntityNotFoundException("No view action found for id: " + actionId);
@@ -91,6 +91,11 @@ public final class ViewActionDescriptorsList
 		return action;
 	}
 
+	public ViewActionDescriptor getActionOrNull(final String actionId)
+	{
+		return viewActionsByActionId.get(actionId);
+	}
+
 	public Stream<WebuiRelatedProcessDescriptor> streamDocumentRelatedProcesses(final ViewAsPreconditionsContext viewContext)
 	{
 		return viewActionsByActionId.values().stream()
@@ -108,6 +108,26 @@ public class ViewProcessInstancesRepository implements IProcessInstancesReposito
 				.streamDocumentRelatedProcesses(viewContext);
 	}
 
+	@Override
+	public WebuiRelatedProcessDescriptor getDocumentRelatedProcessOrNull(final ProcessId processId, final IProcessPreconditionsContext preconditionsContext)
+	{
+		final ViewAsPreconditionsContext viewContext = ViewAsPreconditionsContext.castOrNull(preconditionsContext);
+		if (viewContext == null)
+		{
+			return null;
+		}
+
+		final IView view = viewContext.getView();
+		final String actionId = extractViewIdAndActionId(processId).getRight();
+		final ViewActionDescriptor viewActionDescriptor = getViewActionDescriptors(view).getActionOrNull(actionId);
+		if (viewActionDescriptor == null)
+		{
+			return null;
+		}
+
+		return viewActionDescriptor.toWebuiRelatedProcessDescriptor(viewContext);
+	}
+
 	static final ProcessId buildProcessId(final ViewId viewId, final String viewActionId)
 	{
 		return ProcessId.of(PROCESS_HANDLER_TYPE, viewId.getViewId() + "_" + viewActionId);
@@ -1,16 +1,29 @@
 package de.metas.ui.web.upload;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
 
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.util.FileUtils;
 import org.compiere.model.I_AD_Image;
 import org.compiere.model.MImage;
+import org.compiere.util.DB;
 import org.compiere.util.MimeType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -22,12 +35,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.google.common.collect.ImmutableMap;
+
 import de.metas.printing.esb.base.util.Check;
+import de.metas.ui.web.cache.ETag;
 import de.metas.ui.web.config.WebConfig;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.upload.ImageThumbnailsCache.ImageThumbnail;
 
 /*
  * #%L
@@ -59,9 +77,15 @@ public class ImageRestController
 	
 	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmss");
 
+	/** Max accepted thumbnail width. Greater values are truncated to this. */
+	private static final int THUMBNAIL_MaxWidth = 2048;
+
 	@Autowired
 	private UserSession userSession;
 
+	@Autowired
+	private ImageThumbnailsCache thumbnailsCache;
+
 	@PostMapping
 	public int uploadImage(@RequestParam("file") final MultipartFile file) throws IOException
 	{
@@ -102,7 +126,10 @@ public class ImageRestController
 
 	@GetMapping("/{imageId}")
 	@ResponseBody
-	public ResponseEntity<byte[]> getImage(@PathVariable final int imageId)
+	public ResponseEntity<Resource> getImage(
+			@PathVariable final int imageId,
+			@RequestParam(name = "maxWidth", required = false, defaultValue = "0") final int maxWidth,
+			final WebRequest request)
 	{
 		userSession.assertLoggedIn();
 
@@ -111,28 +138,183 @@ public class ImageRestController
 			throw new IllegalArgumentException("Invalid image id");
 		}
 
-		final MImage adImage = MImage.get(userSession.getCtx(), imageId);
-		if (adImage == null || adImage.getAD_Image_ID() <= 0)
+		final ImageInfo imageInfo = retrieveImageInfo(imageId);
+		if (imageInfo == null)
 		{
 			throw new EntityNotFoundException("Image id not found: " + imageId);
 		}
 
-		final boolean hasAccess = userSession.getUserRolePermissions().canView(adImage.getAD_Client_ID(), adImage.getAD_Org_ID(), I_AD_Image.Table_ID, adImage.getAD_Image_ID());
+		final boolean hasAccess = userSession.getUserRolePermissions().canView(imageInfo.getAdClientId(), imageInfo.getAdOrgId(), I_AD_Image.Table_ID, imageId);
 		if (!hasAccess)
 		{
 			throw new EntityNotFoundException("Image id not found: " + imageId);
 		}
 
-		final String imageName = adImage.getName();
-		final byte[] imageData = adImage.getData();
+		//
+		// Check ETag/Last-Modified
+		final int maxWidthEffective = maxWidth > 0 ? Math.min(maxWidth, THUMBNAIL_MaxWidth) : 0;
+		final String etag = imageInfo.toETagString(maxWidthEffective);
+		final long lastModified = imageInfo.getLastModifiedMillis();
+		if (request.checkNotModified(etag, lastModified))
+		{
+			// Response: 304 Not Modified
+			return newImageResponse(HttpStatus.NOT_MODIFIED, etag, lastModified).build();
+		}
+
+		//
+		// Thumbnail
+		if (maxWidthEffective > 0)
+		{
+			final ImageThumbnail thumbnail = thumbnailsCache.getOrCreate(imageId, lastModified, imageInfo.getName(), maxWidthEffective, () -> openImageDataStream(imageId));
+			if (thumbnail != null)
+			{
+				return newImageResponse(HttpStatus.OK, etag, lastModified)
+						.contentType(MediaType.parseMediaType(thumbnail.getContentType()))
+						.header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + thumbnail.getFileName(imageInfo.getName()) + "\"")
+						.body(new InputStreamResource(thumbnail.getStream()));
+			}
+			// else: image format not supported => fallback to original image
+		}
+
+		//
+		// Original image, streamed from database
+		final String imageName = imageInfo.getName();
 		final String contentType = MimeType.getMimeType(imageName);
+		return newImageResponse(HttpStatus.OK, etag, lastModified)
+				.contentType(MediaType.parseMediaType(contentType))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + imageName + "\"")
+				.body(new InputStreamResource(openImageDataStream(imageId)));
+	}
+
+	private ResponseEntity.BodyBuilder newImageResponse(final HttpStatus status, final String etag, final long lastModified)
+	{
+		return ResponseEntity.status(status)
+				.eTag(etag)
+				.lastModified(lastModified)
+				.cacheControl(CacheControl.maxAge(userSession.getHttpCacheMaxAge(), TimeUnit.SECONDS).cachePrivate().mustRevalidate());
+	}
+
+	/**
+	 * @return image info, without the binary data, or <code>null</code> if the image does not exist
+	 */
+	private static ImageInfo retrieveImageInfo(final int imageId)
+	{
+		final String sql = "SELECT " + I_AD_Image.COLUMNNAME_AD_Client_ID
+				+ ", " + I_AD_Image.COLUMNNAME_AD_Org_ID
+				+ ", " + I_AD_Image.COLUMNNAME_Name
+				+ ", " + I_AD_Image.COLUMNNAME_Updated
+				+ " FROM " + I_AD_Image.Table_Name
+				+ " WHERE " + I_AD_Image.COLUMNNAME_AD_Image_ID + "=?";
+		final Object[] sqlParams = new Object[] { imageId };
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+			if (!rs.next())
+			{
+				return null;
+			}
+
+			final Timestamp updated = rs.getTimestamp(I_AD_Image.COLUMNNAME_Updated);
+			return ImageInfo.builder()
+					.imageId(imageId)
+					.adClientId(rs.getInt(I_AD_Image.COLUMNNAME_AD_Client_ID))
+					.adOrgId(rs.getInt(I_AD_Image.COLUMNNAME_AD_Org_ID))
+					.name(rs.getString(I_AD_Image.COLUMNNAME_Name))
+					// NOTE: HTTP dates have seconds precision
+					.lastModifiedMillis(updated != null ? updated.getTime() / 1000 * 1000 : 0)
+					.build();
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
 
-		final HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.parseMediaType(contentType));
-		headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + imageName + "\"");
-		headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-		final ResponseEntity<byte[]> response = new ResponseEntity<byte[]>(imageData, headers, HttpStatus.OK);
-		return response;
+	/**
+	 * Opens a stream over the image binary data.
+	 *
+	 * The database resources are released when the returned stream is closed.
+	 * Images which are not stored in database (i.e. having an ImageURL) are loaded using {@link MImage#getData()}.
+	 */
+	private InputStream openImageDataStream(final int imageId)
+	{
+		final String sql = "SELECT " + I_AD_Image.COLUMNNAME_BinaryData + " FROM " + I_AD_Image.Table_Name + " WHERE " + I_AD_Image.COLUMNNAME_AD_Image_ID + "=?";
+		final Object[] sqlParams = new Object[] { imageId };
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		boolean streamReturned = false;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+
+			final InputStream binaryDataStream = rs.next() ? rs.getBinaryStream(1) : null;
+			if (binaryDataStream == null)
+			{
+				final byte[] data = MImage.get(userSession.getCtx(), imageId).getData();
+				return new ByteArrayInputStream(data != null ? data : new byte[] {});
+			}
+
+			final ResultSet rsToClose = rs;
+			final PreparedStatement pstmtToClose = pstmt;
+			streamReturned = true;
+			return new FilterInputStream(binaryDataStream)
+			{
+				@Override
+				public void close() throws IOException
+				{
+					try
+					{
+						super.close();
+					}
+					finally
+					{
+						DB.close(rsToClose, pstmtToClose);
+					}
+				}
+			};
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			if (!streamReturned)
+			{
+				DB.close(rs, pstmt);
+			}
+		}
 	}
 
+	@lombok.Value
+	@lombok.Builder
+	private static final class ImageInfo
+	{
+		private final int imageId;
+		private final int adClientId;
+		private final int adOrgId;
+		private final String name;
+		private final long lastModifiedMillis;
+
+		/** @return strong ETag which changes each time the image is updated */
+		public String toETagString(final int maxWidth)
+		{
+			return ETag.of(imageId, ImmutableMap.of(
+					"updated", String.valueOf(lastModifiedMillis),
+					"maxWidth", String.valueOf(maxWidth)))
+					.toETagString();
+		}
+	}
 }
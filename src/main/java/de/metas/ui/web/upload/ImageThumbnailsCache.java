@@ -0,0 +1,322 @@
+package de.metas.ui.web.upload;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.imageio.ImageIO;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.Check;
+import org.adempiere.util.FileUtils;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Local disk cache of resized images (thumbnails).
+ *
+ * The cache is bounded by the total size of the thumbnail files. When the limit is exceeded, the least recently used thumbnails are deleted.
+ * The cache directory is cleared on startup, because it is only a scratch area.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class ImageThumbnailsCache
+{
+	private static final Logger logger = LogManager.getLogger(ImageThumbnailsCache.class);
+
+	private static final String FORMAT_JPEG = "jpg";
+	private static final String FORMAT_PNG = "png";
+
+	private final File cacheDir;
+	private final long maxSizeBytes;
+
+	/** Thumbnail files by file name, in access order (eldest first) */
+	private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalSizeBytes = 0;
+
+	/* package */ ImageThumbnailsCache(
+			@Value("${metasfresh.webui.image.thumbnails.dir:}") final String cacheDirPath,
+			@Value("${metasfresh.webui.image.thumbnails.maxSizeMB:100}") final int maxSizeMB)
+	{
+		cacheDir = !Check.isEmpty(cacheDirPath, true)
+				? new File(cacheDirPath.trim())
+				: new File(System.getProperty("java.io.tmpdir"), "metasfresh-webui-image-thumbnails");
+		maxSizeBytes = Math.max(maxSizeMB, 1) * 1024L * 1024L;
+
+		clearCacheDir();
+		logger.info("Image thumbnails cache: dir={}, maxSizeMB={}", cacheDir, maxSizeMB);
+	}
+
+	private void clearCacheDir()
+	{
+		if (!cacheDir.exists())
+		{
+			return;
+		}
+
+		final File[] existingFiles = cacheDir.listFiles();
+		if (existingFiles == null)
+		{
+			return;
+		}
+		for (final File file : existingFiles)
+		{
+			if (file.isFile() && !file.delete())
+			{
+				logger.warn("Failed deleting stale thumbnail {}", file);
+			}
+		}
+	}
+
+	/**
+	 * Gets the cached thumbnail or creates it from the original image.
+	 *
+	 * @param imageId image ID
+	 * @param imageVersion image version (e.g. last updated millis), used to not serve thumbnails of an older image
+	 * @param imageName original image name, used to decide the thumbnail format
+	 * @param maxWidth thumbnail max width; images which are not wider are not scaled
+	 * @param originalStreamSupplier provides the original image stream, which will be closed by this method
+	 * @return thumbnail, with its file already opened (so it can be served even if evicted meanwhile), or <code>null</code> if the original image format is not supported
+	 */
+	public ImageThumbnail getOrCreate(
+			final int imageId,
+			final long imageVersion,
+			final String imageName,
+			final int maxWidth,
+			@NonNull final Supplier<InputStream> originalStreamSupplier)
+	{
+		final String format = isJpeg(imageName) ? FORMAT_JPEG : FORMAT_PNG;
+		final String fileName = imageId + "-" + imageVersion + "-" + maxWidth + "." + format;
+
+		final InputStream cachedStream = openCachedFile(fileName);
+		if (cachedStream != null)
+		{
+			return ImageThumbnail.of(cachedStream, format);
+		}
+
+		final File file = createThumbnailFile(fileName, format, maxWidth, originalStreamSupplier);
+		if (file == null)
+		{
+			return null;
+		}
+
+		final InputStream stream = putCachedFileAndOpen(fileName, file);
+		return ImageThumbnail.of(stream, format);
+	}
+
+	/**
+	 * @return opened cached file or <code>null</code> if it's not cached or it was deleted from outside (i.e. a cache miss)
+	 */
+	private synchronized InputStream openCachedFile(final String fileName)
+	{
+		final CachedFile cachedFile = files.get(fileName);
+		if (cachedFile == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return new FileInputStream(cachedFile.getFile());
+		}
+		catch (final FileNotFoundException ex)
+		{
+			logger.debug("Cached thumbnail {} was deleted from outside. Considering it a cache miss.", cachedFile);
+			files.remove(fileName);
+			totalSizeBytes -= cachedFile.getSizeBytes();
+			return null;
+		}
+	}
+
+	private synchronized InputStream putCachedFileAndOpen(final String fileName, final File file)
+	{
+		final CachedFile cachedFile = CachedFile.of(file, file.length());
+		final CachedFile previousCachedFile = files.put(fileName, cachedFile);
+		if (previousCachedFile != null)
+		{
+			totalSizeBytes -= previousCachedFile.getSizeBytes();
+		}
+		totalSizeBytes += cachedFile.getSizeBytes();
+
+		removeEldestFilesIfFull(fileName);
+
+		try
+		{
+			return new FileInputStream(file);
+		}
+		catch (final FileNotFoundException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+	}
+
+	/**
+	 * @param fileNameToKeep the file which was just inserted and which shall not be evicted, even if it alone exceeds the max size
+	 */
+	private void removeEldestFilesIfFull(final String fileNameToKeep)
+	{
+		final Iterator<Map.Entry<String, CachedFile>> it = files.entrySet().iterator();
+		while (totalSizeBytes > maxSizeBytes && it.hasNext())
+		{
+			final Map.Entry<String, CachedFile> entry = it.next();
+			if (fileNameToKeep.equals(entry.getKey()))
+			{
+				continue;
+			}
+
+			final File file = entry.getValue().getFile();
+			it.remove();
+			totalSizeBytes -= entry.getValue().getSizeBytes();
+
+			// NOTE: on most platforms, a file which is currently streamed to a client can be safely deleted
+			if (!file.delete() && file.exists())
+			{
+				logger.warn("Failed deleting evicted thumbnail {}", file);
+			}
+		}
+	}
+
+	private File createThumbnailFile(final String fileName, final String format, final int maxWidth, final Supplier<InputStream> originalStreamSupplier)
+	{
+		final BufferedImage originalImage;
+		try (final InputStream originalStream = originalStreamSupplier.get())
+		{
+			originalImage = ImageIO.read(originalStream);
+		}
+		catch (final IOException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+
+		if (originalImage == null)
+		{
+			logger.debug("Image format not supported for {}", fileName);
+			return null;
+		}
+
+		final BufferedImage thumbnailImage = scaleToMaxWidth(originalImage, maxWidth, FORMAT_JPEG.equals(format));
+
+		try
+		{
+			Files.createDirectories(cacheDir.toPath());
+
+			// Write to a temporary file first, so concurrent readers will never see a partially written thumbnail
+			final Path tempFile = Files.createTempFile(cacheDir.toPath(), "tmp-", "." + format);
+			ImageIO.write(thumbnailImage, format, tempFile.toFile());
+
+			final Path file = cacheDir.toPath().resolve(fileName);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return file.toFile();
+		}
+		catch (final IOException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+	}
+
+	private static BufferedImage scaleToMaxWidth(final BufferedImage image, final int maxWidth, final boolean opaque)
+	{
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+
+		final int thumbnailWidth = Math.min(width, maxWidth);
+		final int thumbnailHeight = Math.max(1, (int)Math.round((double)height * thumbnailWidth / width));
+
+		final BufferedImage thumbnail = new BufferedImage(thumbnailWidth, thumbnailHeight, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D graphics = thumbnail.createGraphics();
+		try
+		{
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, thumbnailWidth, thumbnailHeight, null);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+
+		return thumbnail;
+	}
+
+	private static boolean isJpeg(final String imageName)
+	{
+		if (imageName == null)
+		{
+			return false;
+		}
+
+		final String imageNameNorm = imageName.trim().toLowerCase();
+		return imageNameNorm.endsWith(".jpg") || imageNameNorm.endsWith(".jpeg");
+	}
+
+	@lombok.Value(staticConstructor = "of")
+	private static final class CachedFile
+	{
+		private final File file;
+		private final long sizeBytes;
+	}
+
+	@lombok.Value(staticConstructor = "of")
+	public static final class ImageThumbnail
+	{
+		private final InputStream stream;
+		private final String format;
+
+		public String getContentType()
+		{
+			return FORMAT_JPEG.equals(format) ? "image/jpeg" : "image/png";
+		}
+
+		/**
+		 * @return original image name, but with the extension changed to PNG if the image was re-encoded (e.g. GIF or BMP images)
+		 */
+		public String getFileName(final String imageName)
+		{
+			if (FORMAT_JPEG.equals(format) || Check.isEmpty(imageName, true))
+			{
+				return imageName;
+			}
+			return FileUtils.changeFileExtension(imageName.trim(), format);
+		}
+	}
+}
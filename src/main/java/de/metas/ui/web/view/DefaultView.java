@@ -1,17 +1,22 @@
 package de.metas.ui.web.view;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.util.CCache;
+import org.compiere.util.CCache.CCacheStats;
 import org.compiere.util.Env;
 import org.compiere.util.Evaluatee;
 import org.slf4j.Logger;
@@ -25,7 +30,6 @@ import de.metas.logging.LogManager;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.document.filter.DocumentFilterDescriptorsProvider;
 import de.metas.ui.web.document.filter.json.JSONDocumentFilter;
-import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.view.event.ViewChangesCollector;
 import de.metas.ui.web.view.json.JSONViewDataType;
 import de.metas.ui.web.window.datatypes.DocumentId;
@@ -73,6 +77,9 @@ public class DefaultView implements IView
 
 	private static final Logger logger = LogManager.getLogger(DefaultView.class);
 
+	/** Page length used when streaming all rows */
+	private static final int STREAM_ALL_PAGE_LENGTH = 500;
+
 	private final IViewDataRepository viewDataRepository;
 
 	private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -98,7 +105,7 @@ public class DefaultView implements IView
 	//
 	// Caching
 	private final transient CCache<DocumentId, IViewRow> cache_rowsById;
-
+	private final transient ViewPagesCache cache_pages;
 
 	private DefaultView(final Builder builder)
 	{
@@ -134,6 +141,7 @@ public class DefaultView implements IView
 				, 100 // maxSize
 				, 2 // expireAfterMinutes
 		);
+		cache_pages = new ViewPagesCache(viewDataRepository.getTableName() + "#pages#viewId=" + defaultSelection.getSelectionId());
 
 		logger.debug("View created: {}", this);
 	}
@@ -229,8 +237,22 @@ public class DefaultView implements IView
 			return; // already closed
 		}
 
-		// nothing now.
-		// TODO in future me might notify somebody to remove the temporary selections from database
+		//
+		// Schedule the temporary selections to be deleted from database
+		// NOTE: remove them one by one, so a selection which is concurrently created is deleted either here or by the creator (see getOrderedSelection)
+		final ImmutableSet.Builder<String> selectionIds = ImmutableSet.builder();
+		for (final ImmutableList<DocumentQueryOrderBy> orderBys : selectionsByOrderBys.keySet())
+		{
+			final ViewRowIdsOrderedSelection selection = selectionsByOrderBys.remove(orderBys);
+			if (selection != null)
+			{
+				selectionIds.add(selection.getSelectionId());
+			}
+		}
+		viewDataRepository.scheduleDeleteSelections(selectionIds.build());
+
+		cache_rowsById.clear();
+		cache_pages.close();
 
 		logger.debug("View closed: {}", this);
 	}
@@ -251,7 +273,7 @@ public class DefaultView implements IView
 		final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
 		final ViewRowIdsOrderedSelection orderedSelection = getOrderedSelection(orderBys);
 
-		final List<IViewRow> page = viewDataRepository.retrievePage(evalCtx, orderedSelection, firstRow, pageLength);
+		final List<IViewRow> page = cache_pages.getOrLoad(orderedSelection, firstRow, pageLength, (selection, pageFirstRow, pageLengthToLoad) -> viewDataRepository.retrievePage(evalCtx, selection, pageFirstRow, pageLengthToLoad));
 
 		// Add to cache
 		page.forEach(row -> cache_rowsById.put(row.getId(), row));
@@ -286,7 +308,20 @@ public class DefaultView implements IView
 			return defaultSelection;
 		}
 
-		return selectionsByOrderBys.computeIfAbsent(ImmutableList.copyOf(orderBys), orderBysImmutable -> viewDataRepository.createOrderedSelectionFromSelection(ViewEvaluationCtx.of(Env.getCtx()), defaultSelection, orderBysImmutable));
+		final ImmutableList<DocumentQueryOrderBy> orderBysImmutable = ImmutableList.copyOf(orderBys);
+		final ViewRowIdsOrderedSelection selection = selectionsByOrderBys.computeIfAbsent(orderBysImmutable, k -> {
+			assertNotClosed();
+			return viewDataRepository.createOrderedSelectionFromSelection(ViewEvaluationCtx.of(Env.getCtx()), defaultSelection, k);
+		});
+
+		// The view was closed while we were creating the selection: make sure the selection is deleted
+		if (closed.get() && selectionsByOrderBys.remove(orderBysImmutable, selection))
+		{
+			viewDataRepository.scheduleDeleteSelections(ImmutableSet.of(selection.getSelectionId()));
+			assertNotClosed(); // fail
+		}
+
+		return selection;
 	}
 
 	@Override
@@ -330,28 +365,78 @@ public class DefaultView implements IView
 		{
 			return Stream.empty();
 		}
-		else if(rowIds.isAll())
+		else if (rowIds.isAll())
+		{
+			return streamAllRows();
+		}
+
+		//
+		// Get the rows from cache (we assume the "selected documents" were recently retrieved, so they have a big chance to be cached)
+		// and retrieve all the missing ones in one go.
+		final Map<DocumentId, IViewRow> rowsById = new HashMap<>(rowIds.size());
+		final Set<DocumentId> rowIdsToRetrieve = new LinkedHashSet<>();
+		for (final DocumentId rowId : rowIds.toSet())
+		{
+			final IViewRow row = cache_rowsById.get(rowId);
+			if (row != null)
+			{
+				rowsById.put(rowId, row);
+			}
+			else
+			{
+				rowIdsToRetrieve.add(rowId);
+			}
+		}
+
+		if (!rowIdsToRetrieve.isEmpty())
 		{
-			throw new UnsupportedOperationException("Streaming all rows is not supported");
+			final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
+			viewDataRepository.retrieveByIds(evalCtx, getViewId(), DocumentIdsSelection.of(rowIdsToRetrieve))
+					.forEach(row -> {
+						cache_rowsById.put(row.getId(), row);
+						rowsById.put(row.getId(), row);
+					});
 		}
 
-		// NOTE: we get/retrive one by one because we assume the "selected documents" were recently retrieved,
-		// and the records recently retrieved have a big chance to be cached.
 		return rowIds.stream()
-				.distinct()
-				.map(rowId -> {
-					try
-					{
-						return getOrRetrieveById(rowId);
-					}
-					catch (final EntityNotFoundException e)
-					{
-						return null;
-					}
-				})
+				.map(rowsById::get)
 				.filter(row -> row != null);
 	}
 
+	/**
+	 * Streams all rows of the default selection, page by page.
+	 * The rows are not cached because we assume there are too many.
+	 * <p>
+	 * NOTE: each page is fetched by a SeqNo range (<code>SeqNo BETWEEN ? AND ?</code>, or a slice of the row IDs array for in-memory selections), not by OFFSET,
+	 * so each page costs the same and streaming all rows is linear in the selection size.
+	 * We are not using a server-side (fetch-size) cursor because it would keep the JDBC statement and connection open for as long as the caller holds the stream,
+	 * and the callers are not closing the streams (e.g. they stop consuming it after the first matching row).
+	 */
+	private Stream<IViewRow> streamAllRows()
+	{
+		final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
+		final ViewRowIdsOrderedSelection selection = defaultSelection;
+		final int pageLength = STREAM_ALL_PAGE_LENGTH;
+		final int pagesCount = (int)((selection.getSize() + pageLength - 1) / pageLength);
+
+		return IntStream.range(0, pagesCount)
+				.mapToObj(pageIndex -> viewDataRepository.retrievePage(evalCtx, selection, pageIndex * pageLength, pageLength))
+				.flatMap(List::stream);
+	}
+
+	public List<CCacheStats> getCacheStats()
+	{
+		return ImmutableList.<CCacheStats> builder()
+				.add(cache_rowsById.stats())
+				.addAll(cache_pages.getStats())
+				.build();
+	}
+
+	public Map<String, Object> getPagesPrefetchStats()
+	{
+		return cache_pages.getPrefetchStats();
+	}
+
 	@Override
 	public <T> List<T> retrieveModelsByIds(final DocumentIdsSelection rowIds, final Class<T> modelClass)
 	{
@@ -373,8 +458,9 @@ public class DefaultView implements IView
 			return;
 		}
 
-		// Invalidate local rowsById cache
+		// Invalidate local rowsById cache and the pages which contain the changed rows
 		rowIds.forEach(cache_rowsById::remove);
+		cache_pages.invalidate(rowIds);
 
 		// Collect event
 		// TODO: check which rowIds are contained in this view and fire events only for those
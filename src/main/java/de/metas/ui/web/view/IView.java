@@ -113,7 +113,7 @@ public interface IView
 
 	/**
 	 * @return a stream which contains only the {@link IViewRow}s which given <code>rowId</code>s.
-	 *         If a {@link IViewRow} was not found for given ID, this method simply ignores it.
+	 *         If a {@link IViewRow} was not found for given ID, this method simply ignores it (use {@link #getById(DocumentId)} if a missing row shall fail).
 	 */
 	Stream<? extends IViewRow> streamByIds(DocumentIdsSelection rowIds);
 
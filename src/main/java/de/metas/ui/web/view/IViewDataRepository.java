@@ -1,11 +1,13 @@
 package de.metas.ui.web.view;
 
 import java.util.List;
+import java.util.Set;
 
 import org.adempiere.exceptions.DBException;
 
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.document.filter.DocumentFilterDescriptorsProvider;
+import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
@@ -48,7 +50,19 @@ public interface IViewDataRepository
 	
 	DocumentFilterDescriptorsProvider getViewFilterDescriptors();
 
-	IViewRow retrieveById(ViewEvaluationCtx viewEvalCtx, ViewId viewId, DocumentId rowId);
+	/**
+	 * @throws EntityNotFoundException if the row was not found
+	 */
+	IViewRow retrieveById(ViewEvaluationCtx viewEvalCtx, ViewId viewId, DocumentId rowId) throws EntityNotFoundException;
+
+	/**
+	 * Retrieves given rows in bulk.
+	 *
+	 * @param rowIds row IDs (ALL is not supported)
+	 * @return rows, in the same order as <code>rowIds</code>; rows which were not found (e.g. not in view's selection) are skipped, without failing.
+	 *         That's the contract of {@link IView#streamByIds(DocumentIdsSelection)}. Use {@link #retrieveById(ViewEvaluationCtx, ViewId, DocumentId)} if a missing row shall fail.
+	 */
+	List<IViewRow> retrieveByIds(ViewEvaluationCtx viewEvalCtx, ViewId viewId, DocumentIdsSelection rowIds);
 
 	List<IViewRow> retrievePage(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection orderedSelection, int firstRow, int pageLength) throws DBException;
 
@@ -57,4 +71,7 @@ public interface IViewDataRepository
 	ViewRowIdsOrderedSelection createOrderedSelection(ViewEvaluationCtx viewEvalCtx, WindowId windowId, List<DocumentFilter> filters);
 
 	ViewRowIdsOrderedSelection createOrderedSelectionFromSelection(final ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection fromSelection, List<DocumentQueryOrderBy> orderBys);
+
+	/** Schedules given selections to be deleted because they are no longer needed (e.g. view was closed) */
+	void scheduleDeleteSelections(Set<String> selectionIds);
 }
@@ -0,0 +1,383 @@
+package de.metas.ui.web.view;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.Services;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.document.filter.DocumentFilter;
+import de.metas.ui.web.view.descriptor.SqlViewBinding;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder.SqlAndParams;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.model.DocumentQueryOrderBy;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * {@link ViewRowIdsOrderedSelectionFactory} which keeps the ordered row IDs in memory (see {@link ViewRowIdsOrderedSelection#isRowIdsInMemory()})
+ * instead of inserting them into T_WEBUI_ViewSelection.
+ *
+ * If the selection is bigger than the configured max size, the creation is delegated to the given (database) selection factory.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public class InMemoryViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSelectionFactory
+{
+	/**
+	 * @return in memory selection factory if enabled and supported by given view binding, else the <code>databaseSelectionFactory</code>
+	 */
+	public static final ViewRowIdsOrderedSelectionFactory wrapIfEnabled(@NonNull final SqlViewBinding viewBinding, @NonNull final ViewRowIdsOrderedSelectionFactory databaseSelectionFactory)
+	{
+		if (viewBinding.getSqlSelectByRowIds() == null)
+		{
+			// not supported (e.g. grouping views)
+			return databaseSelectionFactory;
+		}
+
+		final int maxSize = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_MaxSize, DEFAULT_MaxSize);
+		if (maxSize <= 0)
+		{
+			return databaseSelectionFactory;
+		}
+
+		return new InMemoryViewRowIdsOrderedSelectionFactory(viewBinding, databaseSelectionFactory, maxSize);
+	}
+
+	private static final Logger logger = LogManager.getLogger(InMemoryViewRowIdsOrderedSelectionFactory.class);
+
+	/** Max number of rows for which the selection is kept in memory. Bigger selections are stored in database. Zero or negative means disabled. */
+	private static final String SYSCONFIG_MaxSize = "de.metas.ui.web.view.InMemoryViewRowIdsOrderedSelectionFactory.MaxSize";
+	private static final int DEFAULT_MaxSize = 0;
+
+	private final SqlViewBinding viewBinding;
+	private final ViewRowIdsOrderedSelectionFactory databaseSelectionFactory;
+	private final int maxSize;
+
+	private final ConcurrentHashMap<String, ViewRowIdsOrderedSelection> inMemorySelectionsById = new ConcurrentHashMap<>();
+
+	private InMemoryViewRowIdsOrderedSelectionFactory(
+			@NonNull final SqlViewBinding viewBinding,
+			@NonNull final ViewRowIdsOrderedSelectionFactory databaseSelectionFactory,
+			final int maxSize)
+	{
+		this.viewBinding = viewBinding;
+		this.databaseSelectionFactory = databaseSelectionFactory;
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("tableName", viewBinding.getTableName())
+				.add("maxSize", maxSize)
+				.toString();
+	}
+
+	private SqlViewSelectionQueryBuilder newSqlViewSelectionQueryBuilder()
+	{
+		return SqlViewSelectionQueryBuilder.newInstance(viewBinding);
+	}
+
+	private ViewRowIdsOrderedSelection register(final ViewRowIdsOrderedSelection selection)
+	{
+		inMemorySelectionsById.put(selection.getSelectionId(), selection);
+		return selection;
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection getInMemorySelectionOrNull(final ViewId viewId)
+	{
+		return inMemorySelectionsById.get(viewId.getViewId());
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection createOrderedSelection(final ViewEvaluationCtx viewEvalCtx, final WindowId windowId, final List<DocumentFilter> filters, final List<DocumentQueryOrderBy> orderBys)
+	{
+		final int queryLimit = SqlViewRowIdsOrderedSelectionFactory.retrieveQueryLimit(viewEvalCtx);
+
+		// Fetch at most maxSize+1 rows, so we know when we exceeded the max size.
+		// If the query limit is smaller then we are sure we will never exceed the max size.
+		final boolean queryLimitApplies = queryLimit > 0 && queryLimit <= maxSize;
+		final int limit = queryLimitApplies ? queryLimit : maxSize + 1;
+
+		final SqlAndParams sqlSelectRowIds = newSqlViewSelectionQueryBuilder().buildSqlSelectRowIds(viewEvalCtx, filters, orderBys, limit);
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final int[] rowIds = retrieveRowIds(sqlSelectRowIds, limit);
+		if (rowIds.length > maxSize)
+		{
+			logger.trace("Selection is bigger than {} rows. Creating it in database. Duration so far: {}", maxSize, stopwatch);
+			return databaseSelectionFactory.createOrderedSelection(viewEvalCtx, windowId, filters, orderBys);
+		}
+
+		final ViewRowIdsOrderedSelection selection = ViewRowIdsOrderedSelection.builder()
+				.setViewId(ViewId.random(windowId))
+				.setRowIds(rowIds)
+				.setOrderBys(orderBys)
+				.setQueryLimit(queryLimit)
+				.build();
+		logger.trace("Created in memory selection {}, duration={}", selection, stopwatch);
+
+		return register(selection);
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection createOrderedSelectionFromSelection(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection fromSelection, final List<DocumentQueryOrderBy> orderBys)
+	{
+		if (!fromSelection.isRowIdsInMemory())
+		{
+			return databaseSelectionFactory.createOrderedSelectionFromSelection(viewEvalCtx, fromSelection, orderBys);
+		}
+
+		final int[] fromRowIds = fromSelection.streamRowIds().toArray();
+
+		final int[] rowIds;
+		if (isOrderingOnlyByKeyField(orderBys))
+		{
+			// Sort in memory, no need to ask the database
+			rowIds = sortRowIds(fromRowIds, orderBys.get(0).isAscending());
+		}
+		else
+		{
+			final SqlAndParams sqlSelectRowIds = newSqlViewSelectionQueryBuilder().buildSqlSelectRowIdsOrderedBy(viewEvalCtx, fromRowIds, orderBys);
+			rowIds = retrieveRowIds(sqlSelectRowIds, fromRowIds.length);
+		}
+
+		final ViewRowIdsOrderedSelection selection = ViewRowIdsOrderedSelection.builder()
+				.setViewId(ViewId.random(fromSelection.getWindowId()))
+				.setRowIds(rowIds)
+				.setOrderBys(orderBys)
+				.setQueryLimit(fromSelection.getQueryLimit())
+				.build();
+
+		return register(selection);
+	}
+
+	private boolean isOrderingOnlyByKeyField(final List<DocumentQueryOrderBy> orderBys)
+	{
+		return orderBys.size() == 1 && viewBinding.isKeyFieldName(orderBys.get(0).getFieldName());
+	}
+
+	private static int[] sortRowIds(final int[] rowIds, final boolean ascending)
+	{
+		final int[] rowIdsSorted = rowIds.clone();
+		Arrays.sort(rowIdsSorted);
+		if (!ascending)
+		{
+			for (int i = 0, j = rowIdsSorted.length - 1; i < j; i++, j--)
+			{
+				final int tmp = rowIdsSorted[i];
+				rowIdsSorted[i] = rowIdsSorted[j];
+				rowIdsSorted[j] = tmp;
+			}
+		}
+		return rowIdsSorted;
+	}
+
+	private static int[] retrieveRowIds(final SqlAndParams sqlAndParams, final int expectedMaxSize)
+	{
+		final String sql = sqlAndParams.getSql();
+		final Object[] sqlParams = sqlAndParams.getSqlParamsArray();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+
+			int[] rowIds = new int[Math.min(expectedMaxSize, 100)];
+			int size = 0;
+			while (rs.next())
+			{
+				final int rowId = rs.getInt(1);
+				if (rs.wasNull())
+				{
+					continue;
+				}
+
+				if (size >= rowIds.length)
+				{
+					rowIds = Arrays.copyOf(rowIds, Math.max(rowIds.length * 2, 16));
+				}
+				rowIds[size] = rowId;
+				size++;
+			}
+
+			return size == rowIds.length ? rowIds : Arrays.copyOf(rowIds, size);
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	@Override
+	public String getSqlWhereClause(final ViewId viewId, final DocumentIdsSelection rowIds)
+	{
+		final ViewRowIdsOrderedSelection selection = getInMemorySelectionOrNull(viewId);
+		if (selection == null)
+		{
+			return databaseSelectionFactory.getSqlWhereClause(viewId, rowIds);
+		}
+
+		final Set<Integer> rowIdsEffective;
+		if (rowIds.isEmpty())
+		{
+			rowIdsEffective = ImmutableSet.of();
+		}
+		else if (rowIds.isAll())
+		{
+			rowIdsEffective = selection.streamRowIds().boxed().collect(ImmutableSet.toImmutableSet());
+		}
+		else
+		{
+			rowIdsEffective = rowIds.toIntSet()
+					.stream()
+					.filter(selection::containsRowId)
+					.collect(ImmutableSet.toImmutableSet());
+		}
+
+		if (rowIdsEffective.isEmpty())
+		{
+			return "1=0";
+		}
+
+		final String sqlKeyColumnNameFK = viewBinding.getTableName() + "." + viewBinding.getKeyColumnName();
+		return sqlKeyColumnNameFK + " IN " + DB.buildSqlList(rowIdsEffective);
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection addRowIdsToSelection(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
+	{
+		if (!selection.isRowIdsInMemory())
+		{
+			return databaseSelectionFactory.addRowIdsToSelection(selection, rowIds);
+		}
+
+		if (rowIds.isEmpty())
+		{
+			// nothing changed
+			return selection;
+		}
+		else if (rowIds.isAll())
+		{
+			throw new IllegalArgumentException("Cannot add ALL to selection");
+		}
+
+		final int[] rowIdsToAdd = rowIds.toIntSet()
+				.stream()
+				.mapToInt(Integer::intValue)
+				.filter(rowId -> !selection.containsRowId(rowId))
+				.toArray();
+		if (rowIdsToAdd.length == 0)
+		{
+			// nothing changed
+			return selection;
+		}
+
+		final int[] rowIdsNew = IntStream.concat(selection.streamRowIds(), Arrays.stream(rowIdsToAdd)).toArray();
+		return register(selection.toBuilder()
+				.setRowIds(rowIdsNew)
+				.build());
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection removeRowIdsFromSelection(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
+	{
+		if (!selection.isRowIdsInMemory())
+		{
+			return databaseSelectionFactory.removeRowIdsFromSelection(selection, rowIds);
+		}
+
+		if (rowIds.isEmpty())
+		{
+			// nothing changed
+			return selection;
+		}
+
+		final int[] rowIdsNew;
+		if (rowIds.isAll())
+		{
+			rowIdsNew = new int[] {};
+		}
+		else
+		{
+			final Set<Integer> rowIdsToRemove = rowIds.toIntSet();
+			rowIdsNew = selection.streamRowIds()
+					.filter(rowId -> !rowIdsToRemove.contains(rowId))
+					.toArray();
+		}
+
+		if (rowIdsNew.length == selection.getSize())
+		{
+			// nothing changed
+			return selection;
+		}
+
+		return register(selection.toBuilder()
+				.setRowIds(rowIdsNew)
+				.build());
+	}
+
+	@Override
+	public void scheduleDeleteSelections(final Set<String> selectionIds)
+	{
+		final ImmutableSet.Builder<String> databaseSelectionIds = ImmutableSet.builder();
+		for (final String selectionId : selectionIds)
+		{
+			final ViewRowIdsOrderedSelection inMemorySelection = inMemorySelectionsById.remove(selectionId);
+			if (inMemorySelection == null)
+			{
+				databaseSelectionIds.add(selectionId);
+			}
+		}
+
+		databaseSelectionFactory.scheduleDeleteSelections(databaseSelectionIds.build());
+	}
+}
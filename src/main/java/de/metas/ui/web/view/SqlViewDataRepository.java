@@ -3,9 +3,11 @@ package de.metas.ui.web.view;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
@@ -21,18 +23,17 @@ import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.document.filter.DocumentFilterDescriptorsProvider;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.view.descriptor.SqlViewBinding;
-import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding;
-import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding.SqlViewRowFieldLoader;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.descriptor.sql.SqlArrays;
 import de.metas.ui.web.window.model.DocumentQueryOrderBy;
 import lombok.NonNull;
 
@@ -62,41 +63,32 @@ class SqlViewDataRepository implements IViewDataRepository
 {
 	private static final Logger logger = LogManager.getLogger(SqlViewDataRepository.class);
 
+	/** Max number of row IDs to be fetched in one SQL query by {@link #retrieveByIds(ViewEvaluationCtx, ViewId, DocumentIdsSelection)} */
+	private static final int RETRIEVE_BY_IDS_CHUNK_SIZE = 1000;
+
 	private final String tableName;
 	private final IStringExpression sqlSelectById;
+	private final IStringExpression sqlSelectByIds;
 	private final IStringExpression sqlSelectByPage;
+	private final IStringExpression sqlSelectByRowIds;
 	private final ViewRowIdsOrderedSelectionFactory viewRowIdsOrderedSelectionFactory;
 	private final DocumentFilterDescriptorsProvider viewFilterDescriptors;
 	private final List<DocumentQueryOrderBy> defaultOrderBys;
 
-	private final String keyFieldName;
-	private final ImmutableMap<String, SqlViewRowFieldLoader> rowFieldLoaders;
+	private final SqlViewRowLoader rowLoader;
 
 	SqlViewDataRepository(@NonNull final SqlViewBinding sqlBindings)
 	{
 		tableName = sqlBindings.getTableName();
 		sqlSelectById = sqlBindings.getSqlSelectById();
+		sqlSelectByIds = sqlBindings.getSqlSelectByIds();
 		sqlSelectByPage = sqlBindings.getSqlSelectByPage();
+		sqlSelectByRowIds = sqlBindings.getSqlSelectByRowIds();
 		viewFilterDescriptors = sqlBindings.getViewFilterDescriptors();
-		viewRowIdsOrderedSelectionFactory = SqlViewRowIdsOrderedSelectionFactory.of(sqlBindings);
+		viewRowIdsOrderedSelectionFactory = InMemoryViewRowIdsOrderedSelectionFactory.wrapIfEnabled(sqlBindings, SqlViewRowIdsOrderedSelectionFactory.of(sqlBindings));
 		defaultOrderBys = sqlBindings.getDefaultOrderBys();
 
-		String keyFieldName = null;
-		final ImmutableMap.Builder<String, SqlViewRowFieldLoader> rowFieldLoaders = ImmutableMap.builder();
-		for (final SqlViewRowFieldBinding field : sqlBindings.getFields())
-		{
-			final String fieldName = field.getFieldName();
-			rowFieldLoaders.put(fieldName, field.getFieldLoader());
-
-			if (field.isKeyColumn())
-			{
-				keyFieldName = fieldName;
-			}
-		}
-
-		this.keyFieldName = keyFieldName;
-		this.rowFieldLoaders = rowFieldLoaders.build();
-
+		rowLoader = SqlViewRowLoader.of(sqlBindings.getFields());
 	}
 
 	@Override
@@ -131,9 +123,21 @@ class SqlViewDataRepository implements IViewDataRepository
 		return viewRowIdsOrderedSelectionFactory.createOrderedSelectionFromSelection(viewEvalCtx, fromSelection, orderBys);
 	}
 
+	@Override
+	public void scheduleDeleteSelections(final Set<String> selectionIds)
+	{
+		viewRowIdsOrderedSelectionFactory.scheduleDeleteSelections(selectionIds);
+	}
+
 	@Override
 	public IViewRow retrieveById(final ViewEvaluationCtx viewEvalCtx, final ViewId viewId, final DocumentId rowId)
 	{
+		final ViewRowIdsOrderedSelection inMemorySelection = viewRowIdsOrderedSelectionFactory.getInMemorySelectionOrNull(viewId);
+		if (inMemorySelection != null)
+		{
+			return retrieveByIdFromInMemorySelection(viewEvalCtx, inMemorySelection, rowId);
+		}
+
 		final WindowId windowId = viewId.getWindowId();
 		final String viewSelectionId = viewId.getViewId();
 		final String adLanguage = viewEvalCtx.getAD_Language();
@@ -189,31 +193,155 @@ class SqlViewDataRepository implements IViewDataRepository
 		}
 	}
 
-	private IViewRow loadViewRow(final ResultSet rs, final WindowId windowId, final String adLanguage) throws SQLException
+	@Override
+	public List<IViewRow> retrieveByIds(final ViewEvaluationCtx viewEvalCtx, final ViewId viewId, final DocumentIdsSelection rowIds)
 	{
-		final ViewRow.Builder viewRowBuilder = ViewRow.builder(windowId);
-		
-		for (final Map.Entry<String, SqlViewRowFieldLoader> fieldNameAndLoader : rowFieldLoaders.entrySet())
+		if (rowIds.isEmpty())
 		{
-			final String fieldName = fieldNameAndLoader.getKey();
-			final SqlViewRowFieldLoader fieldLoader = fieldNameAndLoader.getValue();
-			final Object value = fieldLoader.retrieveValueAsJson(rs, adLanguage);
+			return ImmutableList.of();
+		}
+		else if (rowIds.isAll())
+		{
+			throw new IllegalArgumentException("Retrieving ALL rows is not supported");
+		}
 
-			if(Objects.equals(fieldName, keyFieldName))
+		final ViewRowIdsOrderedSelection inMemorySelection = viewRowIdsOrderedSelectionFactory.getInMemorySelectionOrNull(viewId);
+
+		final Map<DocumentId, IViewRow> rowsById = new HashMap<>(rowIds.size());
+		for (final List<Integer> rowIdsChunk : Iterables.partition(rowIds.toIntSet(), RETRIEVE_BY_IDS_CHUNK_SIZE))
+		{
+			final List<IViewRow> rows;
+			if (inMemorySelection != null)
+			{
+				final int[] rowIdsArray = rowIdsChunk.stream().mapToInt(Integer::intValue).filter(inMemorySelection::containsRowId).toArray();
+				rows = retrieveRowsByIds(viewEvalCtx, inMemorySelection.getWindowId(), rowIdsArray);
+			}
+			else
 			{
-				if (value == null)
+				rows = retrieveRowsByIdsFromSelection(viewEvalCtx, viewId, rowIdsChunk);
+			}
+
+			rows.forEach(row -> rowsById.putIfAbsent(row.getId(), row));
+		}
+
+		// NOTE: skip the rows which were not found (see method's contract)
+		return rowIds.stream()
+				.map(rowsById::get)
+				.filter(Objects::nonNull)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private List<IViewRow> retrieveRowsByIdsFromSelection(final ViewEvaluationCtx viewEvalCtx, final ViewId viewId, final List<Integer> rowIds)
+	{
+		final WindowId windowId = viewId.getWindowId();
+		final String viewSelectionId = viewId.getViewId();
+		final String adLanguage = viewEvalCtx.getAD_Language();
+
+		final String sql = sqlSelectByIds.evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+		final Object[] sqlParams = new Object[] { viewSelectionId, SqlArrays.toSqlIntArray(rowIds.stream().mapToInt(Integer::intValue).toArray()) };
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+			DB.setParameters(pstmt, sqlParams);
+
+			rs = pstmt.executeQuery();
+
+			final ImmutableList.Builder<IViewRow> rows = ImmutableList.builder();
+			while (rs.next())
+			{
+				final IViewRow row = loadViewRow(rs, windowId, adLanguage);
+				if (row == null)
 				{
-					logger.warn("No ID found for current row. Skipping the row.");
-					return null;
+					continue;
 				}
 
-				viewRowBuilder.setRowIdFromObject(value);
+				rows.add(row);
 			}
 
-			viewRowBuilder.putFieldValue(fieldName, value);
+			return rows.build();
 		}
+		catch (final SQLException | DBException e)
+		{
+			throw DBException.wrapIfNeeded(e)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private IViewRow retrieveByIdFromInMemorySelection(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection selection, final DocumentId rowId)
+	{
+		final int rowIdInt = rowId.toInt();
+		if (!selection.containsRowId(rowIdInt))
+		{
+			throw new EntityNotFoundException("No document found for rowId=" + rowId);
+		}
+
+		final List<IViewRow> rows = retrieveRowsByIds(viewEvalCtx, selection.getWindowId(), new int[] { rowIdInt });
+		if (rows.isEmpty())
+		{
+			throw new EntityNotFoundException("No document found for rowId=" + rowId);
+		}
+
+		return rows.get(0);
+	}
+
+	/**
+	 * Retrieves the rows for given IDs, without using T_WEBUI_ViewSelection.
+	 *
+	 * @return rows, in the same order as <code>rowIds</code>
+	 */
+	private List<IViewRow> retrieveRowsByIds(final ViewEvaluationCtx viewEvalCtx, final WindowId windowId, final int[] rowIds)
+	{
+		if (rowIds.length == 0)
+		{
+			return ImmutableList.of();
+		}
+
+		final String adLanguage = viewEvalCtx.getAD_Language();
+		final String sql = sqlSelectByRowIds.evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+		final Object[] sqlParams = new Object[] { SqlArrays.toSqlIntArray(rowIds) };
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+			DB.setParameters(pstmt, sqlParams);
+
+			rs = pstmt.executeQuery();
 
-		return viewRowBuilder.build();
+			final ImmutableList.Builder<IViewRow> rows = ImmutableList.builder();
+			while (rs.next())
+			{
+				final IViewRow row = loadViewRow(rs, windowId, adLanguage);
+				if (row == null)
+				{
+					continue;
+				}
+
+				rows.add(row);
+			}
+
+			return rows.build();
+		}
+		catch (final SQLException | DBException e)
+		{
+			throw DBException.wrapIfNeeded(e)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private IViewRow loadViewRow(final ResultSet rs, final WindowId windowId, final String adLanguage) throws SQLException
+	{
+		return rowLoader.loadViewRow(rs, windowId, adLanguage);
 	}
 
 	@Override
@@ -232,6 +360,13 @@ class SqlViewDataRepository implements IViewDataRepository
 
 		logger.debug("Using: {}", orderedSelection);
 		final WindowId windowId = orderedSelection.getWindowId();
+
+		if (orderedSelection.isRowIdsInMemory())
+		{
+			final int[] rowIds = orderedSelection.getRowIdsPage(firstRow, pageLength);
+			return retrieveRowsByIds(viewEvalCtx, windowId, rowIds);
+		}
+
 		final String viewSelectionId = orderedSelection.getSelectionId();
 		final String adLanguage = viewEvalCtx.getAD_Language();
 
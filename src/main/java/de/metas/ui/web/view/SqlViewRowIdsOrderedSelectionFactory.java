@@ -2,6 +2,7 @@ package de.metas.ui.web.view;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.security.IUserRolePermissions;
@@ -21,7 +22,6 @@ import de.metas.ui.web.view.descriptor.SqlViewBinding;
 import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
 import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder.SqlAndParams;
 import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder.SqlCreateSelection;
-import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.model.DocumentQueryOrderBy;
@@ -80,12 +80,7 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 	public ViewRowIdsOrderedSelection createOrderedSelection(final ViewEvaluationCtx viewEvalCtx, final WindowId windowId, final List<DocumentFilter> filters, final List<DocumentQueryOrderBy> orderBys)
 	{
 		final ViewId viewId = ViewId.random(windowId);
-
-		final UserRolePermissionsKey permissionsKey = viewEvalCtx.getPermissionsKey();
-		final IUserRolePermissions permissions = Services.get(IUserRolePermissionsDAO.class).retrieveUserRolePermissions(permissionsKey);
-		final int queryLimit = permissions.getConstraint(WindowMaxQueryRecordsConstraint.class)
-				.or(WindowMaxQueryRecordsConstraint.DEFAULT)
-				.getMaxQueryRecordsPerRole();
+		final int queryLimit = retrieveQueryLimit(viewEvalCtx);
 
 		//
 		//
@@ -120,6 +115,16 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 				.build();
 	}
 
+	/** @return max records which are allowed to be fetched for current role */
+	static int retrieveQueryLimit(final ViewEvaluationCtx viewEvalCtx)
+	{
+		final UserRolePermissionsKey permissionsKey = viewEvalCtx.getPermissionsKey();
+		final IUserRolePermissions permissions = Services.get(IUserRolePermissionsDAO.class).retrieveUserRolePermissions(permissionsKey);
+		return permissions.getConstraint(WindowMaxQueryRecordsConstraint.class)
+				.or(WindowMaxQueryRecordsConstraint.DEFAULT)
+				.getMaxQueryRecordsPerRole();
+	}
+
 	@Override
 	public ViewRowIdsOrderedSelection createOrderedSelectionFromSelection(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection fromSelection, final List<DocumentQueryOrderBy> orderBys)
 	{
@@ -172,35 +177,10 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 		}
 
 		//
-		// Add
-		boolean hasChanges = false;
-		final String selectionId = selection.getSelectionId();
-		for (final DocumentId rowId : rowIds.toSet())
-		{
-			final List<Object> sqlParams = new ArrayList<>();
-			final String sqlAdd = newSqlViewSelectionQueryBuilder().buildSqlAddRowIdsFromSelection(sqlParams, selectionId, rowId);
-			final int added = DB.executeUpdateEx(sqlAdd, sqlParams.toArray(), ITrx.TRXNAME_ThreadInherited);
-			if (added <= 0)
-			{
-				continue;
-			}
-
-			hasChanges = true;
-		}
-		if (!hasChanges)
-		{
-			// nothing changed
-			return selection;
-		}
-
-		//
-		// Retrieve current size
-		// NOTE: we are querying it instead of adding how many we added to current "size" because it might be that the size is staled
-		final int size = retrieveSize(selectionId);
-
-		return selection.toBuilder()
-				.setSize(size)
-				.build();
+		// Add all row IDs in one go
+		final int[] rowIdsToAdd = rowIds.toIntSet().stream().mapToInt(Integer::intValue).toArray();
+		final SqlAndParams sqlAdd = SqlViewSelectionQueryBuilder.buildSqlAddRowIdsToSelection(selection.getSelectionId(), rowIdsToAdd);
+		return updateSelectionAndGetNewSize(selection, sqlAdd);
 	}
 
 	@Override
@@ -213,35 +193,58 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 		}
 
 		//
-		// Delete
+		// Delete all row IDs in one go
+		final SqlAndParams sqlRemove = SqlViewSelectionQueryBuilder.buildSqlRemoveRowIdsFromSelection(selection.getSelectionId(), rowIds);
+		return updateSelectionAndGetNewSize(selection, sqlRemove);
+	}
+
+	/**
+	 * Executes given add/remove SQL (see {@link SqlViewSelectionQueryBuilder#buildSqlAddRowIdsToSelection(String, int[])})
+	 *
+	 * @return selection with updated size or the same selection if nothing changed
+	 */
+	private static ViewRowIdsOrderedSelection updateSelectionAndGetNewSize(final ViewRowIdsOrderedSelection selection, final SqlAndParams sqlAndParams)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final int countChanged = DB.executeUpdateEx(sqlAndParams.getSql(), sqlAndParams.getSqlParamsArray(), ITrx.TRXNAME_ThreadInherited);
+		if (countChanged <= 0)
 		{
-			final String sqlDelete = newSqlViewSelectionQueryBuilder().buildSqlDeleteRowIdsFromSelection(selection.getSelectionId(), rowIds);
-			final int deleted = DB.executeUpdateEx(sqlDelete, ITrx.TRXNAME_ThreadInherited);
-			if (deleted <= 0)
-			{
-				// nothing changed
-				return selection;
-			}
+			// nothing changed
+			return selection;
 		}
 
 		//
 		// Retrieve current size
-		// NOTE: we are querying it instead of subtracting "deleted" from current "size" because it might be that the size is staled
+		// NOTE: we are querying it instead of adding/subtracting the changed count to/from current "size" because it might be that the size is staled
 		final int size = retrieveSize(selection.getSelectionId());
+		logger.trace("Updated selection {}: countChanged={}, size={}, duration={}", selection, countChanged, size, stopwatch);
 
 		return selection.toBuilder()
 				.setSize(size)
 				.build();
 	}
 
-	private final int retrieveSize(final String selectionId)
+	private static int retrieveSize(final String selectionId)
 	{
 		final List<Object> sqlParams = new ArrayList<>();
-		final String sqlCount = newSqlViewSelectionQueryBuilder().buildSqlRetrieveSize(sqlParams, selectionId);
+		final String sqlCount = SqlViewSelectionQueryBuilder.buildSqlRetrieveSize(sqlParams, selectionId);
 		final int size = DB.getSQLValueEx(ITrx.TRXNAME_ThreadInherited, sqlCount, sqlParams);
 		return size <= 0 ? 0 : size;
 	}
 
+	@Override
+	public void scheduleDeleteSelections(final Set<String> selectionIds)
+	{
+		SqlViewSelectionsCleaner.instance.scheduleDelete(selectionIds);
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection getInMemorySelectionOrNull(final ViewId viewId)
+	{
+		// we keep the selections in database
+		return null;
+	}
+
 	public boolean containsAnyOfRowIds(final String selectionId, final DocumentIdsSelection rowIds)
 	{
 		if (rowIds.isEmpty())
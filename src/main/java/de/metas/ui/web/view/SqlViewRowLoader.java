@@ -0,0 +1,118 @@
+package de.metas.ui.web.view;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+
+import org.slf4j.Logger;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding;
+import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding.SqlViewRowFieldLoader;
+import de.metas.ui.web.window.datatypes.WindowId;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Loads {@link IViewRow}s from a {@link ResultSet}.
+ *
+ * The field names and loaders are resolved once (when this loader is created) into arrays,
+ * so loading a row is only a loop over those arrays.
+ *
+ * NOTE: the columns are still read by name, by the field loaders, because those are the same {@link de.metas.ui.web.window.descriptor.sql.DocumentFieldValueLoader}s which are used to load documents.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class SqlViewRowLoader
+{
+	public static final SqlViewRowLoader of(@NonNull final Collection<SqlViewRowFieldBinding> fields)
+	{
+		return new SqlViewRowLoader(fields);
+	}
+
+	private static final Logger logger = LogManager.getLogger(SqlViewRowLoader.class);
+
+	private final String[] fieldNames;
+	private final SqlViewRowFieldLoader[] fieldLoaders;
+	/** Index of the key field in {@link #fieldNames} or -1 if there is no key field */
+	private final int keyFieldIndex;
+
+	private SqlViewRowLoader(final Collection<SqlViewRowFieldBinding> fields)
+	{
+		final int fieldsCount = fields.size();
+		fieldNames = new String[fieldsCount];
+		fieldLoaders = new SqlViewRowFieldLoader[fieldsCount];
+
+		int keyFieldIndex = -1;
+		int index = 0;
+		for (final SqlViewRowFieldBinding field : fields)
+		{
+			fieldNames[index] = field.getFieldName();
+			fieldLoaders[index] = field.getFieldLoader();
+			if (field.isKeyColumn())
+			{
+				keyFieldIndex = index;
+			}
+			index++;
+		}
+
+		this.keyFieldIndex = keyFieldIndex;
+	}
+
+	/**
+	 * @return loaded row or <code>null</code> if the current row has no ID
+	 */
+	public IViewRow loadViewRow(final ResultSet rs, final WindowId windowId, final String adLanguage) throws SQLException
+	{
+		final ViewRow.Builder viewRowBuilder = ViewRow.builder(windowId, fieldNames.length);
+
+		//
+		// Load the key first, because in case the record is missing, we want to fail fast
+		final Object keyValue;
+		if (keyFieldIndex >= 0)
+		{
+			keyValue = fieldLoaders[keyFieldIndex].retrieveValueAsJson(rs, adLanguage);
+			if (keyValue == null)
+			{
+				logger.warn("No ID found for current row. Skipping the row.");
+				return null;
+			}
+
+			viewRowBuilder.setRowIdFromObject(keyValue);
+		}
+		else
+		{
+			keyValue = null;
+		}
+
+		for (int index = 0; index < fieldNames.length; index++)
+		{
+			final Object value = index == keyFieldIndex ? keyValue : fieldLoaders[index].retrieveValueAsJson(rs, adLanguage);
+			viewRowBuilder.putFieldValue(fieldNames[index], value);
+		}
+
+		return viewRowBuilder.build();
+	}
+}
@@ -0,0 +1,223 @@
+package de.metas.ui.web.view;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.Services;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Asynchronously deletes the T_WEBUI_ViewSelection and T_WEBUI_ViewSelectionLine rows of the selections which are no longer used (e.g. because the view was closed).
+ *
+ * Selection IDs are enqueued by {@link #scheduleDelete(Collection)} and they are deleted in chunks by a background thread.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public final class SqlViewSelectionsCleaner
+{
+	public static final transient SqlViewSelectionsCleaner instance = new SqlViewSelectionsCleaner();
+
+	private static final transient Logger logger = LogManager.getLogger(SqlViewSelectionsCleaner.class);
+
+	/** How many selections (UUIDs) shall be deleted in one SQL statement */
+	private static final String SYSCONFIG_ChunkSize = "de.metas.ui.web.view.SqlViewSelectionsCleaner.ChunkSize";
+	private static final int DEFAULT_ChunkSize = 100;
+
+	/**
+	 * If enabled, all selections which are found in database on startup will be deleted.
+	 * Enable it only if there is only one webui-api instance running against the database, else we would delete the selections of the other (running) instances.
+	 */
+	private static final String SYSCONFIG_SweepOnStartup = "de.metas.ui.web.view.SqlViewSelectionsCleaner.SweepOnStartup";
+
+	private static final long DELETE_PERIOD_MILLIS = 5000;
+
+	private final ScheduledExecutorService executor;
+	private final LinkedBlockingQueue<String> selectionIdsToDelete = new LinkedBlockingQueue<>();
+
+	private final AtomicLong countSelectionsDeleted = new AtomicLong(0);
+	private final AtomicLong countRowsDeleted = new AtomicLong(0);
+	private final AtomicLong countLinesDeleted = new AtomicLong(0);
+	private final AtomicLong countErrors = new AtomicLong(0);
+
+	private SqlViewSelectionsCleaner()
+	{
+		executor = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(getClass().getName())
+				.setDaemon(true)
+				.build());
+		executor.scheduleWithFixedDelay(this::deleteScheduledSelections, DELETE_PERIOD_MILLIS, DELETE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Enqueues given selections to be deleted. This method returns immediately, the actual deletion is performed asynchronously.
+	 */
+	public void scheduleDelete(final Collection<String> selectionIds)
+	{
+		if (selectionIds == null || selectionIds.isEmpty())
+		{
+			return;
+		}
+
+		selectionIdsToDelete.addAll(selectionIds);
+		logger.debug("Scheduled to delete selections: {}", selectionIds);
+	}
+
+	/**
+	 * Enqueues for deletion all the selections which are currently present in database, if enabled by sysconfig.
+	 *
+	 * Shall be called on startup, before any view is created.
+	 */
+	public void scheduleDeleteAllIfSweepOnStartupEnabled()
+	{
+		final boolean sweepOnStartup = Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_SweepOnStartup, false);
+		if (!sweepOnStartup)
+		{
+			logger.info("Skip deleting orphan view selections on startup because {} is not enabled", SYSCONFIG_SweepOnStartup);
+			return;
+		}
+
+		try
+		{
+			final List<String> selectionIds = retrieveAllSelectionIds();
+			scheduleDelete(selectionIds);
+			logger.info("Scheduled {} orphan view selections to be deleted", selectionIds.size());
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed scheduling orphan view selections to be deleted. Ignored.", ex);
+		}
+	}
+
+	private static List<String> retrieveAllSelectionIds()
+	{
+		final String sql = SqlViewSelectionQueryBuilder.buildSqlSelectAllSelectionIds();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			rs = pstmt.executeQuery();
+
+			final List<String> selectionIds = new ArrayList<>();
+			while (rs.next())
+			{
+				selectionIds.add(rs.getString(1));
+			}
+			return selectionIds;
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, new Object[] {});
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private void deleteScheduledSelections()
+	{
+		try
+		{
+			final int chunkSize = getChunkSize();
+			final List<String> chunk = new ArrayList<>(chunkSize);
+			while (selectionIdsToDelete.drainTo(chunk, chunkSize) > 0)
+			{
+				deleteSelections(chunk);
+				chunk.clear();
+			}
+		}
+		catch (final Throwable ex)
+		{
+			// NOTE: never propagate the exception because that would stop the scheduled executor
+			logger.warn("Failed deleting scheduled selections. Ignored.", ex);
+		}
+	}
+
+	private void deleteSelections(final List<String> selectionIds)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		try
+		{
+			final List<Object> sqlLinesParams = new ArrayList<>();
+			final String sqlDeleteLines = SqlViewSelectionQueryBuilder.buildSqlDeleteSelectionLines(sqlLinesParams, selectionIds);
+			final int linesDeleted = DB.executeUpdateEx(sqlDeleteLines, sqlLinesParams.toArray(), ITrx.TRXNAME_None);
+
+			final List<Object> sqlParams = new ArrayList<>();
+			final String sqlDelete = SqlViewSelectionQueryBuilder.buildSqlDeleteSelection(sqlParams, selectionIds);
+			final int rowsDeleted = DB.executeUpdateEx(sqlDelete, sqlParams.toArray(), ITrx.TRXNAME_None);
+
+			countSelectionsDeleted.addAndGet(selectionIds.size());
+			countLinesDeleted.addAndGet(linesDeleted);
+			countRowsDeleted.addAndGet(rowsDeleted);
+			logger.debug("Deleted {} selections: rowsDeleted={}, linesDeleted={}, duration={}", selectionIds.size(), rowsDeleted, linesDeleted, stopwatch);
+		}
+		catch (final Exception ex)
+		{
+			countErrors.incrementAndGet();
+			logger.warn("Failed deleting selections {}. Ignored.", selectionIds, ex);
+		}
+	}
+
+	private static int getChunkSize()
+	{
+		final int chunkSize = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_ChunkSize, DEFAULT_ChunkSize);
+		return chunkSize > 0 ? chunkSize : DEFAULT_ChunkSize;
+	}
+
+	public Map<String, Object> getStats()
+	{
+		return ImmutableMap.<String, Object> builder()
+				.put("backlogSize", selectionIdsToDelete.size())
+				.put("selectionsDeleted", countSelectionsDeleted.get())
+				.put("rowsDeleted", countRowsDeleted.get())
+				.put("linesDeleted", countLinesDeleted.get())
+				.put("errors", countErrors.get())
+				.build();
+	}
+}
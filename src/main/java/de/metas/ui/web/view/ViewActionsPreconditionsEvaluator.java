@@ -0,0 +1,290 @@
+package de.metas.ui.web.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.metas.logging.LogManager;
+import de.metas.process.ProcessPreconditionsResolution;
+import de.metas.ui.web.process.ProcessId;
+import de.metas.ui.web.process.descriptor.WebuiRelatedProcessDescriptor;
+import de.metas.ui.web.view.event.ViewChangesCollector;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import de.metas.ui.web.websocket.WebSocketConfig;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Evaluates the preconditions of view actions.
+ *
+ * <ul>
+ * <li>preconditions are evaluated concurrently, on a bounded executor shared by all views. Each action is evaluated with its own preconditions context,
+ * because the contexts are not thread-safe (e.g. they memorize the selected models)
+ * <li>the caller waits at most a configured time; the actions which were not evaluated until then are returned as disabled ("pending")
+ * and when they are evaluated an "actionsChanged" event is sent on view's websocket topic (see {@link WebSocketConfig#buildViewNotificationsTopicName(String)}),
+ * so the frontend can ask for the actions again
+ * <li>if the executor's queue is full, the action is not evaluated at all and it's returned as pending
+ * <li>evaluated preconditions are memorized per view, selected rows, process and view change version (see {@link ViewChangesCollector#getViewChangeVersion(ViewId)}),
+ * so selecting the same rows again does not evaluate them again as long as the view was not changed
+ * </ul>
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class ViewActionsPreconditionsEvaluator
+{
+	private static final Logger logger = LogManager.getLogger(ViewActionsPreconditionsEvaluator.class);
+
+	private static final ProcessPreconditionsResolution RESOLUTION_Pending = ProcessPreconditionsResolution.reject("Checking if the action is applicable...");
+
+	private final ThreadPoolExecutor executor;
+	private final long timeoutMillis;
+	private final Cache<PreconditionsKey, ProcessPreconditionsResolution> resolutions;
+
+	/* package */ ViewActionsPreconditionsEvaluator(
+			@Value("${metasfresh.webui.view.actions.preconditions.threads:4}") final int threads,
+			@Value("${metasfresh.webui.view.actions.preconditions.queueSize:200}") final int queueSize,
+			@Value("${metasfresh.webui.view.actions.preconditions.timeoutMillis:2000}") final long timeoutMillis,
+			@Value("${metasfresh.webui.view.actions.preconditions.cacheMaxSize:10000}") final int cacheMaxSize,
+			@Value("${metasfresh.webui.view.actions.preconditions.cacheExpireMinutes:10}") final int cacheExpireMinutes)
+	{
+		final int threadsEffective = Math.max(threads, 1);
+		executor = new ThreadPoolExecutor(
+				threadsEffective, threadsEffective,
+				0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(Math.max(queueSize, 1)),
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(ViewActionsPreconditionsEvaluator.class.getName())
+						.setDaemon(true)
+						.build(),
+				// If the executor is busy, reject (the action will be returned as pending); don't evaluate in the request thread because that would ignore the time budget
+				new ThreadPoolExecutor.AbortPolicy());
+
+		this.timeoutMillis = timeoutMillis;
+
+		// NOTE: the view change version is the actual invalidation key; expiring is only there for data which is not tracked as view changes (e.g. the records behind the rows were changed)
+		resolutions = CacheBuilder.newBuilder()
+				.maximumSize(cacheMaxSize)
+				.expireAfterWrite(cacheExpireMinutes, TimeUnit.MINUTES)
+				.build();
+
+		logger.info("View actions preconditions evaluator: threads={}, queueSize={}, timeoutMillis={}, cacheMaxSize={}, cacheExpireMinutes={}",
+				threadsEffective, queueSize, timeoutMillis, cacheMaxSize, cacheExpireMinutes);
+	}
+
+	/**
+	 * Evaluates the preconditions of the actions provided by given factory.
+	 *
+	 * @param actionsFactory creates the actions. It's called once, in the current thread.
+	 * @param actionFactory creates the action for given process ID, with a new preconditions context (or returns null if it's no longer available).
+	 *            It's called in the current thread, once for each action which has to be evaluated.
+	 * @return the actions, in the same order, with the preconditions evaluated; the actions which were not evaluated in time are returned as disabled
+	 */
+	public List<WebuiRelatedProcessDescriptor> evaluate(
+			@NonNull final ViewId viewId,
+			@NonNull final DocumentIdsSelection selectedRowIds,
+			@NonNull final Supplier<List<WebuiRelatedProcessDescriptor>> actionsFactory,
+			@NonNull final Function<ProcessId, WebuiRelatedProcessDescriptor> actionFactory)
+	{
+		final List<WebuiRelatedProcessDescriptor> actions = actionsFactory.get();
+		if (actions.isEmpty())
+		{
+			return actions;
+		}
+
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		final long viewChangeVersion = ViewChangesCollector.getViewChangeVersion(viewId);
+		final int adRoleId = Env.getAD_Role_ID(ctx);
+
+		//
+		// Start evaluating the actions which are not already memorized
+		final List<CompletableFuture<ProcessPreconditionsResolution>> futures = new ArrayList<>(actions.size());
+		for (final WebuiRelatedProcessDescriptor action : actions)
+		{
+			final PreconditionsKey key = PreconditionsKey.of(viewId, selectedRowIds, action.getProcessId(), viewChangeVersion, adRoleId);
+			final ProcessPreconditionsResolution resolution = resolutions.getIfPresent(key);
+			if (resolution != null)
+			{
+				futures.add(CompletableFuture.completedFuture(resolution));
+			}
+			else
+			{
+				// NOTE: don't share the preconditions context (and the selected models) between concurrently evaluated actions
+				final WebuiRelatedProcessDescriptor actionWithOwnContext = actionFactory.apply(action.getProcessId());
+				futures.add(evaluateAsync(ctx, key, actionWithOwnContext));
+			}
+		}
+
+		//
+		// Wait for them, until the time budget is consumed
+		final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		final List<WebuiRelatedProcessDescriptor> result = new ArrayList<>(actions.size());
+		final List<CompletableFuture<ProcessPreconditionsResolution>> pendingFutures = new ArrayList<>();
+		for (int i = 0; i < actions.size(); i++)
+		{
+			final WebuiRelatedProcessDescriptor action = actions.get(i);
+			final CompletableFuture<ProcessPreconditionsResolution> future = futures.get(i);
+
+			final ProcessPreconditionsResolution resolution = getOrNullIfTimeout(future, deadlineNanos);
+			if (resolution != null)
+			{
+				result.add(action.withPreconditionsResolution(resolution));
+			}
+			else
+			{
+				result.add(action.withPreconditionsResolution(RESOLUTION_Pending));
+				if (future != null)
+				{
+					pendingFutures.add(future);
+				}
+			}
+		}
+
+		//
+		// Notify the frontend when the pending ones are evaluated
+		if (!pendingFutures.isEmpty())
+		{
+			logger.debug("{} actions of {} were not evaluated in {}ms. Notifying when they are.", pendingFutures.size(), viewId, timeoutMillis);
+			CompletableFuture.allOf(pendingFutures.toArray(new CompletableFuture<?>[pendingFutures.size()]))
+					.whenComplete((r, ex) -> fireActionsChanged(viewId));
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return future or <code>null</code> if the executor is busy and the action was not scheduled for evaluation
+	 */
+	private CompletableFuture<ProcessPreconditionsResolution> evaluateAsync(final Properties ctx, final PreconditionsKey key, final WebuiRelatedProcessDescriptor action)
+	{
+		try
+		{
+			return CompletableFuture.supplyAsync(() -> evaluate(ctx, key, action), executor);
+		}
+		catch (final RejectedExecutionException ex)
+		{
+			// NOTE: no "actionsChanged" event will be sent for it; the frontend will get the actions evaluated next time when it asks for them
+			logger.debug("Executor is busy. Not evaluating the preconditions of {}", action);
+			return null;
+		}
+	}
+
+	private ProcessPreconditionsResolution evaluate(final Properties ctx, final PreconditionsKey key, final WebuiRelatedProcessDescriptor action)
+	{
+		if (action == null)
+		{
+			return ProcessPreconditionsResolution.reject("Action is no longer available");
+		}
+
+		try (final IAutoCloseable c = Env.switchContext(ctx))
+		{
+			final ProcessPreconditionsResolution resolution = action.getPreconditionsResolution();
+			resolutions.put(key, resolution);
+			return resolution;
+		}
+		catch (final Exception ex)
+		{
+			// NOTE: reject only this action and don't memorize it, maybe it's a temporary issue
+			logger.warn("Failed evaluating the preconditions of {}. Rejecting it.", action, ex);
+			return ProcessPreconditionsResolution.reject(AdempiereException.wrapIfNeeded(ex).getLocalizedMessage());
+		}
+	}
+
+	private ProcessPreconditionsResolution getOrNullIfTimeout(final CompletableFuture<ProcessPreconditionsResolution> future, final long deadlineNanos)
+	{
+		if (future == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			if (timeoutMillis <= 0)
+			{
+				return future.get();
+			}
+
+			final long remainingNanos = Math.max(deadlineNanos - System.nanoTime(), 0);
+			return future.get(remainingNanos, TimeUnit.NANOSECONDS);
+		}
+		catch (final TimeoutException ex)
+		{
+			return null;
+		}
+		catch (final ExecutionException ex)
+		{
+			final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+			logger.warn("Failed evaluating preconditions. Rejecting the action.", cause);
+			return ProcessPreconditionsResolution.reject(AdempiereException.wrapIfNeeded(cause).getLocalizedMessage());
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+	}
+
+	private static void fireActionsChanged(final ViewId viewId)
+	{
+		try
+		{
+			ViewChangesCollector.getCurrentOrAutoflush().collectActionsChanged(viewId);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed notifying that actions of {} changed", viewId, ex);
+		}
+	}
+
+	@lombok.Value(staticConstructor = "of")
+	private static final class PreconditionsKey
+	{
+		private final ViewId viewId;
+		private final DocumentIdsSelection selectedRowIds;
+		private final ProcessId processId;
+		private final long viewChangeVersion;
+		private final int adRoleId;
+	}
+}
@@ -0,0 +1,459 @@
+package de.metas.ui.web.view;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.Services;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.CCache;
+import org.compiere.util.CCache.CCacheStats;
+import org.compiere.util.CacheMgt;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.window.datatypes.DocumentId;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Caches the pages of a view, keyed by ordered selection and page window (firstRow, pageLength).
+ *
+ * Pages are invalidated when:
+ * <ul>
+ * <li>the view is notified that some rows were changed (see {@link #invalidate(DocumentIdsSelection)})
+ * <li>the cache of view's table is reset, which also happens when records of that table are changed from other windows
+ * <li>they are older than <code>ExpireAfterMinutes</code> (default 1 minute)
+ * </ul>
+ *
+ * NOTE about staleness: rows might also display data from other tables (e.g. lookup display names or SQL columns).
+ * Changing that data is neither notified to the view nor resetting the cache of view's table,
+ * so such a change might not be visible in a cached page for up to <code>ExpireAfterMinutes</code>.
+ * Set it to zero to disable the cache if that's not acceptable.
+ *
+ * Optionally, after a page is served, the next <code>PrefetchPages</code> pages are prefetched asynchronously.
+ * Prefetching is disabled by default because each prefetched page which is not served is an additional database query.
+ * Prefetches which are running when the cache is invalidated are discarded.
+ *
+ * The cache statistics (see {@link #getStats()}) are those of the pages cache.
+ * The prefetching statistics (see {@link #getPrefetchStats()}) are counting the prefetched pages which were served
+ * and those which were removed from cache (invalidated, evicted or discarded) before being served.
+ *
+ * All internal state, except the pages cache itself, is guarded by this object's monitor.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class ViewPagesCache
+{
+	private static final transient Logger logger = LogManager.getLogger(ViewPagesCache.class);
+
+	/** How many pages to prefetch after a page was served. Zero (default) disables prefetching. */
+	private static final String SYSCONFIG_PrefetchPages = "de.metas.ui.web.view.ViewPagesCache.PrefetchPages";
+	private static final int DEFAULT_PrefetchPages = 0;
+
+	private static final String SYSCONFIG_MaxSize = "de.metas.ui.web.view.ViewPagesCache.MaxSize";
+	private static final int DEFAULT_MaxSize = 20;
+
+	/** How long a page is kept, i.e. for how long a page might show staled data from other tables. Set it to zero to disable the cache. */
+	private static final String SYSCONFIG_ExpireAfterMinutes = "de.metas.ui.web.view.ViewPagesCache.ExpireAfterMinutes";
+	private static final int DEFAULT_ExpireAfterMinutes = 1;
+
+	/** Shared by all views */
+	private static final ExecutorService sharedPrefetchExecutor = Executors.newFixedThreadPool(2, CustomizableThreadFactory.builder()
+			.setThreadNamePrefix(ViewPagesCache.class.getName() + "-prefetch")
+			.setDaemon(true)
+			.build());
+
+	private final boolean enabled;
+	private final int prefetchPages;
+	private final Executor prefetchExecutor;
+
+	private final CCache<PageKey, ImmutableList<IViewRow>> pages;
+	/**
+	 * Cache which is named after view's table, so it's reset together with the other caches of that table (see {@link CacheMgt}).
+	 * When its marker entry is missing, all pages are invalidated.
+	 */
+	private final CCache<Integer, Boolean> tableCacheResetMarker;
+	private static final Integer MARKER_KEY = 0;
+
+	/**
+	 * The row IDs of each cached page, needed to invalidate only the pages which contain changed rows.
+	 * A page is cached only as long as it's tracked here.
+	 */
+	private final LinkedHashMap<PageKey, PageInfo> pageInfos;
+	/** Pages which are currently prefetched */
+	private final Set<PageKey> prefetchingPages = new HashSet<>();
+	/** Incremented on each invalidation, so pages which were loaded before are not added to cache */
+	private long generation = 0;
+	private boolean closed = false;
+
+	private long countPrefetched = 0;
+	private long countPrefetchedServed = 0;
+
+	/**
+	 * @param cacheName cache name, starting with view's table name (e.g. "C_Order#pages#...")
+	 */
+	ViewPagesCache(@NonNull final String cacheName)
+	{
+		this(cacheName,
+				Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_MaxSize, DEFAULT_MaxSize),
+				Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_ExpireAfterMinutes, DEFAULT_ExpireAfterMinutes),
+				Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_PrefetchPages, DEFAULT_PrefetchPages),
+				sharedPrefetchExecutor);
+	}
+
+	/* package */ ViewPagesCache(
+			@NonNull final String cacheName,
+			final int maxSizeConfig,
+			final int expireAfterMinutes,
+			final int prefetchPages,
+			@NonNull final Executor prefetchExecutor)
+	{
+		final int maxSize = maxSizeConfig > 0 ? maxSizeConfig : DEFAULT_MaxSize;
+		enabled = expireAfterMinutes > 0;
+		this.prefetchPages = enabled ? Math.max(prefetchPages, 0) : 0;
+		this.prefetchExecutor = prefetchExecutor;
+
+		pages = CCache.newLRUCache(cacheName, maxSize, Math.max(expireAfterMinutes, 0));
+		pageInfos = new LinkedHashMap<PageKey, PageInfo>(maxSize + 1, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<PageKey, PageInfo> eldest)
+			{
+				if (size() <= maxSize)
+				{
+					return false;
+				}
+
+				// we can't invalidate a page without its row IDs, so we don't keep it
+				pages.remove(eldest.getKey());
+				return true;
+			}
+		};
+
+		tableCacheResetMarker = new CCache<>(cacheName + "#resetMarker", 1);
+		tableCacheResetMarker.put(MARKER_KEY, Boolean.TRUE);
+	}
+
+	public List<IViewRow> getOrLoad(
+			@NonNull final ViewRowIdsOrderedSelection orderedSelection,
+			final int firstRow,
+			final int pageLength,
+			@NonNull final PageLoader pageLoader)
+	{
+		if (!enabled)
+		{
+			return pageLoader.loadPage(orderedSelection, firstRow, pageLength);
+		}
+
+		invalidateAllIfTableCacheWasReset();
+
+		final PageKey pageKey = PageKey.of(orderedSelection, firstRow, pageLength);
+		ImmutableList<IViewRow> page;
+		final long loadGeneration;
+		synchronized (this)
+		{
+			page = getCachedPage(pageKey);
+			loadGeneration = generation;
+		}
+
+		if (page == null)
+		{
+			// NOTE: if the page is currently prefetched we are not waiting for it, because that would make this request as slow as the prefetch
+			page = ImmutableList.copyOf(pageLoader.loadPage(orderedSelection, firstRow, pageLength));
+			putPageIfNotInvalidated(pageKey, page, loadGeneration, false);
+		}
+
+		prefetchNextPages(orderedSelection, firstRow, pageLength, pageLoader);
+
+		return page;
+	}
+
+	/**
+	 * @return cached page or null; a prefetched page is counted as served
+	 */
+	private ImmutableList<IViewRow> getCachedPage(final PageKey pageKey)
+	{
+		final PageInfo pageInfo = pageInfos.get(pageKey);
+		if (pageInfo == null)
+		{
+			return null;
+		}
+
+		final ImmutableList<IViewRow> page = pages.get(pageKey);
+		if (page == null)
+		{
+			// expired
+			pageInfos.remove(pageKey);
+			return null;
+		}
+
+		if (pageInfo.isPrefetchedNotServed())
+		{
+			pageInfo.setServed();
+			countPrefetchedServed++;
+		}
+		return page;
+	}
+
+	/**
+	 * Adds the page to cache, unless the cache was invalidated since the page loading started.
+	 *
+	 * @return true if added
+	 */
+	private synchronized boolean putPageIfNotInvalidated(final PageKey pageKey, final ImmutableList<IViewRow> page, final long loadGeneration, final boolean prefetched)
+	{
+		if (closed || generation != loadGeneration)
+		{
+			return false;
+		}
+
+		final ImmutableSet<DocumentId> rowIds = page.stream().map(IViewRow::getId).collect(ImmutableSet.toImmutableSet());
+		pageInfos.put(pageKey, new PageInfo(rowIds, prefetched));
+		pages.put(pageKey, page);
+		return true;
+	}
+
+	private void prefetchNextPages(
+			final ViewRowIdsOrderedSelection orderedSelection,
+			final int firstRow,
+			final int pageLength,
+			final PageLoader pageLoader)
+	{
+		if (prefetchPages <= 0)
+		{
+			return;
+		}
+
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		final long size = orderedSelection.getSize();
+
+		synchronized (this)
+		{
+			for (int i = 1; i <= prefetchPages && !closed; i++)
+			{
+				final int prefetchFirstRow = firstRow + i * pageLength;
+				if (prefetchFirstRow >= size)
+				{
+					break;
+				}
+
+				final PageKey prefetchPageKey = PageKey.of(orderedSelection, prefetchFirstRow, pageLength);
+				if (pageInfos.containsKey(prefetchPageKey) || prefetchingPages.contains(prefetchPageKey))
+				{
+					continue;
+				}
+
+				final long prefetchGeneration = generation;
+				prefetchingPages.add(prefetchPageKey);
+				prefetchExecutor.execute(() -> prefetchPage(ctx, prefetchPageKey, orderedSelection, pageLoader, prefetchGeneration));
+			}
+		}
+	}
+
+	private void prefetchPage(
+			final Properties ctx,
+			final PageKey pageKey,
+			final ViewRowIdsOrderedSelection orderedSelection,
+			final PageLoader pageLoader,
+			final long prefetchGeneration)
+	{
+		try (final IAutoCloseable c = Env.switchContext(ctx))
+		{
+			synchronized (this)
+			{
+				if (closed || generation != prefetchGeneration)
+				{
+					return;
+				}
+			}
+
+			final ImmutableList<IViewRow> page = ImmutableList.copyOf(pageLoader.loadPage(orderedSelection, pageKey.getFirstRow(), pageKey.getPageLength()));
+			synchronized (this)
+			{
+				countPrefetched++;
+				if (!putPageIfNotInvalidated(pageKey, page, prefetchGeneration, true))
+				{
+					logger.trace("Discarded prefetched page {} because the cache was invalidated meanwhile", pageKey);
+					return;
+				}
+			}
+			logger.trace("Prefetched page {}", pageKey);
+		}
+		catch (final RuntimeException ex)
+		{
+			logger.warn("Failed prefetching page {}", pageKey, ex);
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				prefetchingPages.remove(pageKey);
+			}
+		}
+	}
+
+	private void invalidateAllIfTableCacheWasReset()
+	{
+		if (tableCacheResetMarker.get(MARKER_KEY) != null)
+		{
+			return;
+		}
+
+		logger.trace("Invalidating all pages because table cache was reset");
+		invalidateAll();
+		tableCacheResetMarker.put(MARKER_KEY, Boolean.TRUE);
+	}
+
+	/**
+	 * Invalidates only the cached pages which contain at least one of given rows.
+	 */
+	public void invalidate(@NonNull final DocumentIdsSelection rowIds)
+	{
+		if (rowIds.isEmpty())
+		{
+			return;
+		}
+		else if (rowIds.isAll())
+		{
+			invalidateAll();
+			return;
+		}
+
+		final Set<DocumentId> rowIdsSet = rowIds.toSet();
+		synchronized (this)
+		{
+			generation++; // pages which are currently loaded or prefetched won't be added to cache
+
+			for (final Iterator<Map.Entry<PageKey, PageInfo>> it = pageInfos.entrySet().iterator(); it.hasNext();)
+			{
+				final Map.Entry<PageKey, PageInfo> pageKeyAndInfo = it.next();
+				if (pageKeyAndInfo.getValue().containsAnyRowId(rowIdsSet))
+				{
+					it.remove();
+					pages.remove(pageKeyAndInfo.getKey());
+				}
+			}
+		}
+	}
+
+	public synchronized void invalidateAll()
+	{
+		generation++; // pages which are currently loaded or prefetched won't be added to cache
+		pageInfos.clear();
+		pages.clear();
+	}
+
+	public synchronized void close()
+	{
+		closed = true;
+		invalidateAll();
+	}
+
+	public List<CCacheStats> getStats()
+	{
+		return ImmutableList.of(pages.stats());
+	}
+
+	/**
+	 * @return prefetching statistics: prefetched pages, how many of them were served, are not served yet
+	 *         and how many were removed from cache (or discarded) before being served
+	 */
+	public synchronized Map<String, Object> getPrefetchStats()
+	{
+		final long countNotServedYet = pageInfos.values().stream().filter(PageInfo::isPrefetchedNotServed).count();
+		return ImmutableMap.<String, Object> builder()
+				.put("prefetched", countPrefetched)
+				.put("served", countPrefetchedServed)
+				.put("notServedYet", countNotServedYet)
+				.put("wasted", countPrefetched - countPrefetchedServed - countNotServedYet)
+				.build();
+	}
+
+	@FunctionalInterface
+	public static interface PageLoader
+	{
+		List<IViewRow> loadPage(ViewRowIdsOrderedSelection orderedSelection, int firstRow, int pageLength);
+	}
+
+	@lombok.Value(staticConstructor = "of")
+	private static final class PageKey
+	{
+		public static PageKey of(final ViewRowIdsOrderedSelection orderedSelection, final int firstRow, final int pageLength)
+		{
+			return of(orderedSelection.getSelectionId(), orderedSelection.getSize(), firstRow, pageLength);
+		}
+
+		private final String selectionId;
+		/** Part of the key because the selection (having the same ID) might be changed by adding/removing rows */
+		private final long selectionSize;
+		private final int firstRow;
+		private final int pageLength;
+	}
+
+	private static final class PageInfo
+	{
+		private final ImmutableSet<DocumentId> rowIds;
+		private boolean prefetchedNotServed;
+
+		private PageInfo(final ImmutableSet<DocumentId> rowIds, final boolean prefetched)
+		{
+			this.rowIds = rowIds;
+			prefetchedNotServed = prefetched;
+		}
+
+		public boolean containsAnyRowId(final Set<DocumentId> rowIdsToCheck)
+		{
+			return rowIdsToCheck.stream().anyMatch(rowIds::contains);
+		}
+
+		public boolean isPrefetchedNotServed()
+		{
+			return prefetchedNotServed;
+		}
+
+		public void setServed()
+		{
+			prefetchedNotServed = false;
+		}
+	}
+}
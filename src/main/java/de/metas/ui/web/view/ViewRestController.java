@@ -2,8 +2,11 @@ package de.metas.ui.web.view;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import org.adempiere.util.GuavaCollectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -21,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import de.metas.process.IProcessPreconditionsContext;
 import de.metas.ui.web.cache.ETagResponseEntityBuilder;
 import de.metas.ui.web.config.WebConfig;
+import de.metas.ui.web.process.ProcessId;
 import de.metas.ui.web.process.ProcessRestController;
 import de.metas.ui.web.process.ViewAsPreconditionsContext;
 import de.metas.ui.web.process.descriptor.WebuiRelatedProcessDescriptor;
@@ -95,6 +99,9 @@ public class ViewRestController
 	@Autowired
 	private WindowRestController windowRestController;
 
+	@Autowired
+	private ViewActionsPreconditionsEvaluator viewActionsPreconditionsEvaluator;
+
 	private JSONOptions newJSONOptions()
 	{
 		return JSONOptions.builder(userSession).build();
@@ -260,13 +267,31 @@ public class ViewRestController
 				.transform(JSONLookupValuesList::ofLookupValuesList);
 	}
 
-	private Stream<WebuiRelatedProcessDescriptor> streamAllViewActions(final String windowId, final String viewIdStr, final String selectedRowIdsAsStringList)
+	private List<WebuiRelatedProcessDescriptor> getViewActions(
+			final String windowId,
+			final String viewIdStr,
+			final String selectedRowIdsAsStringList,
+			final Predicate<WebuiRelatedProcessDescriptor> filter)
 	{
 		final ViewId viewId = ViewId.of(windowId, viewIdStr);
 		final DocumentIdsSelection selectedRowIds = DocumentIdsSelection.ofCommaSeparatedString(selectedRowIdsAsStringList);
 		final IView view = viewsRepo.getView(viewId);
-		final IProcessPreconditionsContext preconditionsContext = ViewAsPreconditionsContext.newInstance(view, selectedRowIds);
-		return processRestController.streamDocumentRelatedProcesses(preconditionsContext);
+
+		final Supplier<List<WebuiRelatedProcessDescriptor>> actionsFactory = () -> {
+			final IProcessPreconditionsContext preconditionsContext = ViewAsPreconditionsContext.newInstance(view, selectedRowIds);
+			return processRestController.streamDocumentRelatedProcesses(preconditionsContext)
+					.filter(filter)
+					.collect(GuavaCollectors.toImmutableList());
+		};
+
+		// NOTE: each call creates a new preconditions context, because the preconditions are evaluated concurrently and the contexts are not thread-safe
+		final Function<ProcessId, WebuiRelatedProcessDescriptor> actionFactory = processId -> {
+			final IProcessPreconditionsContext preconditionsContext = ViewAsPreconditionsContext.newInstance(view, selectedRowIds);
+			return processRestController.getDocumentRelatedProcessOrNull(processId, preconditionsContext);
+		};
+
+		// Evaluate the preconditions concurrently and don't wait too long for them
+		return viewActionsPreconditionsEvaluator.evaluate(viewId, selectedRowIds, actionsFactory, actionFactory);
 	}
 
 	@GetMapping("/{viewId}/actions")
@@ -278,7 +303,8 @@ public class ViewRestController
 	{
 		userSession.assertLoggedIn();
 
-		return streamAllViewActions(windowId, viewIdStr, selectedIdsListStr)
+		return getViewActions(windowId, viewIdStr, selectedIdsListStr, action -> true)
+				.stream()
 				.filter(WebuiRelatedProcessDescriptor::isEnabled) // only those which are enabled or not silent
 				.collect(JSONDocumentActionsList.collect(newJSONOptions()));
 	}
@@ -292,8 +318,8 @@ public class ViewRestController
 	{
 		userSession.assertLoggedIn();
 
-		return streamAllViewActions(windowId, viewIdStr, selectedIdsListStr)
-				.filter(WebuiRelatedProcessDescriptor::isQuickAction)
+		return getViewActions(windowId, viewIdStr, selectedIdsListStr, WebuiRelatedProcessDescriptor::isQuickAction)
+				.stream()
 				.filter(WebuiRelatedProcessDescriptor::isEnabledOrNotSilent) // only those which are enabled or not silent
 				.collect(JSONDocumentActionsList.collect(newJSONOptions()));
 	}
@@ -43,9 +43,19 @@ public final class ViewRow implements IViewRow
 {
 	public static final Builder builder(final WindowId windowId)
 	{
-		return new Builder(windowId);
+		return new Builder(windowId, DEFAULT_FIELDS_CAPACITY);
 	}
 
+	/**
+	 * @param expectedFieldsCount how many fields the row is expected to have; used to pre-size the values map
+	 */
+	public static final Builder builder(final WindowId windowId, final int expectedFieldsCount)
+	{
+		return new Builder(windowId, expectedFieldsCount);
+	}
+
+	private static final int DEFAULT_FIELDS_CAPACITY = 16;
+
 	private final DocumentPath documentPath;
 	private final DocumentId rowId;
 	private final IViewRowType type;
@@ -146,12 +156,13 @@ public final class ViewRow implements IViewRow
 		private DocumentId rowId;
 		private IViewRowType type;
 		private Boolean processed;
-		private final Map<String, Object> values = new LinkedHashMap<>(); // preserve the insertion order of fields
+		private final Map<String, Object> values; // preserve the insertion order of fields
 		private List<IViewRow> includedRows = null;
 
-		private Builder(@NonNull final WindowId windowId)
+		private Builder(@NonNull final WindowId windowId, final int expectedFieldsCount)
 		{
 			this.windowId = windowId;
+			values = new LinkedHashMap<>(Math.max(expectedFieldsCount * 4 / 3 + 1, DEFAULT_FIELDS_CAPACITY));
 		}
 
 		public ViewRow build()
@@ -1,6 +1,8 @@
 package de.metas.ui.web.view;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import javax.annotation.concurrent.Immutable;
 
@@ -36,7 +38,7 @@ import lombok.EqualsAndHashCode;
  */
 
 @Immutable
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = "rowIdsSorted")
 public final class ViewRowIdsOrderedSelection
 {
 	public static final Builder builder()
@@ -51,11 +53,26 @@ public final class ViewRowIdsOrderedSelection
 	private final int queryLimit;
 	private final boolean queryLimitHit;
 
+	/** Ordered row IDs, in case they are kept in memory instead of T_WEBUI_ViewSelection; else null */
+	private final int[] rowIds;
+	/** Same as {@link #rowIds} but sorted, used for lookups; null if the row IDs are not kept in memory */
+	private final int[] rowIdsSorted;
+
 	private ViewRowIdsOrderedSelection(final Builder builder)
 	{
 		super();
 		viewId = builder.getViewId();
-		size = builder.getSize();
+		rowIds = builder.getRowIds();
+		if (rowIds != null)
+		{
+			rowIdsSorted = rowIds.clone();
+			Arrays.sort(rowIdsSorted);
+		}
+		else
+		{
+			rowIdsSorted = null;
+		}
+		size = rowIds != null ? rowIds.length : builder.getSize();
 		orderBys = builder.getOrderBys();
 
 		queryLimit = builder.getQueryLimit();
@@ -70,6 +87,7 @@ public final class ViewRowIdsOrderedSelection
 				.add("viewId", viewId)
 				.add("size", size)
 				.add("orderBys", orderBys.isEmpty() ? null : orderBys)
+				.add("inMemory", rowIds != null ? Boolean.TRUE : null)
 				.toString();
 	}
 	
@@ -79,7 +97,8 @@ public final class ViewRowIdsOrderedSelection
 				.setViewId(viewId)
 				.setSize(size)
 				.setOrderBys(orderBys)
-				.setQueryLimit(queryLimit);
+				.setQueryLimit(queryLimit)
+				.setRowIds(rowIds);
 	}
 
 	public ViewId getViewId()
@@ -117,6 +136,54 @@ public final class ViewRowIdsOrderedSelection
 		return queryLimitHit;
 	}
 
+	/**
+	 * @return true if the ordered row IDs are kept in memory, false if they are stored in T_WEBUI_ViewSelection
+	 */
+	public boolean isRowIdsInMemory()
+	{
+		return rowIds != null;
+	}
+
+	private int[] getRowIdsInMemory()
+	{
+		if (rowIds == null)
+		{
+			throw new IllegalStateException("Row IDs are not kept in memory for " + this);
+		}
+		return rowIds;
+	}
+
+	/**
+	 * @return in memory row IDs, in selection order
+	 * @throws IllegalStateException if the row IDs are not kept in memory
+	 */
+	public IntStream streamRowIds()
+	{
+		return Arrays.stream(getRowIdsInMemory());
+	}
+
+	/**
+	 * @param firstRow 0-based
+	 * @return in memory row IDs from given page, in selection order
+	 * @throws IllegalStateException if the row IDs are not kept in memory
+	 */
+	public int[] getRowIdsPage(final int firstRow, final int pageLength)
+	{
+		final int[] rowIds = getRowIdsInMemory();
+		final int from = Math.min(firstRow, rowIds.length);
+		final int to = Math.min(firstRow + pageLength, rowIds.length);
+		return Arrays.copyOfRange(rowIds, from, to);
+	}
+
+	/**
+	 * @throws IllegalStateException if the row IDs are not kept in memory
+	 */
+	public boolean containsRowId(final int rowId)
+	{
+		getRowIdsInMemory(); // assert in memory
+		return Arrays.binarySearch(rowIdsSorted, rowId) >= 0;
+	}
+
 	public static final class Builder
 	{
 		private ViewId viewId;
@@ -124,6 +191,7 @@ public final class ViewRowIdsOrderedSelection
 		private List<DocumentQueryOrderBy> orderBys;
 
 		private int queryLimit;
+		private int[] rowIds;
 
 		private Builder()
 		{
@@ -168,6 +236,21 @@ public final class ViewRowIdsOrderedSelection
 			return this;
 		}
 
+		/**
+		 * Sets the ordered row IDs, in case they shall be kept in memory instead of T_WEBUI_ViewSelection.
+		 * The size will be set to the number of row IDs.
+		 */
+		public Builder setRowIds(final int[] rowIds)
+		{
+			this.rowIds = rowIds == null ? null : rowIds.clone();
+			return this;
+		}
+
+		private int[] getRowIds()
+		{
+			return rowIds;
+		}
+
 		public Builder setQueryLimit(final int queryLimit)
 		{
 			this.queryLimit = queryLimit;
@@ -181,6 +264,7 @@ public final class ViewRowIdsOrderedSelection
 
 		private boolean isQueryLimitHit()
 		{
+			final long size = rowIds != null ? rowIds.length : this.size;
 			return queryLimit > 0
 					&& size > 0
 					&& size >= queryLimit;
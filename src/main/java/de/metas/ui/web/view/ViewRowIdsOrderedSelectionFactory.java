@@ -1,6 +1,7 @@
 package de.metas.ui.web.view;
 
 import java.util.List;
+import java.util.Set;
 
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
@@ -43,4 +44,14 @@ public interface ViewRowIdsOrderedSelectionFactory
 	ViewRowIdsOrderedSelection addRowIdsToSelection(ViewRowIdsOrderedSelection selection, DocumentIdsSelection rowIds);
 
 	ViewRowIdsOrderedSelection removeRowIdsFromSelection(ViewRowIdsOrderedSelection selection, DocumentIdsSelection rowIds);
+
+	/**
+	 * Schedules given selections to be deleted. The deletion might be performed asynchronously.
+	 */
+	void scheduleDeleteSelections(Set<String> selectionIds);
+
+	/**
+	 * @return selection for given view ID, if its row IDs are kept in memory (see {@link ViewRowIdsOrderedSelection#isRowIdsInMemory()}); else null
+	 */
+	ViewRowIdsOrderedSelection getInMemorySelectionOrNull(ViewId viewId);
 }
@@ -28,6 +28,7 @@ import de.metas.ui.web.document.filter.sql.SqlDocumentFilterConverters;
 import de.metas.ui.web.document.filter.sql.SqlDocumentFilterConvertersList;
 import de.metas.ui.web.view.ViewEvaluationCtx;
 import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding.SqlViewRowFieldLoader;
+import de.metas.ui.web.window.descriptor.sql.SqlArrays;
 import de.metas.ui.web.window.descriptor.sql.SqlEntityBinding;
 import de.metas.ui.web.window.model.DocumentQueryOrderBy;
 import lombok.NonNull;
@@ -70,6 +71,9 @@ public class SqlViewBinding implements SqlEntityBinding
 	private final IStringExpression sqlWhereClause;
 	private final IStringExpression sqlSelectByPage;
 	private final IStringExpression sqlSelectById;
+	private final IStringExpression sqlSelectByIds;
+	/** SQL to select rows by an ordered array of IDs, without using T_WEBUI_ViewSelection; null if not supported */
+	private final IStringExpression sqlSelectByRowIds;
 	private final List<SqlViewRowFieldLoader> rowFieldLoaders;
 
 	private final ImmutableList<DocumentQueryOrderBy> defaultOrderBys;
@@ -107,6 +111,24 @@ public class SqlViewBinding implements SqlEntityBinding
 				.append("\n AND " + SqlViewSelectionQueryBuilder.COLUMNNAME_Paging_Record_ID + "=?")
 				.build();
 
+		sqlSelectByIds = sqlSelect.toComposer()
+				.append("\n WHERE ")
+				.append("\n " + SqlViewSelectionQueryBuilder.COLUMNNAME_Paging_UUID + "=?")
+				.append("\n AND " + SqlViewSelectionQueryBuilder.COLUMNNAME_Paging_Record_ID + " = ANY(?::integer[])")
+				.build();
+
+		if (groupingBinding == null)
+		{
+			sqlSelectByRowIds = SqlViewSelectionQueryBuilder.buildSqlSelectFromRowIdsArray(_tableName, _tableAlias, _keyField.getColumnName(), displayFieldNames, allFields)
+					.toComposer()
+					.append("\n ORDER BY " + SqlViewSelectionQueryBuilder.COLUMNNAME_Paging_SeqNo)
+					.build();
+		}
+		else
+		{
+			sqlSelectByRowIds = null;
+		}
+
 		final List<SqlViewRowFieldLoader> rowFieldLoaders = new ArrayList<>(allFields.size());
 		for (final SqlViewRowFieldBinding field : allFields)
 		{
@@ -204,6 +226,23 @@ public class SqlViewBinding implements SqlEntityBinding
 		return sqlSelectById;
 	}
 
+	/**
+	 * @return SQL which selects the rows of a selection for an array of record IDs (see {@link SqlArrays#toSqlIntArray(int[])}); the rows are not ordered
+	 */
+	public IStringExpression getSqlSelectByIds()
+	{
+		return sqlSelectByIds;
+	}
+
+	/**
+	 * @return SQL which selects the rows for an ordered array of IDs (see {@link SqlArrays#toSqlIntArray(int[])}) or null if not supported (e.g. grouping views)
+	 */
+	@Nullable
+	public IStringExpression getSqlSelectByRowIds()
+	{
+		return sqlSelectByRowIds;
+	}
+
 	public List<SqlViewRowFieldLoader> getRowFieldLoaders()
 	{
 		return rowFieldLoaders;
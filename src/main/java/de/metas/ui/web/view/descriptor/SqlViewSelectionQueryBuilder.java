@@ -31,8 +31,8 @@ import de.metas.ui.web.document.filter.sql.SqlDocumentFilterConverter;
 import de.metas.ui.web.document.filter.sql.SqlDocumentFilterConverters;
 import de.metas.ui.web.view.ViewEvaluationCtx;
 import de.metas.ui.web.view.ViewId;
-import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import de.metas.ui.web.window.descriptor.sql.SqlArrays;
 import de.metas.ui.web.window.model.DocumentQueryOrderBy;
 import de.metas.ui.web.window.model.sql.SqlDocumentOrderByBuilder;
 import de.metas.ui.web.window.model.sql.SqlDocumentOrderByBuilder.SqlOrderByBindings;
@@ -428,6 +428,103 @@ public final class SqlViewSelectionQueryBuilder
 		return new SqlAndParams(sqlCreateSelectionFromLines, sqlCreateSelectionFromLinesParams);
 	}
 
+	/**
+	 * @return
+	 *
+	 *         <pre>
+	 * SELECT KeyColumnName FROM ourTable WHERE ... ORDER BY ... LIMIT [limit]
+	 *         </pre>
+	 */
+	public SqlAndParams buildSqlSelectRowIds(
+			final ViewEvaluationCtx viewEvalCtx,
+			final List<DocumentFilter> filters,
+			final List<DocumentQueryOrderBy> orderBys,
+			final int limit)
+	{
+		final String sqlTableName = getTableName();
+		final String sqlTableAlias = getTableAlias();
+		final String keyColumnName = getKeyColumnName();
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final CompositeStringExpression.Builder sqlBuilder = IStringExpression.composer();
+
+		//
+		// SELECT ... FROM ... WHERE 1=1
+		sqlBuilder.append(
+				IStringExpression.composer()
+						.append("SELECT ").append(sqlTableAlias).append(".").append(keyColumnName)
+						.append("\n FROM ").append(sqlTableName).append(" ").append(sqlTableAlias)
+						.append("\n WHERE 1=1 ")
+						.wrap(AccessSqlStringExpression.wrapper(sqlTableAlias, IUserRolePermissions.SQL_FULLYQUALIFIED, IUserRolePermissions.SQL_RO)) // security
+		);
+
+		//
+		// WHERE clause (from query)
+		{
+			final List<Object> sqlWhereClauseParams = new ArrayList<>();
+			final IStringExpression sqlWhereClause = buildSqlWhereClause(sqlWhereClauseParams, filters);
+
+			if (sqlWhereClause != null && !sqlWhereClause.isNullExpression())
+			{
+				sqlBuilder.append("\n AND (\n").append(sqlWhereClause).append("\n)");
+				sqlParams.addAll(sqlWhereClauseParams);
+			}
+		}
+
+		//
+		// ORDER BY
+		{
+			IStringExpression sqlOrderBy = SqlDocumentOrderByBuilder.newInstance(this::getFieldOrderBy).buildSqlOrderBy(orderBys);
+			if (sqlOrderBy == null || sqlOrderBy.isNullExpression())
+			{
+				sqlOrderBy = ConstantStringExpression.of(keyColumnName);
+			}
+			sqlBuilder.append("\n ORDER BY ").append(sqlOrderBy);
+		}
+
+		//
+		// LIMIT
+		if (limit > 0)
+		{
+			sqlBuilder.append("\n LIMIT ?");
+			sqlParams.add(limit);
+		}
+
+		final String sql = sqlBuilder.build().evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+		return new SqlAndParams(sql, sqlParams);
+	}
+
+	/**
+	 * @return
+	 *
+	 *         <pre>
+	 * SELECT KeyColumnName FROM ourTable WHERE KeyColumnName = ANY([rowIds]) ORDER BY ...
+	 *         </pre>
+	 */
+	public SqlAndParams buildSqlSelectRowIdsOrderedBy(
+			final ViewEvaluationCtx viewEvalCtx,
+			final int[] rowIds,
+			final List<DocumentQueryOrderBy> orderBys)
+	{
+		final String sqlTableName = getTableName();
+		final String sqlTableAlias = getTableAlias();
+		final String keyColumnNameFQ = sqlTableAlias + "." + getKeyColumnName();
+
+		String sqlOrderBys = SqlDocumentOrderByBuilder.newInstance(this::getFieldOrderBy)
+				.buildSqlOrderBy(orderBys)
+				.evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+		if (Check.isEmpty(sqlOrderBys, true))
+		{
+			sqlOrderBys = keyColumnNameFQ;
+		}
+
+		final String sql = "SELECT " + keyColumnNameFQ
+				+ "\n FROM " + sqlTableName + " " + sqlTableAlias
+				+ "\n WHERE " + keyColumnNameFQ + " = ANY(?::integer[])"
+				+ "\n ORDER BY " + sqlOrderBys;
+		return new SqlAndParams(sql, ImmutableList.of(SqlArrays.toSqlIntArray(rowIds)));
+	}
+
 	private final IStringExpression buildSqlWhereClause(final List<Object> sqlParams, final List<DocumentFilter> filters)
 	{
 		final CompositeStringExpression.Builder sqlWhereClauseBuilder = IStringExpression.composer();
@@ -582,57 +679,94 @@ public final class SqlViewSelectionQueryBuilder
 		return sqlWhereClause.toString();
 	}
 
-	public String buildSqlDeleteRowIdsFromSelection(@NonNull final String selectionId, @NonNull final DocumentIdsSelection rowIds)
+	/**
+	 * @return <code>DELETE FROM T_WEBUI_ViewSelection WHERE UUID IN (...)</code>
+	 */
+	public static String buildSqlDeleteSelection(@NonNull final List<Object> sqlParams, @NonNull final Collection<String> selectionIds)
 	{
-		if (rowIds.isEmpty())
-		{
-			return null;
-		}
-
-		final StringBuilder sql = new StringBuilder();
-		sql.append("DELETE FROM " + I_T_WEBUI_ViewSelection.Table_Name
-				+ " WHERE " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=" + DB.TO_STRING(selectionId));
-
-		if (rowIds.isAll())
-		{
-			// nothing
-		}
-		else
-		{
-			final Set<Integer> recordIds = rowIds.toIntSet();
-			Check.assumeNotEmpty(recordIds, "recordIds is not empty"); // shall not happen
-			sql.append(" AND " + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + " IN " + DB.buildSqlList(recordIds));
-		}
+		Check.assumeNotEmpty(selectionIds, "selectionIds is not empty");
+		return "DELETE FROM " + I_T_WEBUI_ViewSelection.Table_Name
+				+ " WHERE " + DB.buildSqlList(I_T_WEBUI_ViewSelection.COLUMNNAME_UUID, selectionIds, sqlParams);
+	}
 
-		return sql.toString();
+	/**
+	 * @return <code>DELETE FROM T_WEBUI_ViewSelectionLine WHERE UUID IN (...)</code>
+	 */
+	public static String buildSqlDeleteSelectionLines(@NonNull final List<Object> sqlParams, @NonNull final Collection<String> selectionIds)
+	{
+		Check.assumeNotEmpty(selectionIds, "selectionIds is not empty");
+		return "DELETE FROM " + I_T_WEBUI_ViewSelectionLine.Table_Name
+				+ " WHERE " + DB.buildSqlList(I_T_WEBUI_ViewSelectionLine.COLUMNNAME_UUID, selectionIds, sqlParams);
 	}
 
-	public String buildSqlAddRowIdsFromSelection(final List<Object> sqlParams, final String selectionId, final DocumentId rowId)
+	/**
+	 * @return SQL which selects all selection UUIDs which are currently present in T_WEBUI_ViewSelection and T_WEBUI_ViewSelectionLine
+	 */
+	public static String buildSqlSelectAllSelectionIds()
 	{
-		final int rowIdInt = rowId.toInt();
-		final String sql = "INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
+		return "SELECT " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + " FROM " + I_T_WEBUI_ViewSelection.Table_Name
+				+ "\n UNION"
+				+ "\n SELECT " + I_T_WEBUI_ViewSelectionLine.COLUMNNAME_UUID + " FROM " + I_T_WEBUI_ViewSelectionLine.Table_Name;
+	}
+
+	/**
+	 * Builds the SQL which adds given row IDs to the end of the selection (if not already there), keeping their order.
+	 * The update count of the SQL is the number of added rows.
+	 */
+	public static SqlAndParams buildSqlAddRowIdsToSelection(@NonNull final String selectionId, @NonNull final int[] rowIds)
+	{
+		final String sql = "WITH"
+				+ "\n existing AS (SELECT COALESCE(MAX(" + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + "), 0) AS MaxLine"
+				+ " FROM " + I_T_WEBUI_ViewSelection.Table_Name + " WHERE " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?)"
+				+ "\n, toAdd AS (SELECT t.Record_ID, MIN(t.Idx) AS Idx"
+				+ " FROM unnest(?::integer[]) WITH ORDINALITY AS t(Record_ID, Idx)"
+				+ " WHERE NOT EXISTS (SELECT 1 FROM " + I_T_WEBUI_ViewSelection.Table_Name + " z WHERE z." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=? AND z." + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + "=t.Record_ID)"
+				+ " GROUP BY t.Record_ID)"
+				+ "\n INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
 				+ " " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID
 				+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
 				+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID
 				+ ")"
-				+ " SELECT "
-				+ " ? as UUID " // UUID
-				+ ", (select max(Line) from T_WEBUI_ViewSelection z where z.UUID=?) as Line" // Line
-				+ ", ? as Record_ID"  // Record_ID
-				+ " WHERE "
-				+ " NOT EXISTS(select 1 from " + I_T_WEBUI_ViewSelection.Table_Name + " z where z.UUID=? and z.Record_ID=?)";
+				+ " SELECT ?, existing.MaxLine + row_number() OVER (ORDER BY toAdd.Idx), toAdd.Record_ID FROM toAdd, existing";
 		// TODO: we should also validate if the rowId is allowed to be part of this selection (e.g. enforce entity binding's SQL where clause)
 
-		sqlParams.add(selectionId); // UUID
-		sqlParams.add(selectionId); // for Line
-		sqlParams.add(rowIdInt); // Record_ID
-		sqlParams.add(selectionId); // for NOT EXISTS
-		sqlParams.add(rowIdInt); // for NOT EXISTS
+		final List<Object> sqlParams = Arrays.asList(
+				selectionId // existing
+				, SqlArrays.toSqlIntArray(rowIds) // toAdd
+				, selectionId // toAdd's NOT EXISTS
+				, selectionId // inserted's UUID
+		);
 
-		return sql;
+		return new SqlAndParams(sql, sqlParams);
 	}
 
-	public String buildSqlRetrieveSize(final List<Object> sqlParams, final String selectionId)
+	/**
+	 * Builds the SQL which removes given row IDs from the selection.
+	 * The update count of the SQL is the number of removed rows.
+	 */
+	public static SqlAndParams buildSqlRemoveRowIdsFromSelection(@NonNull final String selectionId, @NonNull final DocumentIdsSelection rowIds)
+	{
+		if (rowIds.isEmpty())
+		{
+			throw new IllegalArgumentException("empty rowIds is not allowed");
+		}
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final StringBuilder sqlDeleteWhereClause = new StringBuilder();
+		sqlDeleteWhereClause.append(I_T_WEBUI_ViewSelection.COLUMNNAME_UUID).append("=?");
+		sqlParams.add(selectionId);
+		if (!rowIds.isAll())
+		{
+			final int[] recordIds = rowIds.toIntSet().stream().mapToInt(Integer::intValue).toArray();
+			sqlDeleteWhereClause.append(" AND ").append(I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID).append(" = ANY(?::integer[])");
+			sqlParams.add(SqlArrays.toSqlIntArray(recordIds));
+		}
+
+		final String sql = "DELETE FROM " + I_T_WEBUI_ViewSelection.Table_Name + " WHERE " + sqlDeleteWhereClause;
+		return new SqlAndParams(sql, sqlParams);
+	}
+
+	public static String buildSqlRetrieveSize(final List<Object> sqlParams, final String selectionId)
 	{
 		Check.assumeNotEmpty(selectionId, "selectionId is not empty");
 		sqlParams.add(selectionId);
@@ -689,7 +823,7 @@ public final class SqlViewSelectionQueryBuilder
 	{
 		if (groupingBinding == null)
 		{
-			return buildSqlSelect_WithoutGrouping(sqlTableName, sqlTableAlias, sqlKeyColumnName, displayFieldNames, allFields);
+			return buildSqlSelect_WithoutGrouping(sqlTableName, sqlTableAlias, sqlKeyColumnName, displayFieldNames, allFields, false);
 		}
 		else
 		{
@@ -697,12 +831,29 @@ public final class SqlViewSelectionQueryBuilder
 		}
 	}
 
-	private static IStringExpression buildSqlSelect_WithoutGrouping(
+	/**
+	 * Same as {@link #buildSqlSelect(String, String, String, Collection, Collection, SqlViewGroupingBinding)} (without grouping)
+	 * but instead of joining T_WEBUI_ViewSelection, the rows are fetched from an ordered array of record IDs.
+	 * The returned SQL expects one parameter: the record IDs array (see {@link SqlArrays#toSqlIntArray(int[])}).
+	 * Paging SeqNo will be the (1-based) position in that array.
+	 */
+	public static IStringExpression buildSqlSelectFromRowIdsArray(
 			final String sqlTableName,
 			final String sqlTableAlias,
 			final String sqlKeyColumnName,
 			final Collection<String> displayFieldNames,
 			final Collection<SqlViewRowFieldBinding> allFields)
+	{
+		return buildSqlSelect_WithoutGrouping(sqlTableName, sqlTableAlias, sqlKeyColumnName, displayFieldNames, allFields, true);
+	}
+
+	private static IStringExpression buildSqlSelect_WithoutGrouping(
+			final String sqlTableName,
+			final String sqlTableAlias,
+			final String sqlKeyColumnName,
+			final Collection<String> displayFieldNames,
+			final Collection<SqlViewRowFieldBinding> allFields,
+			final boolean fromRowIdsArray)
 	{
 		final List<String> sqlSelectValuesList = new ArrayList<>();
 		final List<IStringExpression> sqlSelectDisplayNamesList = new ArrayList<>();
@@ -731,13 +882,26 @@ public final class SqlViewSelectionQueryBuilder
 			sql.append(", \n").appendAllJoining("\n, ", sqlSelectDisplayNamesList); // DisplayName fields
 		}
 
+		final String sqlSelectionUUID;
+		final String sqlSelectionFrom;
+		if (fromRowIdsArray)
+		{
+			sqlSelectionUUID = "NULL::varchar";
+			sqlSelectionFrom = "unnest(?::integer[]) WITH ORDINALITY AS sel(" + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + ")";
+		}
+		else
+		{
+			sqlSelectionUUID = "sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID;
+			sqlSelectionFrom = I_T_WEBUI_ViewSelection.Table_Name + " sel";
+		}
+
 		sql.append("\n FROM (")
 				.append("\n   SELECT ")
 				.append("\n   ").append(Joiner.on("\n   , ").join(sqlSelectValuesList))
 				.append("\n , sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + " AS " + COLUMNNAME_Paging_SeqNo)
-				.append("\n , sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + " AS " + COLUMNNAME_Paging_UUID)
+				.append("\n , " + sqlSelectionUUID + " AS " + COLUMNNAME_Paging_UUID)
 				.append("\n , sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + " AS " + COLUMNNAME_Paging_Record_ID)
-				.append("\n   FROM " + I_T_WEBUI_ViewSelection.Table_Name + " sel")
+				.append("\n   FROM " + sqlSelectionFrom)
 				.append("\n   LEFT OUTER JOIN " + sqlTableName + " ON (" + sqlTableName + "." + sqlKeyColumnName + " = sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + ")")
 				.append("\n ) " + sqlTableAlias); // FROM
 
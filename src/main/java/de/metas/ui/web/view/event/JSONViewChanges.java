@@ -56,6 +56,10 @@ public final class JSONViewChanges implements Serializable
 	@JsonInclude(JsonInclude.Include.NON_EMPTY)
 	private final Set<String> changedIds;
 
+	@JsonProperty("actionsChanged")
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private final Boolean actionsChanged;
+
 	private JSONViewChanges(final ViewChanges changes)
 	{
 		super();
@@ -80,6 +84,8 @@ public final class JSONViewChanges implements Serializable
 			fullyChanged = Boolean.FALSE;
 			this.changedIds = changedRowIds.toJsonSet();
 		}
+
+		actionsChanged = changes.isActionsChanged() ? Boolean.TRUE : null;
 	}
 
 	@Override
@@ -91,6 +97,7 @@ public final class JSONViewChanges implements Serializable
 				.add("windowId", windowId)
 				.add("fullyChanged", fullyChanged)
 				.add("changedIds", changedIds)
+				.add("actionsChanged", actionsChanged)
 				.toString();
 	}
 
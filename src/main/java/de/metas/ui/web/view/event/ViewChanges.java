@@ -37,6 +37,7 @@ public class ViewChanges
 
 	private boolean fullyChanged;
 	private Set<DocumentId> changedRowIds = null;
+	private boolean actionsChanged;
 
 	/* package */ ViewChanges(final ViewId viewId)
 	{
@@ -59,6 +60,11 @@ public class ViewChanges
 			}
 			changedRowIds.addAll(changes.changedRowIds);
 		}
+
+		if (changes.isActionsChanged())
+		{
+			actionsChanged = true;
+		}
 	}
 
 	@Override
@@ -69,6 +75,7 @@ public class ViewChanges
 				.add("viewId", viewId)
 				.add("fullyChanged", fullyChanged ? Boolean.TRUE : null)
 				.add("changedRowIds", changedRowIds)
+				.add("actionsChanged", actionsChanged ? Boolean.TRUE : null)
 				.toString();
 	}
 
@@ -94,9 +101,27 @@ public class ViewChanges
 			return true;
 		}
 		
+		if (actionsChanged)
+		{
+			return true;
+		}
+
 		return changedRowIds != null && !changedRowIds.isEmpty();
 	}
 
+	/**
+	 * Flags that the actions (or their preconditions) of this view might have changed, even if the rows did not change.
+	 */
+	public void setActionsChanged()
+	{
+		actionsChanged = true;
+	}
+
+	public boolean isActionsChanged()
+	{
+		return actionsChanged;
+	}
+
 	public void addChangedRowIds(final DocumentIdsSelection rowIds)
 	{
 		// Don't collect rowIds if this was already flagged as fully changed.
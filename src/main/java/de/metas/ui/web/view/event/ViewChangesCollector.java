@@ -3,7 +3,9 @@ package de.metas.ui.web.view.event;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -15,6 +17,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 
 import de.metas.logging.LogManager;
@@ -101,8 +106,27 @@ public class ViewChangesCollector implements AutoCloseable
 		return new ViewChangesCollector(autoflush);
 	}
 
+	/**
+	 * @return a number which is increased each time the rows of given view are changed (see {@link #collectRowsChanged(IView, DocumentIdsSelection)}, {@link #collectFullyChanged(IView)}).
+	 *         It can be used as a cache key part for data which was calculated from view's rows.
+	 */
+	public static final long getViewChangeVersion(final ViewId viewId)
+	{
+		return viewChangeVersions.getUnchecked(viewId).get();
+	}
+
+	private static final void incrementViewChangeVersion(final ViewId viewId)
+	{
+		viewChangeVersions.getUnchecked(viewId).incrementAndGet();
+	}
+
 	private static final transient Logger logger = LogManager.getLogger(ViewChangesCollector.class);
 
+	/** Change versions by view. Entries of views which are no longer used are expiring, same as the views do. */
+	private static final LoadingCache<ViewId, AtomicLong> viewChangeVersions = CacheBuilder.newBuilder()
+			.expireAfterAccess(1, TimeUnit.HOURS)
+			.build(CacheLoader.from(viewId -> new AtomicLong()));
+
 	private static final transient ThreadLocal<ViewChangesCollector> THREADLOCAL = new ThreadLocal<>();
 	private static final String TRXPROPERTY_Name = ViewChangesCollector.class.getName();
 
@@ -167,6 +191,7 @@ public class ViewChangesCollector implements AutoCloseable
 
 	public void collectFullyChanged(final IView view)
 	{
+		incrementViewChangeVersion(view.getViewId());
 		viewChanges(view).setFullyChanged();
 
 		autoflushIfEnabled();
@@ -174,11 +199,27 @@ public class ViewChangesCollector implements AutoCloseable
 
 	public void collectRowsChanged(final IView view, final DocumentIdsSelection rowIds)
 	{
+		if (rowIds != null && !rowIds.isEmpty())
+		{
+			incrementViewChangeVersion(view.getViewId());
+		}
 		viewChanges(view).addChangedRowIds(rowIds);
 
 		autoflushIfEnabled();
 	}
 
+	/**
+	 * Collects the information that the actions of given view might have changed (e.g. some preconditions were evaluated later).
+	 *
+	 * NOTE: the view change version is not changed.
+	 */
+	public void collectActionsChanged(final ViewId viewId)
+	{
+		viewChanges(viewId).setActionsChanged();
+
+		autoflushIfEnabled();
+	}
+
 	private void collectFromChanges(final ViewChanges changes)
 	{
 		viewChanges(changes.getViewId()).collectFrom(changes);
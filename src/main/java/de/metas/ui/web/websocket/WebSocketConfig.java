@@ -63,6 +63,7 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer
 	private static final String ENDPOINT = "/stomp";
 	private static final String TOPIC_Notifications = "/notifications";
 	private static final String TOPIC_View = "/view";
+	private static final String TOPIC_Print = "/print";
 	public static final String TOPIC_Devices = "/devices";
 
 	public static final String buildNotificationsTopicName(final int adUserId)
@@ -76,6 +77,11 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer
 		return TOPIC_View + "/" + viewId;
 	}
 
+	public static final String buildPrintJobsTopicName(final int adUserId)
+	{
+		return TOPIC_Print + "/" + adUserId;
+	}
+
 	@Override
 	public void registerStompEndpoints(final StompEndpointRegistry registry)
 	{
@@ -95,6 +101,7 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer
 		config.enableSimpleBroker( //
 				TOPIC_Notifications //
 				, TOPIC_View //
+				, TOPIC_Print //
 				, TOPIC_Devices //
 		);
 
@@ -1,5 +1,7 @@
 package de.metas.ui.web.websocket;
 
+import java.util.Objects;
+
 /*
  * #%L
  * metasfresh-webui-api
@@ -35,7 +37,51 @@ public interface WebSocketProducer
 	/**
 	 * Produce a new event.
 	 * 
-	 * @return event (JSON friendly)
+	 * If the event is the same as the previous one (see {@link #isSameEvent(Object, Object)}), it won't be published again.
+	 * 
+	 * @return event (JSON friendly) or <code>null</code> if there is nothing to publish
 	 */
 	Object produceEvent();
+
+	/**
+	 * Tells if given event shall not be published because it's the same as the last published one.
+	 * Producers which are including volatile data in their events (e.g. timestamps) shall override this method.
+	 *
+	 * @param event new event, never <code>null</code>
+	 * @param lastPublishedEvent last published event or <code>null</code>
+	 */
+	default boolean isSameEvent(final Object event, final Object lastPublishedEvent)
+	{
+		return Objects.equals(event, lastPublishedEvent);
+	}
+
+	/**
+	 * @return how often (in millis) this producer shall be asked for a new event;
+	 *         zero or negative means the producer is not polled, but it signals the changes by itself (see {@link #onStart(Runnable)})
+	 */
+	default long getPollingPeriodMillis()
+	{
+		return 1000;
+	}
+
+	/**
+	 * Called when the first subscriber subscribed.
+	 *
+	 * Push-capable producers shall call <code>changesNotifier</code> each time there is a new event available.
+	 * The registry will then call {@link #produceEvent()} and publish the event, coalescing the changes which are signaled too fast.
+	 *
+	 * @param changesNotifier thread-safe notifier
+	 */
+	default void onStart(final Runnable changesNotifier)
+	{
+		// nothing on this level
+	}
+
+	/**
+	 * Called when the last subscriber unsubscribed.
+	 */
+	default void onStop()
+	{
+		// nothing on this level
+	}
 }
\ No newline at end of file
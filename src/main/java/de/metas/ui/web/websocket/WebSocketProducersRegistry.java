@@ -7,6 +7,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
@@ -16,6 +17,7 @@ import org.adempiere.util.concurrent.CustomizableThreadFactory;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
@@ -52,7 +54,8 @@ import de.metas.logging.LogManager;
  * This component is responsible for:
  * <ul>
  * <li>automatically registering all {@link WebSocketProducerFactory} implementations which were found in spring context
- * <li>as soon as there is a subscriber for a websocket topic it will create/start a {@link WebSocketProducer} and it will call it on a given rate.
+ * <li>as soon as there is a subscriber for a websocket topic it will create/start a {@link WebSocketProducer} and it will publish its events,
+ * each time the producer signals a change or on producer's polling rate. Consecutive events which the producer considers the same (see {@link WebSocketProducer#isSameEvent(Object, Object)}) are published only once.
  * </ul>
  *
  * @author metas-dev <dev@metasfresh.com>
@@ -64,6 +67,7 @@ public final class WebSocketProducersRegistry
 	private static final Logger logger = LogManager.getLogger(WebSocketProducersRegistry.class);
 
 	private final ScheduledExecutorService scheduler;
+	private final long minPublishIntervalMillis;
 	@Autowired
 	private SimpMessagingTemplate websocketMessagingTemplate;
 	@Autowired
@@ -72,12 +76,18 @@ public final class WebSocketProducersRegistry
 	private final ConcurrentHashMap<String, WebSocketProducerFactory> _producerFactoriesByTopicNamePrefix = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<String, WebSocketProducerInstance> _producersByTopicName = new ConcurrentHashMap<>();
 
-	public WebSocketProducersRegistry()
+	public WebSocketProducersRegistry(
+			@Value("${metasfresh.webui.websocket.producers.threads:4}") final int threadsCount,
+			@Value("${metasfresh.webui.websocket.producers.maxEventsPerSecond:10}") final int maxEventsPerSecond)
 	{
-		scheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+		// NOTE: we use more than one thread, so a slow producer (e.g. a device) won't delay the other topics
+		scheduler = Executors.newScheduledThreadPool(Math.max(threadsCount, 1), CustomizableThreadFactory.builder()
 				.setThreadNamePrefix(getClass().getName())
 				.setDaemon(true)
 				.build());
+
+		minPublishIntervalMillis = maxEventsPerSecond > 0 ? 1000 / maxEventsPerSecond : 0;
+		logger.info("Using threadsCount={}, minPublishIntervalMillis={}", threadsCount, minPublishIntervalMillis);
 	}
 
 	@PostConstruct
@@ -146,7 +156,7 @@ public final class WebSocketProducersRegistry
 
 		return _producersByTopicName.computeIfAbsent(topicName, k -> {
 			final WebSocketProducer producer = producerFactory.createProducer(topicName);
-			return new WebSocketProducerInstance(topicName, producer, scheduler, websocketMessagingTemplate);
+			return new WebSocketProducerInstance(topicName, producer, scheduler, minPublishIntervalMillis, websocketMessagingTemplate);
 		});
 	}
 
@@ -194,22 +204,31 @@ public final class WebSocketProducersRegistry
 		forEachExistingWebSocketProducerInstance(producer -> producer.unsubscribe(sessionId));
 	}
 
-	private static final class WebSocketProducerInstance
+	/* package */ static final class WebSocketProducerInstance
 	{
 		// private static final transient Logger logger = LogManager.getLogger(WebSocketProducerInstance.class);
 
 		private final String topicName;
 		private final WebSocketProducer producer;
 		private final ScheduledExecutorService scheduler;
+		private final long minPublishIntervalMillis;
 		private final SimpMessagingTemplate websocketMessagingTemplate;
 
 		private final Set<String> subscribedSessionIds = new HashSet<>();
-		private ScheduledFuture<?> scheduledFuture;
+		private boolean started = false;
+		private ScheduledFuture<?> pollingFuture;
+
+		/** true if a publish was already scheduled, so further change notifications can be coalesced */
+		private final AtomicBoolean publishScheduled = new AtomicBoolean(false);
+		private final Object publishLock = new Object();
+		private Object lastPublishedEvent; // guarded by publishLock
+		private volatile long lastPublishTimeMillis = 0;
 
-		private WebSocketProducerInstance(
+		/* package */ WebSocketProducerInstance(
 				final String topicName //
 				, final WebSocketProducer producer //
 				, final ScheduledExecutorService scheduler //
+				, final long minPublishIntervalMillis //
 				, final SimpMessagingTemplate websocketMessagingTemplate //
 		)
 		{
@@ -221,6 +240,7 @@ public final class WebSocketProducersRegistry
 			this.topicName = topicName;
 			this.producer = producer;
 			this.scheduler = scheduler;
+			this.minPublishIntervalMillis = minPublishIntervalMillis;
 			this.websocketMessagingTemplate = websocketMessagingTemplate;
 		}
 
@@ -245,19 +265,30 @@ public final class WebSocketProducersRegistry
 
 			logger.trace("{}: session {} subscribed", this, sessionId);
 
+			// Make sure the new subscriber gets the current event, even if it's the same as the last published one
+			forgetLastPublishedEvent();
+
 			//
-			// Check if the producer was already scheduled
-			if (scheduledFuture != null)
+			// Check if the producer was already started
+			if (started)
 			{
+				requestPublish();
 				return;
 			}
 
 			//
-			// Schedule producer
-			final long initialDelayMillis = 1000;
-			final long periodMillis = 1000;
-			scheduledFuture = scheduler.scheduleAtFixedRate(this::executeAndPublish, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
-			logger.trace("{}: start producing using initialDelayMillis={}, periodMillis={}", this, initialDelayMillis, periodMillis);
+			// Start producer
+			started = true;
+			producer.onStart(this::requestPublish);
+
+			final long periodMillis = producer.getPollingPeriodMillis();
+			if (periodMillis > 0)
+			{
+				pollingFuture = scheduler.scheduleAtFixedRate(this::produceAndPublish, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+			}
+
+			requestPublish();
+			logger.trace("{}: start producing using periodMillis={}", this, periodMillis);
 		}
 
 		public synchronized void unsubscribe(final String sessionId)
@@ -271,32 +302,87 @@ public final class WebSocketProducersRegistry
 			{
 				return;
 			}
-			if (scheduledFuture == null)
+			if (!started)
 			{
 				return;
 			}
 
+			if (pollingFuture != null)
+			{
+				try
+				{
+					pollingFuture.cancel(true);
+				}
+				catch (final Exception ex)
+				{
+					logger.warn("{}: Failed stopping scheduled future: {}. Ignored and considering it as stopped", this, pollingFuture, ex);
+				}
+				pollingFuture = null;
+			}
+
 			try
 			{
-				scheduledFuture.cancel(true);
+				producer.onStop();
 			}
 			catch (final Exception ex)
 			{
-				logger.warn("{}: Failed stopping scheduled future: {}. Ignored and considering it as stopped", this, scheduledFuture, ex);
+				logger.warn("{}: Failed stopping the producer. Ignored and considering it as stopped", this, ex);
 			}
-			scheduledFuture = null;
+			started = false;
 
 			logger.debug("{} stopped", this);
 		}
 
-		private void executeAndPublish()
+		/**
+		 * Schedules the producer to be executed and its event to be published, but not sooner than the min publish interval.
+		 *
+		 * If a publish is already scheduled, this method does nothing, i.e. the changes are coalesced.
+		 */
+		private void requestPublish()
 		{
-			try
+			if (!publishScheduled.compareAndSet(false, true))
 			{
-				final Object event = producer.produceEvent();
-				websocketMessagingTemplate.convertAndSend(topicName, event);
+				return;
+			}
+
+			final long delayMillis = Math.max(lastPublishTimeMillis + minPublishIntervalMillis - System.currentTimeMillis(), 0);
+			scheduler.schedule(() -> {
+				publishScheduled.set(false);
+				produceAndPublish();
+			}, delayMillis, TimeUnit.MILLISECONDS);
+		}
 
-				logger.trace("Event sent to {}: {}", topicName, event);
+		private void forgetLastPublishedEvent()
+		{
+			synchronized (publishLock)
+			{
+				lastPublishedEvent = null;
+			}
+		}
+
+		private void produceAndPublish()
+		{
+			try
+			{
+				synchronized (publishLock)
+				{
+					final Object event = producer.produceEvent();
+					if (event == null)
+					{
+						return;
+					}
+					if (producer.isSameEvent(event, lastPublishedEvent))
+					{
+						logger.trace("Skip sending event to {} because it's the same as the last one: {}", topicName, event);
+						return;
+					}
+
+					websocketMessagingTemplate.convertAndSend(topicName, event);
+					lastPublishedEvent = event;
+					lastPublishTimeMillis = System.currentTimeMillis();
+
+					logger.trace("Event sent to {}: {}", topicName, event);
+				}
 			}
 			catch (final Exception ex)
 			{
@@ -304,4 +390,4 @@ public final class WebSocketProducersRegistry
 			}
 		}
 	}
-}
\ No newline at end of file
+}
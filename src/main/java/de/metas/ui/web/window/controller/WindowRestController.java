@@ -1,8 +1,8 @@
 package de.metas.ui.web.window.controller;
 
 import java.util.List;
-import java.util.function.Function;
 
+import org.adempiere.ad.security.UserRolePermissionsKey;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.Services;
 import org.adempiere.util.api.IMsgBL;
@@ -11,6 +11,8 @@ import org.adempiere.util.lang.ITableRecordReference;
 import org.adempiere.util.lang.ImmutablePair;
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -26,15 +28,19 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
-import de.metas.adempiere.report.jasper.OutputType;
-import de.metas.process.ProcessExecutionResult;
-import de.metas.process.ProcessInfo;
+import de.metas.ui.web.cache.ETag;
+import de.metas.ui.web.cache.ETagAware;
 import de.metas.ui.web.cache.ETagResponseEntityBuilder;
 import de.metas.ui.web.config.WebConfig;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.menu.MenuTree;
 import de.metas.ui.web.menu.MenuTreeRepository;
+import de.metas.ui.web.print.DocumentPrintJob;
+import de.metas.ui.web.print.DocumentPrintService;
 import de.metas.ui.web.process.DocumentPreconditionsAsContext;
 import de.metas.ui.web.process.ProcessRestController;
 import de.metas.ui.web.process.descriptor.WebuiRelatedProcessDescriptor;
@@ -55,7 +61,6 @@ import de.metas.ui.web.window.datatypes.json.JSONZoomInto;
 import de.metas.ui.web.window.descriptor.ButtonFieldActionDescriptor;
 import de.metas.ui.web.window.descriptor.DetailId;
 import de.metas.ui.web.window.descriptor.DocumentDescriptor;
-import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
 import de.metas.ui.web.window.descriptor.DocumentFieldWidgetType;
 import de.metas.ui.web.window.descriptor.factory.NewRecordDescriptorsProvider;
 import de.metas.ui.web.window.exceptions.InvalidDocumentPathException;
@@ -104,6 +109,9 @@ public class WindowRestController
 	private static final String PARAM_Advanced_DefaultValue = "false";
 	private static final String PARAM_FieldsList = "fields";
 
+	/** Document ETags are generated in memory, so they are valid only for the current server instance */
+	private static final String ETAG_ServerStartTime = String.valueOf(System.currentTimeMillis());
+
 	private static final ReasonSupplier REASON_Value_DirectSetFromCommitAPI = () -> "direct set from commit API";
 
 	@Autowired
@@ -123,6 +131,9 @@ public class WindowRestController
 	@Autowired
 	private MenuTreeRepository menuTreeRepository;
 
+	@Autowired
+	private DocumentPrintService documentPrintService;
+
 	private JSONOptions.Builder newJSONOptions()
 	{
 		return JSONOptions.builder(userSession)
@@ -175,50 +186,58 @@ public class WindowRestController
 	}
 
 	@GetMapping("/{windowId}/{documentId}")
-	public List<JSONDocument> getData(
+	public ResponseEntity<List<JSONDocument>> getData(
 			@PathVariable("windowId") final String windowIdStr,
 			@PathVariable("documentId") final String documentIdStr,
 			@RequestParam(name = PARAM_FieldsList, required = false) @ApiParam("comma separated field names") final String fieldsListStr,
-			@RequestParam(name = PARAM_Advanced, required = false, defaultValue = PARAM_Advanced_DefaultValue) final boolean advanced)
+			@RequestParam(name = PARAM_Advanced, required = false, defaultValue = PARAM_Advanced_DefaultValue) final boolean advanced,
+			final WebRequest request)
 	{
 		final WindowId windowId = WindowId.fromJson(windowIdStr);
 		final DocumentPath documentPath = DocumentPath.rootDocumentPath(windowId, documentIdStr);
 		final List<DocumentQueryOrderBy> orderBys = ImmutableList.of();
-		return getData(documentPath, fieldsListStr, advanced, orderBys);
+		return getData(documentPath, fieldsListStr, advanced, orderBys, request);
 	}
 
 	@GetMapping("/{windowId}/{documentId}/{tabId}")
-	public List<JSONDocument> getData(
+	public ResponseEntity<List<JSONDocument>> getData(
 			@PathVariable("windowId") final String windowIdStr,
 			@PathVariable("documentId") final String documentIdStr,
 			@PathVariable("tabId") final String tabIdStr,
 			@RequestParam(name = PARAM_FieldsList, required = false) @ApiParam("comma separated field names") final String fieldsListStr,
 			@RequestParam(name = PARAM_Advanced, required = false, defaultValue = PARAM_Advanced_DefaultValue) final boolean advanced,
-			@RequestParam(name = "orderBy", required = false) final String orderBysListStr)
+			@RequestParam(name = "orderBy", required = false) final String orderBysListStr,
+			final WebRequest request)
 	{
 		final WindowId windowId = WindowId.fromJson(windowIdStr);
 		final DocumentPath documentPath = DocumentPath.includedDocumentPath(windowId, documentIdStr, tabIdStr);
 		final List<DocumentQueryOrderBy> orderBys = DocumentQueryOrderBy.parseOrderBysList(orderBysListStr);
-		return getData(documentPath, fieldsListStr, advanced, orderBys);
+		return getData(documentPath, fieldsListStr, advanced, orderBys, request);
 	}
 
 	@GetMapping("/{windowId}/{documentId}/{tabId}/{rowId}")
-	public List<JSONDocument> getData(
+	public ResponseEntity<List<JSONDocument>> getData(
 			@PathVariable("windowId") final String windowIdStr //
 			, @PathVariable("documentId") final String documentIdStr //
 			, @PathVariable("tabId") final String tabIdStr //
 			, @PathVariable("rowId") final String rowIdStr //
 			, @RequestParam(name = PARAM_FieldsList, required = false) @ApiParam("comma separated field names") final String fieldsListStr //
 			, @RequestParam(name = PARAM_Advanced, required = false, defaultValue = PARAM_Advanced_DefaultValue) final boolean advanced //
+			, final WebRequest request //
 	)
 	{
 		final WindowId windowId = WindowId.fromJson(windowIdStr);
 		final DocumentPath documentPath = DocumentPath.includedDocumentPath(windowId, documentIdStr, tabIdStr, rowIdStr);
 		final List<DocumentQueryOrderBy> orderBys = ImmutableList.of();
-		return getData(documentPath, fieldsListStr, advanced, orderBys);
+		return getData(documentPath, fieldsListStr, advanced, orderBys, request);
 	}
 
-	private List<JSONDocument> getData(final DocumentPath documentPath, final String fieldsListStr, final boolean advanced, final List<DocumentQueryOrderBy> orderBys)
+	private ResponseEntity<List<JSONDocument>> getData(
+			final DocumentPath documentPath,
+			final String fieldsListStr,
+			final boolean advanced,
+			final List<DocumentQueryOrderBy> orderBys,
+			final WebRequest request)
 	{
 		userSession.assertLoggedIn();
 
@@ -229,7 +248,7 @@ public class WindowRestController
 
 		final IDocumentChangesCollector changesCollector = NullDocumentChangesCollector.instance;
 		return documentCollection.forRootDocumentReadonly(documentPath, changesCollector, rootDocument -> {
-			List<Document> documents;
+			final List<Document> documents;
 			if (documentPath.isRootDocument())
 			{
 				documents = ImmutableList.of(rootDocument);
@@ -247,10 +266,36 @@ public class WindowRestController
 				throw new InvalidDocumentPathException(documentPath);
 			}
 
-			return JSONDocument.ofDocumentsList(documents, jsonOpts);
+			final ETagAware documentsETag = createDocumentsETag(documents);
+			return ETagResponseEntityBuilder.ofETagAware(request, documentsETag)
+					.includeLanguageInETag()
+					.cacheMaxAge(0) // always revalidate, because documents can be changed any time
+					.map(etagAware -> documents)
+					//
+					.jsonOptions(() -> jsonOpts)
+					.toJson(JSONDocument::ofDocumentsList);
 		});
 	}
 
+	/**
+	 * @param documents readonly documents
+	 * @return ETag which changes when any of the documents is changed and when documents are added, removed or reordered
+	 */
+	private ETagAware createDocumentsETag(final List<Document> documents)
+	{
+		final Hasher documentsHasher = Hashing.murmur3_128().newHasher();
+		for (final Document document : documents)
+		{
+			documentsHasher.putUnencodedChars(document.getETag().toETagString()).putChar(';');
+		}
+
+		final ETag etag = ETag.of(documents.size(), ImmutableMap.of(
+				"docs", documentsHasher.hash().toString(),
+				"permissions", UserRolePermissionsKey.toPermissionsKeyString(userSession.getCtx()), // fields readonly flags depend on permissions
+				"server", ETAG_ServerStartTime));
+		return () -> etag;
+	}
+
 	@PatchMapping("/{windowId}/{documentId}")
 	public List<JSONDocument> patchRootDocument(
 			@PathVariable("windowId") final String windowIdStr //
@@ -630,7 +675,7 @@ public class WindowRestController
 	}
 
 	@GetMapping("/{windowId}/{documentId}/print/{filename:.*}")
-	public ResponseEntity<byte[]> getDocumentPrint(
+	public ResponseEntity<Resource> getDocumentPrint(
 			@PathVariable("windowId") final String windowIdStr //
 			, @PathVariable("documentId") final String documentIdStr //
 			, @PathVariable("filename") final String filename)
@@ -640,37 +685,14 @@ public class WindowRestController
 		final WindowId windowId = WindowId.fromJson(windowIdStr);
 		final DocumentPath documentPath = DocumentPath.rootDocumentPath(windowId, documentIdStr);
 
-		final IDocumentChangesCollector changesCollector = NullDocumentChangesCollector.instance;
-		final Document document = documentCollection.forDocumentReadonly(documentPath, changesCollector, Function.identity());
-		final int windowNo = document.getWindowNo();
-		final DocumentEntityDescriptor entityDescriptor = document.getEntityDescriptor();
-
-		final int printProcessId = entityDescriptor.getPrintProcessId();
-		final TableRecordReference recordRef = documentCollection.getTableRecordReference(documentPath);
-
-		final ProcessExecutionResult processExecutionResult = ProcessInfo.builder()
-				.setCtx(userSession.getCtx())
-				.setAD_Process_ID(printProcessId)
-				.setWindowNo(windowNo) // important: required for ProcessInfo.findReportingLanguage
-				.setRecord(recordRef)
-				.setPrintPreview(true)
-				.setJRDesiredOutputType(OutputType.PDF)
-				//
-				.buildAndPrepareExecution()
-				.onErrorThrowException()
-				.switchContextWhenRunning()
-				.executeSync()
-				.getResult();
-
-		final byte[] reportData = processExecutionResult.getReportData();
-		final String reportContentType = processExecutionResult.getReportContentType();
+		// NOTE: the document is rendered on the bounded print executor; also the output is reused if the document was not changed
+		final DocumentPrintJob job = documentPrintService.printAndAwaitDone(documentPath);
 
 		final HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.parseMediaType(reportContentType));
+		headers.setContentType(MediaType.parseMediaType(job.getOutputContentType()));
 		headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
 		headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-		final ResponseEntity<byte[]> response = new ResponseEntity<>(reportData, headers, HttpStatus.OK);
-		return response;
+		return new ResponseEntity<>(new FileSystemResource(job.getOutputFile()), headers, HttpStatus.OK);
 	}
 
 	/**
@@ -128,6 +128,9 @@ public final class JSONDocument extends JSONDocumentBase
 	 */
 	public static List<JSONDocument> ofDocumentsList(final Collection<Document> documents, final JSONOptions jsonOpts)
 	{
+		// Load the missing lookup values in one go, instead of loading them one by one for each document field
+		Document.preloadLookupValues(documents, jsonOpts.getAD_Language());
+
 		return documents.stream()
 				.map(document -> ofDocument(document, jsonOpts))
 				.collect(Collectors.toList());
@@ -0,0 +1,57 @@
+package de.metas.ui.web.window.descriptor.sql;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * SQL array helpers, shared by the window (e.g. lookups) and view SQL builders.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public final class SqlArrays
+{
+	private SqlArrays()
+	{
+	}
+
+	/**
+	 * @return given IDs converted to a SQL array literal (e.g. <code>{1,2,3}</code>) which can be used as a parameter for <code>?::integer[]</code>
+	 */
+	public static String toSqlIntArray(@NonNull final int[] ids)
+	{
+		final StringBuilder sql = new StringBuilder(ids.length * 8 + 2);
+		sql.append("{");
+		for (int i = 0; i < ids.length; i++)
+		{
+			if (i > 0)
+			{
+				sql.append(",");
+			}
+			sql.append(ids[i]);
+		}
+		sql.append("}");
+		return sql.toString();
+	}
+}
@@ -15,7 +15,9 @@ import org.adempiere.ad.validationRule.IValidationRule;
 import org.adempiere.ad.validationRule.impl.CompositeValidationRule;
 import org.adempiere.ad.validationRule.impl.NullValidationRule;
 import org.adempiere.db.DBConstants;
+import org.adempiere.service.ISysConfigBL;
 import org.adempiere.util.Check;
+import org.adempiere.util.Services;
 import org.compiere.model.I_M_AttributeSetInstance;
 import org.compiere.model.MLookupFactory;
 import org.compiere.model.MLookupInfo;
@@ -79,6 +81,14 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 
 	private static final int WINDOWNO_Dummy = 99999;
 
+	/**
+	 * Per lookup table sysconfig (i.e. this prefix + TableName): if <code>Y</code>, the values which are starting with the typed filter are returned first.
+	 *
+	 * NOTE: the filter condition remains <code>unaccent_string(DisplayColumn, 1) ILIKE unaccent_string(Filter, 1)</code>, so for big tables
+	 * it can be served by a trigram expression index on <code>unaccent_string(DisplayColumn, 1)</code>.
+	 */
+	private static final String SYSCONFIG_PrefixMatchesFirst_Prefix = "de.metas.ui.web.window.descriptor.sql.SqlLookupDescriptor.PrefixMatchesFirst.";
+
 	private final Optional<String> tableName;
 	private final Optional<WindowId> zoomIntoWindowId;
 	private final ICachedStringExpression sqlForFetchingExpression;
@@ -88,6 +98,7 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 
 	private final boolean highVolume;
 	private final boolean numericKey;
+	private final boolean prefixMatchesFirst;
 	private final LookupSource lookupSourceType;
 
 	private final Set<String> dependsOnFieldNames;
@@ -107,6 +118,7 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 		postQueryPredicate = builder.getPostQueryPredicate();
 
 		numericKey = builder.numericKey;
+		prefixMatchesFirst = builder.prefixMatchesFirst;
 		highVolume = builder.isHighVolume();
 		lookupSourceType = builder.getLookupSourceType();
 
@@ -198,6 +210,14 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 		return zoomIntoWindowId;
 	}
 
+	/**
+	 * @return true if the records whose display name starts with the filter are fetched first (see {@link #SYSCONFIG_PrefixMatchesFirst_Prefix})
+	 */
+	public boolean isPrefixMatchesFirst()
+	{
+		return prefixMatchesFirst;
+	}
+
 	public IStringExpression getSqlForFetchingExpression()
 	{
 		return sqlForFetchingExpression;
@@ -264,6 +284,7 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 		//
 		// Built/prepared values
 		private boolean numericKey;
+		private boolean prefixMatchesFirst;
 		private Set<String> dependsOnFieldNames;
 
 		private IValidationRule validationRule = NullValidationRule.instance;
@@ -364,13 +385,30 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 			{
 				lookup_SqlOrderBy = String.valueOf(MLookupFactory.COLUMNINDEX_DisplayName);
 			}
+			final IStringExpression sqlOrderBy;
+			prefixMatchesFirst = isPrefixMatchesFirst(lookupInfo.getTableName());
+			if (prefixMatchesFirst)
+			{
+				sqlOrderBy = IStringExpression.composer()
+						.append(" /* prefix matches first */ (")
+						.append(DBConstants.FUNCNAME_unaccent_string).append("(").append(lookupInfo.getDisplayColumnSql()).append(", 1)")
+						.append(" ILIKE ")
+						.append(DBConstants.FUNCNAME_unaccent_string).append("(").append(LookupDataSourceContext.PARAM_FilterSqlPrefix).append(", 1)")
+						.append(") DESC")
+						.append(", ").append(lookup_SqlOrderBy)
+						.build();
+			}
+			else
+			{
+				sqlOrderBy = IStringExpression.composer().append(lookup_SqlOrderBy).build();
+			}
 
 			//
 			// Set the SQLs
 			{
 				sqlTableName = lookupInfo.getTableName();
 				zoomIntoWindowId = lookupInfo.getZoomAD_Window_ID_Override();
-				sqlForFetchingExpression = buildSqlForFetching(lookupInfo, sqlWhereFinal, lookup_SqlOrderBy)
+				sqlForFetchingExpression = buildSqlForFetching(lookupInfo, sqlWhereFinal, sqlOrderBy)
 						.caching();
 				sqlForFetchingDisplayNameByIdExpression = buildSqlForFetchingDisplayNameById(lookupInfo)
 						.caching();
@@ -498,7 +536,12 @@ public final class SqlLookupDescriptor implements LookupDescriptor
 			return validationRuleWhereClause;
 		}
 
-		private final IStringExpression buildSqlForFetching(final MLookupInfo lookupInfo, final IStringExpression sqlWhere, final String sqlOrderBy)
+		private static boolean isPrefixMatchesFirst(final String tableName)
+		{
+			return Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_PrefixMatchesFirst_Prefix + tableName, false);
+		}
+
+		private final IStringExpression buildSqlForFetching(final MLookupInfo lookupInfo, final IStringExpression sqlWhere, final IStringExpression sqlOrderBy)
 		{
 			final String tableName = lookupInfo.getTableName();
 			return IStringExpression.composer()
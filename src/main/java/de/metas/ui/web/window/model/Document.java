@@ -37,16 +37,21 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
 
 import de.metas.document.engine.IDocActionBL;
 import de.metas.document.exceptions.DocumentProcessingException;
 import de.metas.logging.LogManager;
+import de.metas.ui.web.cache.ETag;
+import de.metas.ui.web.cache.ETagAware;
 import de.metas.ui.web.window.WindowConstants;
 import de.metas.ui.web.window.datatypes.DataTypes;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.DocumentType;
+import de.metas.ui.web.window.datatypes.LookupValue;
 import de.metas.ui.web.window.datatypes.LookupValue.StringLookupValue;
 import de.metas.ui.web.window.datatypes.LookupValuesList;
 import de.metas.ui.web.window.datatypes.json.JSONDocumentChangedEvent;
@@ -62,6 +67,7 @@ import de.metas.ui.web.window.exceptions.DocumentNotFoundException;
 import de.metas.ui.web.window.exceptions.InvalidDocumentStateException;
 import de.metas.ui.web.window.model.IDocumentChangesCollector.ReasonSupplier;
 import de.metas.ui.web.window.model.IDocumentField.FieldInitializationMode;
+import de.metas.ui.web.window.model.lookup.LookupDataSource;
 import lombok.NonNull;
 
 /*
@@ -86,7 +92,7 @@ import lombok.NonNull;
  * #L%
  */
 
-public final class Document
+public final class Document implements ETagAware
 {
 	public static final Builder builder(final DocumentEntityDescriptor entityDescriptor)
 	{
@@ -95,6 +101,8 @@ public final class Document
 
 	private static final Logger logger = LogManager.getLogger(Document.class);
 
+	private static final Supplier<ETag> nextETagSupplier = ETagAware.newETagGenerator();
+
 	public static final Document NULL = null;
 
 	private static final ReasonSupplier REASON_Value_DirectSetOnDocument = () -> "direct set on Document";
@@ -152,6 +160,8 @@ public final class Document
 	//
 	// Misc
 	private Map<String, Object> _dynAttributes = null; // lazy
+	/** Generated for each document instance (including copies) */
+	private final ETag instanceETag = nextETagSupplier.get();
 
 	public static interface DocumentValuesSupplier
 	{
@@ -812,6 +822,23 @@ public final class Document
 				.toString();
 	}
 
+	/**
+	 * @return ETag of this document's data (not including the included documents).
+	 *         If the document was not changed since it was loaded, the ETag is derived from the document version, so it's the same for all instances loaded from the same database version.
+	 *         Else the ETag identifies this document instance, which is fine for readonly documents, because they are never changed (see {@link CopyMode#CheckInReadonly}).
+	 */
+	@Override
+	public ETag getETag()
+	{
+		final String version = getStale().getVersion();
+		if (version != null && getEntityDescriptor().getDataBinding().isVersioningSupported() && !hasChanges())
+		{
+			return ETag.of(0, ImmutableMap.of("id", getDocumentId().toJson(), "version", version));
+		}
+
+		return instanceETag;
+	}
+
 	public DocumentPath getDocumentPath()
 	{
 		return documentPath;
@@ -917,6 +944,34 @@ public final class Document
 		return ImmutableList.<IDocumentFieldView> copyOf(documentFields);
 	}
 
+	/**
+	 * Loads, in one go per lookup, the field lookup values of given documents which are not translated to given language yet (e.g. they were loaded without display name).
+	 * The loaded lookup values are cached, so they are found when the document fields are converted to JSON (see {@link IDocumentFieldView#getValueAsJsonObject(String)}).
+	 */
+	public static void preloadLookupValues(final Collection<Document> documents, final String adLanguage)
+	{
+		final SetMultimap<LookupDataSource, Object> idsToLoad = LinkedHashMultimap.create();
+		for (final Document document : documents)
+		{
+			for (final IDocumentField field : document.getFields())
+			{
+				final LookupDataSource lookupDataSource = field.getLookupDataSourceOrNull();
+				if (lookupDataSource == null)
+				{
+					continue;
+				}
+
+				final Object value = field.getValue();
+				if (value instanceof LookupValue && !((LookupValue)value).getDisplayNameTrl().isTranslatedTo(adLanguage))
+				{
+					idsToLoad.put(lookupDataSource, ((LookupValue)value).getId());
+				}
+			}
+		}
+
+		idsToLoad.asMap().forEach(LookupDataSource::findByIds);
+	}
+
 	public Set<String> getFieldNames()
 	{
 		return fieldsByName.keySet();
@@ -1932,6 +1987,35 @@ public final class Document
 		};
 	}
 
+	/**
+	 * @return true if this is a readonly document which can be shared between concurrent readers, because reading it won't change it
+	 */
+	/* package */ boolean isShareableReadonly()
+	{
+		if (isWritable())
+		{
+			return false;
+		}
+
+		return includedDocuments.values().stream().noneMatch(IIncludedDocumentsCollection::isChangedByReading);
+	}
+
+	/**
+	 * Estimates how much memory this document is using, expressed as number of fields, including the fields of the included documents which are currently loaded.
+	 */
+	/* package */ int estimateWeight()
+	{
+		int weight = fieldsByName.size();
+		for (final IIncludedDocumentsCollection includedDocumentsPerDetailId : includedDocuments.values())
+		{
+			for (final Document includedDocument : includedDocumentsPerDetailId.getLoadedDocuments())
+			{
+				weight += includedDocument.estimateWeight();
+			}
+		}
+		return weight;
+	}
+
 	public int getAD_Client_ID()
 	{
 		final IDocumentField field = getFieldOrNull(WindowConstants.FIELDNAME_AD_Client_ID);
@@ -1984,6 +2068,11 @@ public final class Document
 			return staled;
 		}
 
+		public String getVersion()
+		{
+			return version;
+		}
+
 		private boolean checkStaled()
 		{
 			if (staled)
@@ -1,9 +1,13 @@
 package de.metas.ui.web.window.model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -21,13 +25,16 @@ import org.compiere.util.Evaluatee;
 import org.compiere.util.Evaluatees;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -80,11 +87,38 @@ public class DocumentCollection
 	@Autowired
 	private UserSession userSession;
 
-	private final Cache<DocumentKey, Document> rootDocuments = CacheBuilder.newBuilder().build();
+	/**
+	 * Root documents cache, bounded by the documents weight (see {@link Document#estimateWeight()}) and by their idle time.
+	 * 
+	 * A document is weighed when it's put in cache. That's accurate because the cached documents are never changed afterwards:
+	 * readers are not changing them (see {@link #getReadonlyRootDocument(DocumentKey, IDocumentChangesCollector)}) and writers are putting a new document in cache on commit.
+	 * 
+	 * The documents which are currently used are also pinned (see {@link #pinnedDocuments}), so if they are evicted meanwhile, the users will still find the same document (and lock).
+	 */
+	private final Cache<DocumentKey, Document> rootDocuments;
+
+	/** Root documents which are currently used (locked or waiting for the lock). See {@link #pin(DocumentKey)} */
+	private final ConcurrentHashMap<DocumentKey, PinnedDocument> pinnedDocuments = new ConcurrentHashMap<>();
 
-	/* package */ DocumentCollection()
+	/** Incremented on each {@link #cacheReset()}, so documents which were pinned or loaded before the reset are not put back in cache */
+	private final AtomicLong cacheGeneration = new AtomicLong(0);
+
+	private final long maxWeight;
+
+	/* package */ DocumentCollection(
+			@Value("${metasfresh.webui.documents.cache.maxWeight:300000}") final long maxWeight,
+			@Value("${metasfresh.webui.documents.cache.expireAfterAccessMinutes:30}") final int expireAfterAccessMinutes)
 	{
 		super();
+
+		this.maxWeight = maxWeight;
+		rootDocuments = CacheBuilder.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher((final DocumentKey documentKey, final Document document) -> Math.max(document.estimateWeight(), 1))
+				.expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		logger.info("Root documents cache: maxWeight={}, expireAfterAccessMinutes={}", maxWeight, expireAfterAccessMinutes);
 	}
 
 	public DocumentDescriptorFactory getDocumentDescriptorFactory()
@@ -128,13 +162,43 @@ public class DocumentCollection
 
 	private Document getOrLoadDocument(final DocumentKey documentKey)
 	{
-		try
+		while (true)
 		{
-			return rootDocuments.get(documentKey, () -> retrieveRootDocumentFromRepository(documentKey).copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance));
-		}
-		catch (final ExecutionException e)
-		{
-			throw AdempiereException.wrapIfNeeded(e);
+			final long generation = cacheGeneration.get();
+
+			final Document document;
+			try
+			{
+				document = rootDocuments.get(documentKey, () -> {
+					// If the document is currently used, don't load a new instance (which would have a different lock),
+					// but only if the pinned document was not invalidated by a cache reset meanwhile.
+					final PinnedDocument pinnedDocument = pinnedDocuments.get(documentKey);
+					final Document pinnedDocumentSnapshot = pinnedDocument != null ? pinnedDocument.getDocumentIfGeneration(generation) : null;
+					if (pinnedDocumentSnapshot != null)
+					{
+						return pinnedDocumentSnapshot;
+					}
+
+					final Document documentLoaded = retrieveRootDocumentFromRepository(documentKey).copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance);
+					if (pinnedDocument != null)
+					{
+						pinnedDocument.setDocument(documentLoaded, generation);
+					}
+					return documentLoaded;
+				});
+			}
+			catch (final ExecutionException e)
+			{
+				throw AdempiereException.wrapIfNeeded(e);
+			}
+
+			if (cacheGeneration.get() == generation)
+			{
+				return document;
+			}
+
+			// The cache was reset while we were getting the document, so it might be staled (and cached again). Try again.
+			rootDocuments.asMap().remove(documentKey, document);
 		}
 	}
 
@@ -142,15 +206,78 @@ public class DocumentCollection
 	{
 		final DocumentKey rootDocumentKey = DocumentKey.ofRootDocumentPath(documentPath.getRootDocumentPath());
 
-		try (final IAutoCloseable readLock = getOrLoadDocument(rootDocumentKey).lockForReading())
+		try (final PinnedDocument pinnedDocument = pin(rootDocumentKey);
+				final IAutoCloseable readLock = pinnedDocument.lockForReading())
 		{
-			final Document rootDocument = getOrLoadDocument(rootDocumentKey).copy(CopyMode.CheckInReadonly, changesCollector);
+			final Document rootDocument = getReadonlyRootDocument(rootDocumentKey, changesCollector);
 			DocumentPermissionsHelper.assertCanView(rootDocument, UserSession.getCurrentPermissions());
 
 			return rootDocumentProcessor.apply(rootDocument);
 		}
 	}
 
+	/**
+	 * Gets the readonly root document for a reader which is holding the read lock.
+	 * 
+	 * If the reader is not collecting changes and reading the cached document won't change it (see {@link Document#isShareableReadonly()}),
+	 * the cached document is returned directly, without copying it. It's shared by all those readers and it's never changed:
+	 * writers are working on their own copy and on commit they are putting a new document in cache.
+	 * 
+	 * Else the reader gets its own copy.
+	 */
+	private Document getReadonlyRootDocument(final DocumentKey rootDocumentKey, final IDocumentChangesCollector changesCollector)
+	{
+		final Document cachedRootDocument = getOrLoadDocument(rootDocumentKey);
+		if (NullDocumentChangesCollector.isNull(changesCollector) && cachedRootDocument.isShareableReadonly())
+		{
+			return cachedRootDocument;
+		}
+
+		return cachedRootDocument.copy(CopyMode.CheckInReadonly, changesCollector);
+	}
+
+	/**
+	 * Pins the root document, i.e. makes sure that as long as the returned pin is not closed, the same document instance (and lock) is used, even if the document is evicted from cache.
+	 */
+	private PinnedDocument pin(final DocumentKey documentKey)
+	{
+		while (true)
+		{
+			final long generation = cacheGeneration.get();
+			final Document document = getOrLoadDocument(documentKey);
+			final PinnedDocument pinnedDocument = pinnedDocuments.compute(documentKey, (k, existingPinnedDocument) -> {
+				if (existingPinnedDocument != null)
+				{
+					existingPinnedDocument.incrementUsages();
+					return existingPinnedDocument;
+				}
+
+				// Pin it only if it's still the cached one; else it was evicted and we have to try again
+				if (rootDocuments.asMap().get(k) != document)
+				{
+					return null;
+				}
+				return new PinnedDocument(k, document, generation);
+			});
+
+			if (pinnedDocument != null)
+			{
+				return pinnedDocument;
+			}
+		}
+	}
+
+	private void unpin(final PinnedDocument pinnedDocument)
+	{
+		pinnedDocuments.computeIfPresent(pinnedDocument.getDocumentKey(), (k, existingPinnedDocument) -> {
+			if (existingPinnedDocument != pinnedDocument)
+			{
+				return existingPinnedDocument; // shall not happen
+			}
+			return existingPinnedDocument.decrementUsages() > 0 ? existingPinnedDocument : null;
+		});
+	}
+
 	public <R> R forDocumentWritable(final DocumentPath documentPath, final IDocumentChangesCollector changesCollector, final Function<Document, R> documentProcessor)
 	{
 		final DocumentPath rootDocumentPath = documentPath.getRootDocumentPath();
@@ -179,29 +306,28 @@ public class DocumentCollection
 	{
 		final DocumentPath rootDocumentPathOrNew = documentPathOrNew.getRootDocumentPath();
 
-		final Document lockHolder;
-		final boolean isNewRootDocument;
+		final Document newRootDocument;
+		final PinnedDocument pinnedDocument;
 		final DocumentKey rootDocumentKey;
 		if (rootDocumentPathOrNew.isNewDocument())
 		{
-			final Document newRootDocument = createRootDocument(rootDocumentPathOrNew, changesCollector);
-			lockHolder = newRootDocument;
+			newRootDocument = createRootDocument(rootDocumentPathOrNew, changesCollector);
 			rootDocumentKey = DocumentKey.ofRootDocumentPath(newRootDocument.getDocumentPath());
-			isNewRootDocument = true;
+			pinnedDocument = null; // nobody else knows about it, so no need to pin it
 		}
 		else
 		{
+			newRootDocument = null;
 			rootDocumentKey = DocumentKey.ofRootDocumentPath(rootDocumentPathOrNew);
-			lockHolder = getOrLoadDocument(rootDocumentKey);
-			isNewRootDocument = false;
+			pinnedDocument = pin(rootDocumentKey);
 		}
 
-		try (final IAutoCloseable readLock = lockHolder.lockForWriting())
+		try (final IAutoCloseable writeLock = pinnedDocument != null ? pinnedDocument.lockForWriting() : newRootDocument.lockForWriting())
 		{
 			final Document rootDocument;
-			if (isNewRootDocument)
+			if (newRootDocument != null)
 			{
-				rootDocument = lockHolder;
+				rootDocument = newRootDocument;
 			}
 			else
 			{
@@ -221,6 +347,7 @@ public class DocumentCollection
 			if (rootDocument.isDeleted())
 			{
 				rootDocuments.invalidate(rootDocumentKey);
+				pinnedDocuments.computeIfPresent(rootDocumentKey, (k, pinned) -> pinned.setDocument(null, cacheGeneration.get()));
 				changesCollector.collectDeleted(rootDocument.getDocumentPath());
 			}
 			else
@@ -231,6 +358,13 @@ public class DocumentCollection
 			// Return the result
 			return result;
 		}
+		finally
+		{
+			if (pinnedDocument != null)
+			{
+				pinnedDocument.close();
+			}
+		}
 	}
 
 	/**
@@ -288,9 +422,25 @@ public class DocumentCollection
 		return document;
 	}
 
+	public Map<String, Object> getCacheStats()
+	{
+		final CacheStats stats = rootDocuments.stats();
+
+		return ImmutableMap.<String, Object> builder()
+				.put("size", rootDocuments.size())
+				.put("maxWeight", maxWeight)
+				.put("pinned", pinnedDocuments.size())
+				.put("hitCount", stats.hitCount())
+				.put("missCount", stats.missCount())
+				.put("hitRate", stats.hitRate())
+				.put("evictionCount", stats.evictionCount())
+				.build();
+	}
+
 	public void cacheReset()
 	{
 		// TODO: invalidate only those which are: 1. NOW new; 2. NOT currently editing
+		cacheGeneration.incrementAndGet(); // NOTE: before invalidating, so the pinned documents are not put back in cache
 		rootDocuments.invalidateAll();
 		rootDocuments.cleanUp();
 	}
@@ -313,7 +463,9 @@ public class DocumentCollection
 		//
 		// Add the saved and changed document back to index
 		final DocumentKey rootDocumentKey = DocumentKey.of(rootDocument);
-		rootDocuments.put(rootDocumentKey, rootDocument.copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance));
+		final Document rootDocumentSnapshot = rootDocument.copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance);
+		rootDocuments.put(rootDocumentKey, rootDocumentSnapshot);
+		pinnedDocuments.computeIfPresent(rootDocumentKey, (k, pinned) -> pinned.setDocument(rootDocumentSnapshot, cacheGeneration.get()));
 
 		//
 		// Make sure all events were collected for the case when we just created the new document
@@ -480,6 +632,85 @@ public class DocumentCollection
 		}
 	}
 
+	/**
+	 * A root document which is currently used. It's kept until the last user closes it.
+	 */
+	private final class PinnedDocument implements IAutoCloseable
+	{
+		private final DocumentKey documentKey;
+		/** Latest committed version of the document, or null if it was deleted */
+		private Document document;
+		/** {@link #cacheGeneration} in which the {@link #document} was loaded or committed */
+		private long generation;
+		/** Lock shared by all versions of the document */
+		private final Document lockHolder;
+		private int usages = 1; // guarded by pinnedDocuments' compute
+
+		private PinnedDocument(@NonNull final DocumentKey documentKey, @NonNull final Document document, final long generation)
+		{
+			this.documentKey = documentKey;
+			this.document = document;
+			this.generation = generation;
+			lockHolder = document;
+		}
+
+		@Override
+		public String toString()
+		{
+			return MoreObjects.toStringHelper(this)
+					.add("documentKey", documentKey)
+					.add("usages", usages)
+					.toString();
+		}
+
+		public DocumentKey getDocumentKey()
+		{
+			return documentKey;
+		}
+
+		/**
+		 * @return latest version of the document, if it's from given cache generation; else null
+		 */
+		public synchronized Document getDocumentIfGeneration(final long expectedGeneration)
+		{
+			return generation == expectedGeneration ? document : null;
+		}
+
+		private synchronized PinnedDocument setDocument(final Document document, final long generation)
+		{
+			this.document = document;
+			this.generation = generation;
+			return this;
+		}
+
+		private void incrementUsages()
+		{
+			usages++;
+		}
+
+		private int decrementUsages()
+		{
+			usages--;
+			return usages;
+		}
+
+		public IAutoCloseable lockForReading()
+		{
+			return lockHolder.lockForReading();
+		}
+
+		public IAutoCloseable lockForWriting()
+		{
+			return lockHolder.lockForWriting();
+		}
+
+		@Override
+		public void close()
+		{
+			unpin(this);
+		}
+	}
+
 	@Immutable
 	private static final class DocumentKey
 	{
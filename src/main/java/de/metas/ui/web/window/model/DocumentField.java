@@ -147,7 +147,8 @@ import lombok.NonNull;
 		return descriptor;
 	}
 
-	private LookupDataSource getLookupDataSourceOrNull()
+	@Override
+	public LookupDataSource getLookupDataSourceOrNull()
 	{
 		return _lookupDataSource;
 	}
@@ -412,7 +413,7 @@ import lombok.NonNull;
 		final LookupDataSource lookupDataSource = getLookupDataSource();
 		final Evaluatee ctx = getDocument().asEvaluatee();
 		final LookupValuesList values = lookupDataSource.findEntities(ctx);
-		lookupValuesStaled = false;
+		markLookupValuesNotStaled();
 		return values == null ? LookupValuesList.EMPTY : values;
 	}
 
@@ -422,10 +423,21 @@ import lombok.NonNull;
 		final LookupDataSource lookupDataSource = getLookupDataSource();
 		final Evaluatee ctx = getDocument().asEvaluatee();
 		final LookupValuesList values = lookupDataSource.findEntities(ctx, query);
-		lookupValuesStaled = false;
+		markLookupValuesNotStaled();
 		return values;
 	}
 
+	private void markLookupValuesNotStaled()
+	{
+		// NOTE: readonly documents might be shared between readers, so don't change their state
+		if (!getDocument().isWritable())
+		{
+			return;
+		}
+
+		lookupValuesStaled = false;
+	}
+
 	@Override
 	public ICalloutField asCalloutField()
 	{
@@ -43,6 +43,13 @@ import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
  * #L%
  */
 
+/**
+ * Provides the {@link DocumentReference}s (i.e. zoom targets) of a given document.
+ *
+ * Retrieving the references is expensive because the records of each target window are counted,
+ * so it's done without holding the document lock: the {@link IZoomSource} is created from the readonly document which was provided to us,
+ * and which is never changed (see {@link DocumentCollection#forDocumentReadonly(DocumentPath, IDocumentChangesCollector, java.util.function.Function)}).
+ */
 @Service
 public class DocumentReferencesService
 {
@@ -51,35 +58,39 @@ public class DocumentReferencesService
 
 	public List<DocumentReference> getDocumentReferences(final DocumentPath documentPath)
 	{
-		return documentCollection.forDocumentReadonly(documentPath, NullDocumentChangesCollector.instance, document -> {
+		final DocumentAsZoomSource zoomSource = documentCollection.forDocumentReadonly(documentPath, NullDocumentChangesCollector.instance, document -> {
 			if (document.isNew())
 			{
-				return ImmutableList.of();
+				return null;
 			}
 
-			final DocumentAsZoomSource zoomSource = new DocumentAsZoomSource(document);
-
-			return ZoomInfoFactory.get()
-					.retrieveZoomInfos(zoomSource)
-					.stream()
-					.map(zoomInfo -> createDocumentReference(zoomInfo))
-					.collect(ImmutableList.toImmutableList());
+			return new DocumentAsZoomSource(document);
 		});
+		if (zoomSource == null)
+		{
+			return ImmutableList.of();
+		}
+
+		return ZoomInfoFactory.get()
+				.retrieveZoomInfos(zoomSource)
+				.stream()
+				.map(zoomInfo -> createDocumentReference(zoomInfo))
+				.collect(ImmutableList.toImmutableList());
 	}
 
 	public DocumentReference getDocumentReference(final DocumentPath sourceDocumentPath, final WindowId targetWindowId)
 	{
-		return documentCollection.forDocumentReadonly(sourceDocumentPath, NullDocumentChangesCollector.instance, sourceDocument -> {
+		final DocumentAsZoomSource zoomSource = documentCollection.forDocumentReadonly(sourceDocumentPath, NullDocumentChangesCollector.instance, sourceDocument -> {
 			if (sourceDocument.isNew())
 			{
 				throw new IllegalArgumentException("New documents cannot be referenced: " + sourceDocument);
 			}
 
-			final DocumentAsZoomSource zoomSource = new DocumentAsZoomSource(sourceDocument);
-
-			final ZoomInfo zoomInfo = ZoomInfoFactory.get().retrieveZoomInfo(zoomSource, targetWindowId.toInt());
-			return createDocumentReference(zoomInfo);
+			return new DocumentAsZoomSource(sourceDocument);
 		});
+
+		final ZoomInfo zoomInfo = ZoomInfoFactory.get().retrieveZoomInfo(zoomSource, targetWindowId.toInt());
+		return createDocumentReference(zoomInfo);
 	}
 
 	private static final DocumentReference createDocumentReference(final ZoomInfo zoomInfo)
@@ -104,6 +115,7 @@ public class DocumentReferencesService
 		private final int recordId;
 		private final String keyColumnName;
 		private final List<String> keyColumnNames;
+		/** Readonly document, which is never changed (see {@link DocumentCollection#forDocumentReadonly(DocumentPath, IDocumentChangesCollector, java.util.function.Function)}) */
 		private final Document document;
 
 		private DocumentAsZoomSource(final Document document)
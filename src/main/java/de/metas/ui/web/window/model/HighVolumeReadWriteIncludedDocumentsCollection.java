@@ -176,7 +176,11 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 			documents.addDocuments(documentsWithChanges.values());
 		}
 
-		staled = false;
+		// NOTE: readonly documents might be shared between readers, so don't change their state
+		if (parentDocument.isWritable())
+		{
+			staled = false;
+		}
 
 		return documents;
 	}
@@ -374,6 +378,12 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 		return staled;
 	}
 
+	@Override
+	public Collection<Document> getLoadedDocuments()
+	{
+		return getChangedDocuments();
+	}
+
 	@Override
 	public int getNextLineNo()
 	{
@@ -1,10 +1,12 @@
 package de.metas.ui.web.window.model;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.expression.api.LogicExpressionResult;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
@@ -163,6 +165,12 @@ public final class HighVolumeReadonlyIncludedDocumentsCollection implements IInc
 		return false;
 	}
 
+	@Override
+	public Collection<Document> getLoadedDocuments()
+	{
+		return ImmutableList.of();
+	}
+
 	@Override
 	public int getNextLineNo()
 	{
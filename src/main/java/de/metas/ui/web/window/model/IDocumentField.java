@@ -6,6 +6,7 @@ import org.adempiere.ad.expression.api.LogicExpressionResult;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.LookupValuesList;
 import de.metas.ui.web.window.model.Document.CopyMode;
+import de.metas.ui.web.window.model.lookup.LookupDataSource;
 
 /*
  * #%L
@@ -70,6 +71,9 @@ import de.metas.ui.web.window.model.Document.CopyMode;
 
 	boolean setLookupValuesStaled(String triggeringFieldName);
 
+	/** @return lookup data source or <code>null</code> if this is not a lookup field */
+	LookupDataSource getLookupDataSourceOrNull();
+
 	LookupValuesList getLookupValues();
 
 	LookupValuesList getLookupValuesForQuery(String query);
@@ -1,5 +1,6 @@
 package de.metas.ui.web.window.model;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.expression.api.LogicExpressionResult;
@@ -72,6 +73,17 @@ public interface IIncludedDocumentsCollection
 
 	int getNextLineNo();
 
+	/** @return the included documents which are currently loaded in memory; this method never loads documents */
+	Collection<Document> getLoadedDocuments();
+
+	/**
+	 * @return true if reading the included documents might change this collection (e.g. documents are lazy loaded into it), i.e. it cannot be shared between concurrent readers
+	 */
+	default boolean isChangedByReading()
+	{
+		return false;
+	}
+
 	default void onChildSaved(final Document document)
 	{
 		// nothing
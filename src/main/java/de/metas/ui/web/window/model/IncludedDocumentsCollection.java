@@ -160,6 +160,19 @@ public class IncludedDocumentsCollection implements IIncludedDocumentsCollection
 		return !_staleDocumentIds.isEmpty();
 	}
 
+	@Override
+	public Collection<Document> getLoadedDocuments()
+	{
+		return _documents.values();
+	}
+
+	@Override
+	public boolean isChangedByReading()
+	{
+		// documents are lazy loaded and refreshed while reading
+		return true;
+	}
+
 	private final boolean isStale(final DocumentId documentId)
 	{
 		if (_staleDocumentIds.contains(documentId))
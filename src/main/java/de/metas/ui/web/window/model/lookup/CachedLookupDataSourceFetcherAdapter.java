@@ -1,9 +1,20 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.service.ISysConfigBL;
 import org.adempiere.util.Check;
+import org.adempiere.util.Services;
 import org.compiere.util.CCache;
 import org.compiere.util.CCache.CCacheStats;
 
@@ -56,12 +67,23 @@ public final class CachedLookupDataSourceFetcherAdapter implements LookupDataSou
 
 	private static final String NAME = "PerPartition";
 
+	/** Cache max size. To configure it for a given lookup, append ".TableName" to the sysconfig name. */
+	private static final String SYSCONFIG_MaxSize = "de.metas.ui.web.window.model.lookup.CachedLookupDataSourceFetcherAdapter.MaxSize";
+	private static final int DEFAULT_MaxSize = 100;
+	/** Cache expiration. To configure it for a given lookup, append ".TableName" to the sysconfig name. */
+	private static final String SYSCONFIG_ExpireAfterMinutes = "de.metas.ui.web.window.model.lookup.CachedLookupDataSourceFetcherAdapter.ExpireAfterMinutes";
+	private static final int DEFAULT_ExpireAfterMinutes = 60 * 2;
+
 	private final LookupDataSourceFetcher delegate;
 	private final String cachePrefix;
 
 	private final transient CCache<LookupDataSourceContext, LookupValuesList> cache_retrieveEntities;
 	private final transient CCache<LookupDataSourceContext, LookupValue> cache_retrieveLookupValueById;
 
+	/** Loadings which are currently running, used to share the result between concurrent identical requests */
+	private final transient ConcurrentHashMap<LookupDataSourceContext, CompletableFuture<LookupValuesList>> loading_retrieveEntities = new ConcurrentHashMap<>();
+	private final transient ConcurrentHashMap<LookupDataSourceContext, CompletableFuture<LookupValue>> loading_retrieveLookupValueById = new ConcurrentHashMap<>();
+
 	private CachedLookupDataSourceFetcherAdapter(final LookupDataSourceFetcher delegate)
 	{
 		super();
@@ -70,13 +92,20 @@ public final class CachedLookupDataSourceFetcherAdapter implements LookupDataSou
 
 		cachePrefix = delegate.getCachePrefix();
 		Check.assumeNotEmpty(cachePrefix, "cachePrefix is not empty");
-		final int maxSize = 100;
-		final int expireAfterMinutes = 60 * 2;
+		final int maxSize = getSysConfigIntValue(SYSCONFIG_MaxSize, cachePrefix, DEFAULT_MaxSize);
+		final int expireAfterMinutes = getSysConfigIntValue(SYSCONFIG_ExpireAfterMinutes, cachePrefix, DEFAULT_ExpireAfterMinutes);
 		// NOTE: it's very important to have the lookupTableName as cache name prefix because we want the cache invalidation to happen for this table
 		cache_retrieveEntities = CCache.newLRUCache(cachePrefix + "#" + NAME + "#retrieveEntities", maxSize, expireAfterMinutes);
 		cache_retrieveLookupValueById = CCache.newLRUCache(cachePrefix + "#" + NAME + "#retrieveLookupValueById", maxSize, expireAfterMinutes);
 	}
 
+	private static int getSysConfigIntValue(final String sysconfigName, final String cachePrefix, final int defaultValue)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final int value = sysConfigBL.getIntValue(sysconfigName, defaultValue);
+		return sysConfigBL.getIntValue(sysconfigName + "." + cachePrefix, value);
+	}
+
 	@Override
 	public String toString()
 	{
@@ -128,7 +157,34 @@ public final class CachedLookupDataSourceFetcherAdapter implements LookupDataSou
 	@Override
 	public LookupValue retrieveLookupValueById(final LookupDataSourceContext evalCtx)
 	{
-		return cache_retrieveLookupValueById.getOrLoad(evalCtx, () -> delegate.retrieveLookupValueById(evalCtx));
+		return getOrLoad(cache_retrieveLookupValueById, loading_retrieveLookupValueById, evalCtx, () -> delegate.retrieveLookupValueById(evalCtx));
+	}
+
+	@Override
+	public Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		final Map<LookupDataSourceContext, LookupValue> result = new LinkedHashMap<>(evalCtxs.size());
+		final List<LookupDataSourceContext> evalCtxsToLoad = new ArrayList<>();
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final LookupValue lookupValue = cache_retrieveLookupValueById.get(evalCtx);
+			result.put(evalCtx, lookupValue); // NOTE: put it even if null, to preserve the order
+			if (lookupValue == null)
+			{
+				evalCtxsToLoad.add(evalCtx);
+			}
+		}
+
+		if (!evalCtxsToLoad.isEmpty())
+		{
+			final Map<LookupDataSourceContext, LookupValue> loadedLookupValues = delegate.retrieveLookupValuesByIds(evalCtxsToLoad);
+			loadedLookupValues.forEach((evalCtx, lookupValue) -> {
+				cache_retrieveLookupValueById.put(evalCtx, lookupValue);
+				result.put(evalCtx, lookupValue);
+			});
+		}
+
+		return result;
 	}
 
 	@Override
@@ -140,7 +196,124 @@ public final class CachedLookupDataSourceFetcherAdapter implements LookupDataSou
 	@Override
 	public LookupValuesList retrieveEntities(final LookupDataSourceContext evalCtx)
 	{
-		return cache_retrieveEntities.getOrLoad(evalCtx, () -> delegate.retrieveEntities(evalCtx));
+		return getOrLoad(cache_retrieveEntities, loading_retrieveEntities, evalCtx, () -> retrieveEntitiesFromCachedSupersetOrDelegate(evalCtx));
+	}
+
+	@Override
+	public boolean isOrderDependingOnFilter()
+	{
+		return delegate.isOrderDependingOnFilter();
+	}
+
+	/**
+	 * Typeahead optimization: if the user typed "abc" and we have a complete result for "ab" in cache,
+	 * then we can filter that result instead of querying again.
+	 */
+	private LookupValuesList retrieveEntitiesFromCachedSupersetOrDelegate(final LookupDataSourceContext evalCtx)
+	{
+		final LookupValuesList supersetResult = getCachedCompleteSupersetResultOrNull(evalCtx);
+		if (supersetResult != null)
+		{
+			final String filter = evalCtx.getFilter();
+			return supersetResult.filter(LookupValueFilterPredicates.of(filter), evalCtx.getOffset(0), evalCtx.getLimit(Integer.MAX_VALUE));
+		}
+
+		return delegate.retrieveEntities(evalCtx);
+	}
+
+	private LookupValuesList getCachedCompleteSupersetResultOrNull(final LookupDataSourceContext evalCtx)
+	{
+		final String filter = evalCtx.getFilter();
+		if (filter == null
+				|| filter == LookupDataSourceContext.FILTER_Any
+				|| filter.length() < 2
+				|| filter.indexOf('%') >= 0 || filter.indexOf('_') >= 0) // SQL wildcards, we cannot match them in memory
+		{
+			return null;
+		}
+
+		// NOTE: the post query predicate is applied after the SQL limit, so we cannot tell if the result was complete
+		if (evalCtx.hasPostQueryPredicate())
+		{
+			return null;
+		}
+
+		// NOTE: the superset result is ordered for the shorter filter (e.g. prefix matches first), so it's not in the right order for our filter
+		if (delegate.isOrderDependingOnFilter())
+		{
+			return null;
+		}
+
+		final int limit = evalCtx.getLimit(-1);
+		if (limit <= 0)
+		{
+			return null;
+		}
+
+		for (int supersetFilterLength = filter.length() - 1; supersetFilterLength > 0; supersetFilterLength--)
+		{
+			final String supersetFilter = filter.substring(0, supersetFilterLength).trim();
+			if (supersetFilter.isEmpty())
+			{
+				break;
+			}
+
+			final LookupDataSourceContext supersetEvalCtx = evalCtx.withFilter(supersetFilter, LookupDataSource.FIRST_ROW, limit);
+			final LookupValuesList supersetResult = cache_retrieveEntities.get(supersetEvalCtx);
+			if (supersetResult != null && supersetResult.getValues().size() < limit)
+			{
+				return supersetResult;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets the value from cache or loads it. If the same key is already loading, it waits for that loading and returns its result instead of loading it again.
+	 */
+	private static <V> V getOrLoad(
+			final CCache<LookupDataSourceContext, V> cache,
+			final ConcurrentHashMap<LookupDataSourceContext, CompletableFuture<V>> loadingFutures,
+			final LookupDataSourceContext evalCtx,
+			final Supplier<V> loader)
+	{
+		final V cachedValue = cache.get(evalCtx);
+		if (cachedValue != null)
+		{
+			return cachedValue;
+		}
+
+		final CompletableFuture<V> loadingFuture = new CompletableFuture<>();
+		final CompletableFuture<V> existingLoadingFuture = loadingFutures.putIfAbsent(evalCtx, loadingFuture);
+		if (existingLoadingFuture != null)
+		{
+			try
+			{
+				return existingLoadingFuture.join();
+			}
+			catch (final CompletionException ex)
+			{
+				throw AdempiereException.wrapIfNeeded(ex.getCause() != null ? ex.getCause() : ex);
+			}
+		}
+
+		try
+		{
+			final V value = loader.get();
+			cache.put(evalCtx, value);
+			loadingFuture.complete(value);
+			return value;
+		}
+		catch (final RuntimeException ex)
+		{
+			loadingFuture.completeExceptionally(ex);
+			throw ex;
+		}
+		finally
+		{
+			loadingFutures.remove(evalCtx, loadingFuture);
+		}
 	}
 	
 	@Override
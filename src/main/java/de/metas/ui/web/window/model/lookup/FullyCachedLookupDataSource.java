@@ -1,8 +1,9 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
 
 import org.adempiere.util.Check;
 import org.adempiere.util.lang.ITableRecordReference;
@@ -52,7 +53,8 @@ class FullyCachedLookupDataSource implements LookupDataSource
 
 	private final LookupDataSourceFetcher fetcher;
 
-	private final transient CCache<LookupDataSourceContext, LookupValuesList> cacheByPartition;
+	/** Indexed partitions, see {@link LookupValuesIndex} */
+	private final transient CCache<LookupDataSourceContext, LookupValuesIndex> cacheByPartition;
 
 	private FullyCachedLookupDataSource(final LookupDataSourceFetcher fetcher)
 	{
@@ -76,31 +78,30 @@ class FullyCachedLookupDataSource implements LookupDataSource
 	}
 
 	private LookupValuesList getLookupValuesList(final Evaluatee parentEvaluatee)
+	{
+		return getLookupValuesIndex(parentEvaluatee).getLookupValuesList();
+	}
+
+	private LookupValuesIndex getLookupValuesIndex(final Evaluatee parentEvaluatee)
 	{
 		final LookupDataSourceContext evalCtx = fetcher.newContextForFetchingList()
 				.setParentEvaluatee(parentEvaluatee)
 				.putFilter(LookupDataSourceContext.FILTER_Any, FIRST_ROW, Integer.MAX_VALUE)
 				.build();
 
-		return cacheByPartition.getOrLoad(evalCtx, () -> fetcher.retrieveEntities(evalCtx));
+		return cacheByPartition.getOrLoad(evalCtx, () -> LookupValuesIndex.of(fetcher.retrieveEntities(evalCtx)));
 	}
 
 	@Override
 	public LookupValuesList findEntities(final Evaluatee ctx, final String filter, final int firstRow, final int pageLength)
 	{
-		final LookupValuesList partition = getLookupValuesList(ctx);
-		if (partition.isEmpty())
-		{
-			return partition;
-		}
-
-		final Predicate<LookupValue> filterPredicate = LookupValueFilterPredicates.of(filter);
-		if (filterPredicate == LookupValueFilterPredicates.MATCH_ALL)
+		final LookupValuesIndex partition = getLookupValuesIndex(ctx);
+		if (partition.getLookupValuesList().isEmpty())
 		{
-			return partition.offsetAndLimit(firstRow, pageLength);
+			return partition.getLookupValuesList();
 		}
 
-		return partition.filter(filterPredicate, firstRow, pageLength);
+		return partition.filter(filter, firstRow, pageLength);
 	}
 
 	@Override
@@ -122,6 +123,20 @@ class FullyCachedLookupDataSource implements LookupDataSource
 		return partition.getById(idNormalized);
 	}
 
+	@Override
+	public LookupValuesList findByIds(final Collection<?> ids)
+	{
+		final boolean numericKey = fetcher.isNumericKey();
+		final LookupValuesList partition = getLookupValuesList(Evaluatees.empty());
+		return ids.stream()
+				.map(idObj -> LookupValue.normalizeId(idObj, numericKey))
+				.filter(Objects::nonNull)
+				.distinct()
+				.map(partition::getById)
+				.filter(Objects::nonNull)
+				.collect(LookupValuesList.collect());
+	}
+
 	@Override
 	public ITableRecordReference toTableRecordReference(int id)
 	{
@@ -1,5 +1,10 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,13 +15,19 @@ import org.adempiere.ad.expression.api.IStringExpression;
 import org.adempiere.ad.service.impl.LookupDAO.SQLNamePairIterator;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.validationRule.INamePairPredicate;
+import org.adempiere.exceptions.DBException;
 import org.compiere.util.CCache.CCacheStats;
 import org.compiere.util.DB;
+import org.compiere.util.Evaluatee;
+import org.compiere.util.Evaluatees;
 import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
 
 import de.metas.i18n.ITranslatableString;
 import de.metas.i18n.ImmutableTranslatableString;
@@ -28,6 +39,7 @@ import de.metas.ui.web.window.datatypes.LookupValue.StringLookupValue;
 import de.metas.ui.web.window.datatypes.LookupValuesList;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.descriptor.LookupDescriptor;
+import de.metas.ui.web.window.descriptor.sql.SqlArrays;
 import de.metas.ui.web.window.descriptor.sql.SqlLookupDescriptor;
 import lombok.NonNull;
 
@@ -62,9 +74,15 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 
 	private static final Logger logger = LogManager.getLogger(GenericSqlLookupDataSourceFetcher.class);
 
+	/** Max number of IDs to be fetched by one SQL query, see {@link #retrieveLookupValuesByIds(Collection)} */
+	private static final int RETRIEVE_BY_IDS_BatchSize = 500;
+	/** SQL key ID placeholder to be used when fetching multiple IDs, see {@link #retrieveDisplayNamesByIds(String, List)} */
+	private static final String SQL_KeyIdFromArray = "ids.id";
+
 	private final @NonNull String lookupTableName;
 	private final @NonNull Optional<String> lookupTableNameAsOptional;
 	private final boolean numericKey;
+	private final boolean prefixMatchesFirst;
 	private final int entityTypeIndex;
 
 	private final IStringExpression sqlForFetchingExpression;
@@ -86,6 +104,7 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 		lookupTableNameAsOptional = sqlLookupDescriptor.getTableName();
 		lookupTableName = lookupTableNameAsOptional.get();
 		numericKey = sqlLookupDescriptor.isNumericKey();
+		prefixMatchesFirst = sqlLookupDescriptor.isPrefixMatchesFirst();
 		entityTypeIndex = sqlLookupDescriptor.getEntityTypeIndex();
 		sqlForFetchingExpression = sqlLookupDescriptor.getSqlForFetchingExpression();
 		sqlForFetchingDisplayNameByIdExpression = sqlLookupDescriptor.getSqlForFetchingDisplayNameByIdExpression();
@@ -152,7 +171,8 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 	{
 		return LookupDataSourceContext.builder(lookupTableName)
 				.putPostQueryPredicate(postQueryPredicate)
-				.setRequiredParameters(sqlForFetchingExpression.getParameters());
+				.setRequiredParameters(sqlForFetchingExpression.getParameters())
+				.requiresFilterAndLimit(); // make sure the filter is available, see CachedLookupDataSourceFetcherAdapter
 	}
 
 	@Override
@@ -161,6 +181,12 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 		return numericKey;
 	}
 
+	@Override
+	public boolean isOrderDependingOnFilter()
+	{
+		return prefixMatchesFirst;
+	}
+
 	/**
 	 *
 	 * @param evalCtx
@@ -205,11 +231,101 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 
 		final String sqlDisplayName = sqlForFetchingDisplayNameByIdExpression.evaluate(evalCtx, OnVariableNotFound.Fail);
 		final String displayName = DB.getSQLValueStringEx(ITrx.TRXNAME_ThreadInherited, sqlDisplayName, id);
+		return toLookupValue(id, displayName, evalCtx);
+	}
+
+	/**
+	 * Retrieves the display names of all given IDs using one SQL query (per batch of {@value #RETRIEVE_BY_IDS_BatchSize} IDs), i.e.
+	 *
+	 * <pre>
+	 * SELECT ids.id, (SELECT DisplayName ... WHERE KeyColumn=ids.id) FROM unnest(?::integer[]) ids(id)
+	 * </pre>
+	 *
+	 * Only numeric keys are fetched in one go. The others are fetched one by one.
+	 */
+	@Override
+	public Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		if (!numericKey || evalCtxs.size() <= 1)
+		{
+			return LookupDataSourceFetcher.super.retrieveLookupValuesByIds(evalCtxs);
+		}
+
+		//
+		// Group the contexts by the SQL which would fetch their display name (normally, it's the same SQL for all of them)
+		final ListMultimap<String, LookupDataSourceContext> evalCtxsBySql = MultimapBuilder.linkedHashKeys().arrayListValues().build();
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final Evaluatee evalCtxForIdsArray = Evaluatees.mapBuilder()
+					.put(SqlLookupDescriptor.SQL_PARAM_KeyId, SQL_KeyIdFromArray)
+					.build()
+					.andComposeWith(evalCtx);
+			final String sqlDisplayName = sqlForFetchingDisplayNameByIdExpression.evaluate(evalCtxForIdsArray, OnVariableNotFound.Fail);
+			evalCtxsBySql.put(sqlDisplayName, evalCtx);
+		}
+
+		//
+		// Fetch the display names
+		final Map<LookupDataSourceContext, LookupValue> result = new LinkedHashMap<>(evalCtxs.size());
+		evalCtxs.forEach(evalCtx -> result.put(evalCtx, null)); // preserve the order
+		for (final String sqlDisplayName : evalCtxsBySql.keySet())
+		{
+			for (final List<LookupDataSourceContext> evalCtxsBatch : Iterables.partition(evalCtxsBySql.get(sqlDisplayName), RETRIEVE_BY_IDS_BatchSize))
+			{
+				final Map<Integer, String> displayNamesById = retrieveDisplayNamesByIds(sqlDisplayName, evalCtxsBatch);
+				for (final LookupDataSourceContext evalCtx : evalCtxsBatch)
+				{
+					final Object id = evalCtx.getIdToFilter();
+					result.put(evalCtx, toLookupValue(id, displayNamesById.get(id), evalCtx));
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private static Map<Integer, String> retrieveDisplayNamesByIds(final String sqlDisplayName, final List<LookupDataSourceContext> evalCtxs)
+	{
+		final int[] ids = evalCtxs.stream()
+				.mapToInt(evalCtx -> evalCtx.getIdToFilterAsInt(-1))
+				.toArray();
+
+		final String sql = "SELECT ids.id, (" + sqlDisplayName + "\n LIMIT 1)"
+				+ "\n FROM unnest(?::integer[]) ids(id)";
+		final Object[] sqlParams = new Object[] { SqlArrays.toSqlIntArray(ids) };
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+
+			final Map<Integer, String> displayNamesById = new HashMap<>(ids.length);
+			while (rs.next())
+			{
+				displayNamesById.put(rs.getInt(1), rs.getString(2));
+			}
+			return displayNamesById;
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private LookupValue toLookupValue(final Object id, final String displayName, final LookupDataSourceContext evalCtx)
+	{
 		if (displayName == null)
 		{
 			return LOOKUPVALUE_NULL;
 		}
-		
+
 		final ITranslatableString displayNameTrl;
 		if(isTranslatable)
 		{
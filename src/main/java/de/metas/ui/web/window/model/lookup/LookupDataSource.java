@@ -1,6 +1,8 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.adempiere.util.lang.ITableRecordReference;
@@ -58,6 +60,19 @@ public interface LookupDataSource extends LookupValueByIdSupplier
 	@Override
 	LookupValue findById(Object id);
 
+	/**
+	 * Finds the lookup values for given IDs. Implementations are advised to fetch them in one go.
+	 *
+	 * @return lookup values; IDs which were not found are skipped
+	 */
+	default LookupValuesList findByIds(final Collection<?> ids)
+	{
+		return ids.stream()
+				.map(this::findById)
+				.filter(Objects::nonNull)
+				.collect(LookupValuesList.collect());
+	}
+
 	List<CCacheStats> getCacheStats();
 	
 	@Override
@@ -1,9 +1,13 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.adempiere.util.Check;
+import org.adempiere.util.GuavaCollectors;
 import org.adempiere.util.lang.ITableRecordReference;
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.util.CCache.CCacheStats;
@@ -121,10 +125,7 @@ final class LookupDataSourceAdapter implements LookupDataSource
 
 		//
 		// Build the validation context
-		final LookupDataSourceContext evalCtx = fetcher.newContextForFetchingById(idNormalized)
-				.putFilterById(idNormalized)
-				.putShowInactive(true)
-				.build();
+		final LookupDataSourceContext evalCtx = newContextForFetchingById(idNormalized);
 
 		//
 		// Get the lookup value
@@ -136,6 +137,41 @@ final class LookupDataSourceAdapter implements LookupDataSource
 		return lookupValue;
 	}
 
+	@Override
+	public LookupValuesList findByIds(final Collection<?> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		final boolean numericKey = fetcher.isNumericKey();
+		final List<LookupDataSourceContext> evalCtxs = ids.stream()
+				.map(idObj -> LookupValue.normalizeId(idObj, numericKey))
+				.filter(Objects::nonNull)
+				.distinct()
+				.map(this::newContextForFetchingById)
+				.collect(GuavaCollectors.toImmutableList());
+		if (evalCtxs.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		final Map<LookupDataSourceContext, LookupValue> lookupValues = fetcher.retrieveLookupValuesByIds(evalCtxs);
+		return evalCtxs.stream()
+				.map(lookupValues::get)
+				.filter(lookupValue -> lookupValue != null && lookupValue != LookupDataSourceFetcher.LOOKUPVALUE_NULL)
+				.collect(LookupValuesList.collect());
+	}
+
+	private LookupDataSourceContext newContextForFetchingById(final Object idNormalized)
+	{
+		return fetcher.newContextForFetchingById(idNormalized)
+				.putFilterById(idNormalized)
+				.putShowInactive(true)
+				.build();
+	}
+
 	@Override
 	public List<CCacheStats> getCacheStats()
 	{
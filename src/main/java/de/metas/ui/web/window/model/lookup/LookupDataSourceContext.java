@@ -80,6 +80,8 @@ public final class LookupDataSourceContext implements Evaluatee2, IValidationCon
 
 	public static final CtxName PARAM_Filter = CtxName.parse("Filter");
 	public static final CtxName PARAM_FilterSql = CtxName.parse("FilterSql");
+	/** Same as {@link #PARAM_FilterSql} but matching only the values which are starting with the filter */
+	public static final CtxName PARAM_FilterSqlPrefix = CtxName.parse("FilterSqlPrefix");
 	public static final CtxName PARAM_Offset = CtxName.parse("Offset/0");
 	public static final CtxName PARAM_Limit = CtxName.parse("Limit/1000");
 
@@ -143,6 +145,31 @@ public final class LookupDataSourceContext implements Evaluatee2, IValidationCon
 				&& Objects.equals(postQueryPredicate, other.postQueryPredicate);
 	}
 
+	/**
+	 * @return a copy of this context, having the filter parameters (if any) replaced
+	 * @see Builder#putFilter(String, int, int)
+	 */
+	/* package */ LookupDataSourceContext withFilter(final String filter, final int offset, final int limit)
+	{
+		final Map<String, Object> values = new HashMap<>(parameterValues);
+		replaceValueIfPresent(values, PARAM_Filter, filter);
+		replaceValueIfPresent(values, PARAM_FilterSql, Builder.convertFilterToSql(filter));
+		replaceValueIfPresent(values, PARAM_FilterSqlPrefix, Builder.convertFilterToSqlPrefix(filter));
+		replaceValueIfPresent(values, PARAM_Offset, offset);
+		replaceValueIfPresent(values, PARAM_Limit, limit);
+		return new LookupDataSourceContext(lookupTableName, values, idToFilter, postQueryPredicate);
+	}
+
+	private static void replaceValueIfPresent(final Map<String, Object> values, final CtxName name, final Object value)
+	{
+		values.replace(name.getName(), value);
+	}
+
+	/* package */ boolean hasPostQueryPredicate()
+	{
+		return postQueryPredicate != null && postQueryPredicate != INamePairPredicate.NULL;
+	}
+
 	public String getFilter()
 	{
 		return get_ValueAsString(PARAM_Filter.getName());
@@ -398,6 +425,7 @@ public final class LookupDataSourceContext implements Evaluatee2, IValidationCon
 		{
 			putValue(PARAM_Filter, filter);
 			putValue(PARAM_FilterSql, convertFilterToSql(filter));
+			putValue(PARAM_FilterSqlPrefix, convertFilterToSqlPrefix(filter));
 			putValue(PARAM_Offset, offset);
 			putValue(PARAM_Limit, limit);
 
@@ -424,6 +452,22 @@ public final class LookupDataSourceContext implements Evaluatee2, IValidationCon
 			return DB.TO_STRING(searchSql);
 		}
 
+		private static final String convertFilterToSqlPrefix(final String filter)
+		{
+			if (filter == FILTER_Any)
+			{
+				return FILTER_Any_SQL;
+			}
+
+			String searchSql = filter;
+			if (!searchSql.endsWith("%"))
+			{
+				searchSql += "%";
+			}
+
+			return DB.TO_STRING(searchSql);
+		}
+
 		protected Builder putFilterByIdParameterName(final String sqlId)
 		{
 			putValue(SqlLookupDescriptor.SQL_PARAM_KeyId, sqlId);
@@ -1,6 +1,9 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.compiere.util.CCache.CCacheStats;
@@ -42,10 +45,32 @@ public interface LookupDataSourceFetcher
 
 	LookupValue retrieveLookupValueById(LookupDataSourceContext evalCtx);
 
+	/**
+	 * Retrieves the lookup values for given contexts, one context per ID (see {@link #newContextForFetchingById(Object)}).
+	 * Implementations are advised to fetch them in one go. The default implementation is fetching them one by one.
+	 *
+	 * @return lookup values indexed by context; the ones which were not found are mapped to {@link #LOOKUPVALUE_NULL}
+	 */
+	default Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		final Map<LookupDataSourceContext, LookupValue> result = new LinkedHashMap<>(evalCtxs.size());
+		evalCtxs.forEach(evalCtx -> result.put(evalCtx, retrieveLookupValueById(evalCtx)));
+		return result;
+	}
+
 	LookupDataSourceContext.Builder newContextForFetchingList();
 
 	LookupValuesList retrieveEntities(LookupDataSourceContext evalCtx);
 
+	/**
+	 * @return true if the order of the entities retrieved by {@link #retrieveEntities(LookupDataSourceContext)} depends on the filter (e.g. prefix matches first),
+	 *         i.e. the result for a filter cannot be obtained by filtering in memory the result of a shorter filter
+	 */
+	default boolean isOrderDependingOnFilter()
+	{
+		return false;
+	}
+
 	//
 	// Caching
 	//@formatter:off
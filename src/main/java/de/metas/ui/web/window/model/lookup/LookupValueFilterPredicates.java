@@ -1,6 +1,8 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.text.Normalizer;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import com.google.common.base.MoreObjects;
 
@@ -30,6 +32,10 @@ import de.metas.ui.web.window.datatypes.LookupValue;
 
 public final class LookupValueFilterPredicates
 {
+	/**
+	 * @return predicate which matches the lookup values whose display name contains given filter, ignoring the case and the diacritical marks (e.g. "muller" matches "Müller");
+	 *         {@link #MATCH_ALL} if the filter is null or blank
+	 */
 	public static final LookupValueFilterPredicate of(final String filter)
 	{
 		if (filter == null)
@@ -46,6 +52,18 @@ public final class LookupValueFilterPredicates
 		return new ContainsLookupValueFilterPredicate(filterNorm);
 	}
 
+	private static final Pattern PATTERN_DiacriticalMarks = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+	/**
+	 * Normalizes given string for case insensitive and accent insensitive matching (i.e. lower case, without diacritical marks),
+	 * same as the SQL lookups are doing it using <code>unaccent_string</code>.
+	 */
+	public static final String normalizeForMatching(final String str)
+	{
+		final String strWithoutAccents = PATTERN_DiacriticalMarks.matcher(Normalizer.normalize(str, Normalizer.Form.NFD)).replaceAll("");
+		return strWithoutAccents.toLowerCase();
+	}
+
 	public static interface LookupValueFilterPredicate extends Predicate<LookupValue>
 	{
 		@Override
@@ -82,7 +100,7 @@ public final class LookupValueFilterPredicates
 		private ContainsLookupValueFilterPredicate(final String filter)
 		{
 			super();
-			filterNormalized = normalizeString(filter);
+			filterNormalized = normalizeForMatching(filter);
 		}
 
 		@Override
@@ -93,11 +111,6 @@ public final class LookupValueFilterPredicates
 					.toString();
 		}
 
-		private static final String normalizeString(final String str)
-		{
-			return str.toLowerCase();
-		}
-
 		@Override
 		public boolean test(final LookupValue lookupValue)
 		{
@@ -112,7 +125,7 @@ public final class LookupValueFilterPredicates
 				return false;
 			}
 
-			final String displayNameNormalized = normalizeString(displayName);
+			final String displayNameNormalized = normalizeForMatching(displayName);
 
 			return displayNameNormalized.indexOf(filterNormalized) >= 0;
 		}
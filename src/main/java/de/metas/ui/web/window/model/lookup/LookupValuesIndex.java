@@ -0,0 +1,236 @@
+package de.metas.ui.web.window.model.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable trigram index of a {@link LookupValuesList}, used to answer typeahead queries without scanning all values.
+ *
+ * The matching is the same as {@link LookupValueFilterPredicates#of(String)} does (i.e. display name contains the filter, case and accent insensitive)
+ * and the matching values are returned in the same order as they are in the indexed list.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+/* package */ final class LookupValuesIndex
+{
+	public static final LookupValuesIndex of(@NonNull final LookupValuesList lookupValuesList)
+	{
+		return new LookupValuesIndex(lookupValuesList);
+	}
+
+	private static final int GRAM_SIZE = 3;
+	private static final int[] NO_POSITIONS = new int[0];
+
+	private final LookupValuesList lookupValuesList;
+	private final LookupValue[] values;
+	/** Normalized display names (see {@link LookupValueFilterPredicates#normalizeForMatching(String)}), indexed by position */
+	private final String[] displayNamesNormalized;
+	/** Ascending positions of the values which are containing a given trigram */
+	private final ImmutableMap<String, int[]> positionsByTrigram;
+
+	private LookupValuesIndex(final LookupValuesList lookupValuesList)
+	{
+		this.lookupValuesList = lookupValuesList;
+
+		values = lookupValuesList.getValues().toArray(new LookupValue[0]);
+		displayNamesNormalized = new String[values.length];
+
+		final Map<String, PositionsBuilder> positionsBuilders = new HashMap<>();
+		for (int position = 0; position < values.length; position++)
+		{
+			final String displayName = values[position].getDisplayName();
+			if (displayName == null)
+			{
+				continue;
+			}
+
+			final String displayNameNormalized = LookupValueFilterPredicates.normalizeForMatching(displayName);
+			displayNamesNormalized[position] = displayNameNormalized;
+
+			for (final String trigram : extractTrigrams(displayNameNormalized))
+			{
+				positionsBuilders.computeIfAbsent(trigram, k -> new PositionsBuilder()).add(position);
+			}
+		}
+
+		final ImmutableMap.Builder<String, int[]> positionsByTrigram = ImmutableMap.builder();
+		positionsBuilders.forEach((trigram, positionsBuilder) -> positionsByTrigram.put(trigram, positionsBuilder.toArray()));
+		this.positionsByTrigram = positionsByTrigram.build();
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("size", values.length)
+				.add("trigrams", positionsByTrigram.size())
+				.toString();
+	}
+
+	public LookupValuesList getLookupValuesList()
+	{
+		return lookupValuesList;
+	}
+
+	/**
+	 * Same as {@link LookupValuesList#filter(java.util.function.Predicate, int, int)} using {@link LookupValueFilterPredicates#of(String)}, but using the index.
+	 */
+	public LookupValuesList filter(final String filter, final int offset, final int maxSize)
+	{
+		final String filterNormalized = filter == null ? "" : LookupValueFilterPredicates.normalizeForMatching(filter.trim());
+		if (filterNormalized.isEmpty())
+		{
+			return lookupValuesList.offsetAndLimit(offset, maxSize);
+		}
+
+		final int offsetEffective = offset <= 0 ? 0 : offset;
+		final int maxSizeEffective = maxSize <= 0 ? Integer.MAX_VALUE : maxSize;
+
+		final List<LookupValue> result = new ArrayList<>();
+		int skipCount = offsetEffective;
+		final int[] candidatePositions = getCandidatePositions(filterNormalized);
+		final int candidatesCount = candidatePositions == null ? values.length : candidatePositions.length;
+		for (int i = 0; i < candidatesCount && result.size() < maxSizeEffective; i++)
+		{
+			final int position = candidatePositions == null ? i : candidatePositions[i];
+			final String displayNameNormalized = displayNamesNormalized[position];
+			if (displayNameNormalized == null || displayNameNormalized.indexOf(filterNormalized) < 0)
+			{
+				continue;
+			}
+
+			if (skipCount > 0)
+			{
+				skipCount--;
+				continue;
+			}
+
+			result.add(values[position]);
+		}
+
+		return result.stream().collect(LookupValuesList.collect(lookupValuesList.getDebugProperties()));
+	}
+
+	/**
+	 * @return ascending positions of the values which might match given filter or <code>null</code> if all values shall be checked (i.e. filter is too short to use the index)
+	 */
+	private int[] getCandidatePositions(final String filterNormalized)
+	{
+		if (filterNormalized.length() < GRAM_SIZE)
+		{
+			return null;
+		}
+
+		final List<int[]> positionsList = new ArrayList<>();
+		for (final String trigram : extractTrigrams(filterNormalized))
+		{
+			final int[] positions = positionsByTrigram.get(trigram);
+			if (positions == null)
+			{
+				return NO_POSITIONS;
+			}
+			positionsList.add(positions);
+		}
+
+		// Intersect, starting from the shortest positions list
+		positionsList.sort(Comparator.comparing(positions -> positions.length));
+		int[] candidatePositions = positionsList.get(0);
+		for (int i = 1; i < positionsList.size() && candidatePositions.length > 0; i++)
+		{
+			candidatePositions = intersect(candidatePositions, positionsList.get(i));
+		}
+		return candidatePositions;
+	}
+
+	private static Set<String> extractTrigrams(final String str)
+	{
+		final Set<String> trigrams = new LinkedHashSet<>();
+		for (int i = 0, count = str.length() - GRAM_SIZE + 1; i < count; i++)
+		{
+			trigrams.add(str.substring(i, i + GRAM_SIZE));
+		}
+		return trigrams;
+	}
+
+	private static int[] intersect(final int[] positions1, final int[] positions2)
+	{
+		final int[] result = new int[Math.min(positions1.length, positions2.length)];
+		int count = 0;
+		int i1 = 0;
+		int i2 = 0;
+		while (i1 < positions1.length && i2 < positions2.length)
+		{
+			if (positions1[i1] < positions2[i2])
+			{
+				i1++;
+			}
+			else if (positions1[i1] > positions2[i2])
+			{
+				i2++;
+			}
+			else
+			{
+				result[count++] = positions1[i1];
+				i1++;
+				i2++;
+			}
+		}
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+
+	private static final class PositionsBuilder
+	{
+		private int[] positions = new int[4];
+		private int size = 0;
+
+		public void add(final int position)
+		{
+			if (size == positions.length)
+			{
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			positions[size++] = position;
+		}
+
+		public int[] toArray()
+		{
+			return Arrays.copyOf(positions, size);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package de.metas.ui.web.menu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.ui.web.menu.MenuNode.MenuNodeType;
+import de.metas.ui.web.menu.exception.NoMenuNodesFoundException;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class MenuTreeTest
+{
+	private int nextMenuId = 1;
+
+	private final MenuTree menuTree = MenuTree.of(1, group("Root",
+			group("Sales",
+					window("Sales Order"),
+					window("Rechnung Übersicht")),
+			group("Purchase",
+					window("Purchase Order"),
+					window("Vendor"))));
+
+	@Test
+	public void test_filter_substring()
+	{
+		Assert.assertEquals(ImmutableList.of("Sales Order", "Purchase Order"), filterAndGetMatchingCaptions("order"));
+	}
+
+	@Test
+	public void test_filter_ignoreCaseAndDiacritics()
+	{
+		Assert.assertEquals(ImmutableList.of("Rechnung Übersicht"), filterAndGetMatchingCaptions("UBERS"));
+	}
+
+	@Test
+	public void test_filter_queryShorterThanNGram()
+	{
+		Assert.assertEquals(ImmutableList.of("Vendor"), filterAndGetMatchingCaptions("ve"));
+	}
+
+	@Test
+	public void test_filter_matchingGroup()
+	{
+		Assert.assertEquals(ImmutableList.of("Sales", "Sales Order"), filterAndGetMatchingCaptions("sales"));
+	}
+
+	@Test
+	public void test_filter_noMatch()
+	{
+		Assert.assertEquals(ImmutableList.of(), filterAndGetMatchingCaptions("invoice"));
+	}
+
+	@Test
+	public void test_withOnlyNodeIndexes()
+	{
+		final ImmutableSet<String> accessibleCaptions = ImmutableSet.of("Sales Order", "Vendor");
+		final MenuTree roleMenuTree = menuTree.withOnlyNodeIndexes(2, menuTree.getNodeIndexes(node -> accessibleCaptions.contains(node.getCaption())));
+
+		Assert.assertEquals(ImmutableList.of("Root", "Sales", "Sales Order", "Purchase", "Vendor"), getCaptions(roleMenuTree.getRootNode()));
+		Assert.assertEquals(ImmutableList.of("Sales Order"), filterAndGetMatchingCaptions(roleMenuTree, "order"));
+		Assert.assertSame(roleMenuTree.getRootNode().getChildren().get(0), roleMenuTree.getNodeById(roleMenuTree.getRootNode().getChildren().get(0).getId()));
+	}
+
+	@Test(expected = NoMenuNodesFoundException.class)
+	public void test_withOnlyNodeIndexes_notVisibleNode()
+	{
+		final MenuTree roleMenuTree = menuTree.withOnlyNodeIndexes(2, menuTree.getNodeIndexes(node -> "Vendor".equals(node.getCaption())));
+		final MenuNode salesNode = menuTree.getRootNode().getChildren().get(0);
+		roleMenuTree.getNodeById(salesNode.getId());
+	}
+
+	private static List<String> getCaptions(final MenuNode rootNode)
+	{
+		final List<String> captions = new ArrayList<>();
+		rootNode.iterate(node -> captions.add(node.getCaption()));
+		return captions;
+	}
+
+	private List<String> filterAndGetMatchingCaptions(final String nameQuery)
+	{
+		return filterAndGetMatchingCaptions(menuTree, nameQuery);
+	}
+
+	private static List<String> filterAndGetMatchingCaptions(final MenuTree menuTree, final String nameQuery)
+	{
+		final MenuNode filteredRootNode = menuTree.filter(nameQuery, false);
+		final List<String> captions = new ArrayList<>();
+		if (filteredRootNode != null)
+		{
+			filteredRootNode.iterate(node -> {
+				if (node.isMatchedByFilter() && !node.isRoot())
+				{
+					captions.add(node.getCaption());
+				}
+			});
+		}
+		return captions;
+	}
+
+	private MenuNode group(final String caption, final MenuNode... children)
+	{
+		return MenuNode.builder()
+				.setAD_Menu_ID(nextMenuId++)
+				.setCaption(caption)
+				.setType(MenuNodeType.Group, null)
+				.addChildren(ImmutableList.copyOf(children))
+				.build();
+	}
+
+	private MenuNode window(final String caption)
+	{
+		return MenuNode.builder()
+				.setAD_Menu_ID(nextMenuId++)
+				.setCaption(caption)
+				.setType(MenuNodeType.Window, String.valueOf(nextMenuId))
+				.build();
+	}
+}
@@ -0,0 +1,131 @@
+package de.metas.ui.web.view;
+
+import java.sql.ResultSet;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding;
+import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding.SqlViewRowFieldLoader;
+import de.metas.ui.web.window.datatypes.DocumentId;
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.descriptor.DocumentFieldWidgetType;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class SqlViewRowLoaderTest
+{
+	/** The field loaders used in this test are not reading from the result set */
+	private final ResultSet rs = null;
+	private final WindowId windowId = WindowId.of(123);
+
+	@Test
+	public void test_loadViewRow()
+	{
+		final SqlViewRowLoader rowLoader = SqlViewRowLoader.of(ImmutableList.of(
+				field("Name", false, (rs, adLanguage) -> "name1"),
+				field("C_Order_ID", true, (rs, adLanguage) -> 1001),
+				field("Description", false, (rs, adLanguage) -> null),
+				field("DocumentNo", false, (rs, adLanguage) -> "doc1")));
+
+		final IViewRow row = loadViewRow(rowLoader);
+
+		Assert.assertEquals(DocumentId.of(1001), row.getId());
+		Assert.assertEquals(
+				ImmutableMap.of("Name", "name1", "C_Order_ID", 1001, "DocumentNo", "doc1"),
+				row.getFieldNameAndJsonValues());
+	}
+
+	@Test
+	public void test_loadViewRow_preserveFieldsOrder()
+	{
+		final SqlViewRowLoader rowLoader = SqlViewRowLoader.of(ImmutableList.of(
+				field("Name", false, (rs, adLanguage) -> "name1"),
+				field("C_Order_ID", true, (rs, adLanguage) -> 1001),
+				field("DocumentNo", false, (rs, adLanguage) -> "doc1")));
+
+		final Map<String, Object> values = loadViewRow(rowLoader).getFieldNameAndJsonValues();
+
+		Assert.assertEquals(ImmutableList.of("Name", "C_Order_ID", "DocumentNo"), ImmutableList.copyOf(values.keySet()));
+	}
+
+	@Test
+	public void test_loadViewRow_NoKey()
+	{
+		final SqlViewRowLoader rowLoader = SqlViewRowLoader.of(ImmutableList.of(
+				field("C_Order_ID", true, (rs, adLanguage) -> null),
+				field("Name", false, (rs, adLanguage) -> {
+					throw new AssertionError("shall not be called when there is no key");
+				})));
+
+		Assert.assertNull(loadViewRow(rowLoader));
+	}
+
+	@Test
+	public void test_loadViewRow_NoKeyField()
+	{
+		final SqlViewRowLoader rowLoader = SqlViewRowLoader.of(ImmutableList.of(
+				field("Name", false, (rs, adLanguage) -> "name1")));
+
+		try
+		{
+			rowLoader.loadViewRow(rs, windowId, "en_US");
+			Assert.fail("Shall fail because there is no row ID");
+		}
+		catch (final IllegalStateException ex)
+		{
+			// expected: the row ID is mandatory
+		}
+		catch (final Exception ex)
+		{
+			throw new AssertionError("Unexpected exception", ex);
+		}
+	}
+
+	private IViewRow loadViewRow(final SqlViewRowLoader rowLoader)
+	{
+		try
+		{
+			return rowLoader.loadViewRow(rs, windowId, "en_US");
+		}
+		catch (final Exception ex)
+		{
+			throw new AssertionError("Failed loading row", ex);
+		}
+	}
+
+	private static SqlViewRowFieldBinding field(final String fieldName, final boolean keyColumn, final SqlViewRowFieldLoader fieldLoader)
+	{
+		return SqlViewRowFieldBinding.builder()
+				.fieldName(fieldName)
+				.keyColumn(keyColumn)
+				.widgetType(DocumentFieldWidgetType.Text)
+				.sqlValueClass(String.class)
+				.fieldLoader(fieldLoader)
+				.build();
+	}
+}
@@ -0,0 +1,218 @@
+package de.metas.ui.web.view;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder.SqlAndParams;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Benchmark which compares adding/removing 10/100/1000 row IDs to/from a view selection using one statement per row (as it was done before)
+ * with the set-based statements of {@link SqlViewSelectionQueryBuilder}.
+ *
+ * It's not part of the regular test suite (not a <code>*Test</code> class) and it needs a PostgreSQL database, so run it manually, e.g.
+ *
+ * <pre>
+ * mvn test -Dtest=SqlViewSelectionAddRemoveBenchmark -Dbenchmark.jdbcUrl=jdbc:postgresql://localhost/metasfresh -Dbenchmark.jdbcUser=metasfresh -Dbenchmark.jdbcPassword=metasfresh
+ * </pre>
+ *
+ * The benchmark works on a temporary <code>T_WEBUI_ViewSelection</code> table, which shadows the real one for the benchmark's connection.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public class SqlViewSelectionAddRemoveBenchmark
+{
+	private static final int EXISTING_ROWS_COUNT = 10000;
+	private static final int ITERATIONS = 20;
+
+	private Connection connection;
+
+	@Before
+	public void openConnection() throws SQLException
+	{
+		final String jdbcUrl = System.getProperty("benchmark.jdbcUrl");
+		Assume.assumeTrue("benchmark.jdbcUrl is not set", jdbcUrl != null && !jdbcUrl.trim().isEmpty());
+
+		connection = DriverManager.getConnection(jdbcUrl, System.getProperty("benchmark.jdbcUser"), System.getProperty("benchmark.jdbcPassword"));
+		try (final Statement stmt = connection.createStatement())
+		{
+			stmt.execute("CREATE TEMPORARY TABLE T_WEBUI_ViewSelection (UUID character varying(60) NOT NULL, Line numeric(10,0) NOT NULL, Record_ID numeric(10,0) NOT NULL)");
+			stmt.execute("CREATE UNIQUE INDEX ON T_WEBUI_ViewSelection (UUID, Record_ID)");
+		}
+	}
+
+	@After
+	public void closeConnection() throws SQLException
+	{
+		if (connection != null)
+		{
+			connection.close(); // also drops the temporary table
+			connection = null;
+		}
+	}
+
+	@Test
+	public void benchmark() throws SQLException
+	{
+		// Warm up
+		for (final int rowsCount : new int[] { 10, 100, 1000 })
+		{
+			addAndRemovePerRow(rowsCount);
+			addAndRemoveSetBased(rowsCount);
+		}
+
+		for (final int rowsCount : new int[] { 10, 100, 1000 })
+		{
+			final Stopwatch perRowStopwatch = Stopwatch.createUnstarted();
+			final Stopwatch setBasedStopwatch = Stopwatch.createUnstarted();
+			for (int i = 0; i < ITERATIONS; i++)
+			{
+				perRowStopwatch.start();
+				addAndRemovePerRow(rowsCount);
+				perRowStopwatch.stop();
+
+				setBasedStopwatch.start();
+				addAndRemoveSetBased(rowsCount);
+				setBasedStopwatch.stop();
+			}
+
+			System.out.println("Add and remove " + rowsCount + " rows, " + ITERATIONS + " times:"
+					+ " per row=" + perRowStopwatch
+					+ ", set based=" + setBasedStopwatch);
+		}
+	}
+
+	private void addAndRemovePerRow(final int rowsCount) throws SQLException
+	{
+		final String selectionId = createSelection();
+		final int[] rowIds = generateRowIds(rowsCount);
+
+		for (final int rowId : rowIds)
+		{
+			executeUpdate("INSERT INTO T_WEBUI_ViewSelection (UUID, Line, Record_ID)"
+					+ " SELECT ?, (SELECT MAX(Line) FROM T_WEBUI_ViewSelection z WHERE z.UUID=?), ?"
+					+ " WHERE NOT EXISTS (SELECT 1 FROM T_WEBUI_ViewSelection z WHERE z.UUID=? AND z.Record_ID=?)",
+					selectionId, selectionId, rowId, selectionId, rowId);
+		}
+		retrieveSize(selectionId);
+
+		executeUpdate("DELETE FROM T_WEBUI_ViewSelection WHERE UUID=? AND Record_ID IN (" + joinRowIds(rowIds) + ")", selectionId);
+		retrieveSize(selectionId);
+
+		deleteSelection(selectionId);
+	}
+
+	private void addAndRemoveSetBased(final int rowsCount) throws SQLException
+	{
+		final String selectionId = createSelection();
+		final int[] rowIds = generateRowIds(rowsCount);
+
+		executeUpdate(SqlViewSelectionQueryBuilder.buildSqlAddRowIdsToSelection(selectionId, rowIds));
+		retrieveSize(selectionId);
+
+		final DocumentIdsSelection rowIdsToRemove = DocumentIdsSelection.ofIntSet(IntStream.of(rowIds).boxed().collect(ImmutableSet.toImmutableSet()));
+		executeUpdate(SqlViewSelectionQueryBuilder.buildSqlRemoveRowIdsFromSelection(selectionId, rowIdsToRemove));
+		retrieveSize(selectionId);
+
+		deleteSelection(selectionId);
+	}
+
+	private String createSelection() throws SQLException
+	{
+		final String selectionId = UUID.randomUUID().toString();
+		executeUpdate("INSERT INTO T_WEBUI_ViewSelection (UUID, Line, Record_ID) SELECT ?, i, i FROM generate_series(1, ?) i", selectionId, EXISTING_ROWS_COUNT);
+		return selectionId;
+	}
+
+	private void deleteSelection(final String selectionId) throws SQLException
+	{
+		executeUpdate("DELETE FROM T_WEBUI_ViewSelection WHERE UUID=?", selectionId);
+	}
+
+	private static int[] generateRowIds(final int rowsCount)
+	{
+		// NOTE: not overlapping with the existing rows
+		return IntStream.range(0, rowsCount).map(i -> EXISTING_ROWS_COUNT + 1 + i).toArray();
+	}
+
+	private static String joinRowIds(final int[] rowIds)
+	{
+		final StringBuilder sql = new StringBuilder();
+		for (final int rowId : rowIds)
+		{
+			if (sql.length() > 0)
+			{
+				sql.append(",");
+			}
+			sql.append(rowId);
+		}
+		return sql.toString();
+	}
+
+	private void retrieveSize(final String selectionId) throws SQLException
+	{
+		try (final PreparedStatement pstmt = connection.prepareStatement("SELECT COUNT(1) FROM T_WEBUI_ViewSelection WHERE UUID=?"))
+		{
+			pstmt.setString(1, selectionId);
+			try (final ResultSet rs = pstmt.executeQuery())
+			{
+				rs.next();
+			}
+		}
+	}
+
+	private void executeUpdate(final SqlAndParams sqlAndParams) throws SQLException
+	{
+		executeUpdate(sqlAndParams.getSql(), sqlAndParams.getSqlParamsArray());
+	}
+
+	private void executeUpdate(final String sql, final Object... sqlParams) throws SQLException
+	{
+		try (final PreparedStatement pstmt = connection.prepareStatement(sql))
+		{
+			for (int i = 0; i < sqlParams.length; i++)
+			{
+				pstmt.setObject(i + 1, sqlParams[i]);
+			}
+			pstmt.executeUpdate();
+		}
+	}
+}
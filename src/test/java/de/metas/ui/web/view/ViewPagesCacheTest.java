@@ -0,0 +1,214 @@
+package de.metas.ui.web.view;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.ui.web.view.ViewPagesCache.PageLoader;
+import de.metas.ui.web.window.datatypes.DocumentId;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import de.metas.ui.web.window.datatypes.WindowId;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ViewPagesCacheTest
+{
+	private static final int PAGE_LENGTH = 10;
+
+	private final WindowId windowId = WindowId.of(123);
+	private ViewRowIdsOrderedSelection selection;
+
+	/** Prefetch tasks, which are executed only when the test calls {@link #runPrefetchTasks()} */
+	private final List<Runnable> prefetchTasks = new ArrayList<>();
+	/** Current "database" version of each row */
+	private final Map<Integer, Integer> rowVersions = new HashMap<>();
+	/** How many times each page (by firstRow) was loaded */
+	private final Map<Integer, Integer> loadCounts = new HashMap<>();
+	/** Called by the page loader after it loaded the page but before returning it */
+	private Runnable afterPageLoaded = () -> {};
+
+	@Before
+	public void init()
+	{
+		selection = ViewRowIdsOrderedSelection.builder()
+				.setViewId(ViewId.random(windowId))
+				.setSize(100)
+				.build();
+	}
+
+	private ViewPagesCache newCache(final int prefetchPages)
+	{
+		return new ViewPagesCache("Test#pages", 20, 1, prefetchPages, prefetchTasks::add);
+	}
+
+	private final PageLoader pageLoader = (orderedSelection, firstRow, pageLength) -> {
+		loadCounts.merge(firstRow, 1, Integer::sum);
+
+		final List<IViewRow> page = new ArrayList<>();
+		for (int rowId = firstRow + 1; rowId <= firstRow + pageLength; rowId++)
+		{
+			page.add(ViewRow.builder(windowId)
+					.setRowId(DocumentId.of(rowId))
+					.putFieldValue("Version", rowVersions.getOrDefault(rowId, 0))
+					.build());
+		}
+
+		afterPageLoaded.run();
+		return page;
+	};
+
+	private List<IViewRow> getOrLoad(final ViewPagesCache cache, final int firstRow)
+	{
+		return cache.getOrLoad(selection, firstRow, PAGE_LENGTH, pageLoader);
+	}
+
+	private void runPrefetchTasks()
+	{
+		final List<Runnable> tasks = ImmutableList.copyOf(prefetchTasks);
+		prefetchTasks.clear();
+		tasks.forEach(Runnable::run);
+	}
+
+	/** Simulates that the row was changed in database */
+	private void changeRow(final int rowId)
+	{
+		rowVersions.merge(rowId, 1, Integer::sum);
+	}
+
+	private static void assertRowVersion(final int expectedVersion, final List<IViewRow> page, final int rowId)
+	{
+		final IViewRow row = page.stream().filter(r -> r.getId().equals(DocumentId.of(rowId))).findFirst().get();
+		Assert.assertEquals("Version of row " + rowId, expectedVersion, row.getFieldNameAndJsonValues().get("Version"));
+	}
+
+	private int getLoadCount(final int firstRow)
+	{
+		return loadCounts.getOrDefault(firstRow, 0);
+	}
+
+	@Test
+	public void test_getOrLoad_PageIsCached()
+	{
+		final ViewPagesCache cache = newCache(0);
+
+		final List<IViewRow> page1 = getOrLoad(cache, 0);
+		final List<IViewRow> page2 = getOrLoad(cache, 0);
+
+		Assert.assertSame(page1, page2);
+		Assert.assertEquals(1, getLoadCount(0));
+		Assert.assertTrue("No prefetching when PrefetchPages=0", prefetchTasks.isEmpty());
+	}
+
+	@Test
+	public void test_invalidate_OnlyPagesContainingTheRows()
+	{
+		final ViewPagesCache cache = newCache(0);
+		getOrLoad(cache, 0);
+		getOrLoad(cache, 10);
+
+		changeRow(15);
+		cache.invalidate(DocumentIdsSelection.of(ImmutableList.of(DocumentId.of(15))));
+
+		getOrLoad(cache, 0);
+		assertRowVersion(1, getOrLoad(cache, 10), 15);
+		Assert.assertEquals(1, getLoadCount(0));
+		Assert.assertEquals(2, getLoadCount(10));
+	}
+
+	@Test
+	public void test_prefetchedPageIsServed()
+	{
+		final ViewPagesCache cache = newCache(1);
+
+		getOrLoad(cache, 0);
+		Assert.assertEquals(1, prefetchTasks.size());
+		runPrefetchTasks();
+		Assert.assertEquals(1, getLoadCount(10));
+
+		getOrLoad(cache, 10);
+		Assert.assertEquals("Page shall not be loaded again", 1, getLoadCount(10));
+		Assert.assertEquals(1L, cache.getPrefetchStats().get("served"));
+		Assert.assertEquals(0L, cache.getPrefetchStats().get("wasted"));
+	}
+
+	@Test
+	public void test_invalidateBeforePrefetchStarts()
+	{
+		final ViewPagesCache cache = newCache(1);
+		getOrLoad(cache, 0);
+
+		changeRow(15);
+		cache.invalidate(DocumentIdsSelection.of(ImmutableList.of(DocumentId.of(15))));
+		runPrefetchTasks();
+		Assert.assertEquals("Prefetch shall be skipped", 0, getLoadCount(10));
+
+		assertRowVersion(1, getOrLoad(cache, 10), 15);
+		Assert.assertEquals(1, getLoadCount(10));
+	}
+
+	@Test
+	public void test_invalidateWhilePrefetchIsLoading()
+	{
+		final ViewPagesCache cache = newCache(1);
+		getOrLoad(cache, 0);
+
+		// The row is changed after the prefetch loaded it but before the prefetched page is added to cache
+		afterPageLoaded = () -> {
+			afterPageLoaded = () -> {};
+			changeRow(15);
+			cache.invalidate(DocumentIdsSelection.of(ImmutableList.of(DocumentId.of(15))));
+		};
+		runPrefetchTasks();
+		Assert.assertEquals(1, getLoadCount(10));
+
+		assertRowVersion(1, getOrLoad(cache, 10), 15);
+		Assert.assertEquals("Staled prefetched page shall not be served", 2, getLoadCount(10));
+		Assert.assertEquals(1L, cache.getPrefetchStats().get("wasted"));
+	}
+
+	@Test
+	public void test_invalidateAllWhilePrefetchIsLoading()
+	{
+		final ViewPagesCache cache = newCache(1);
+		getOrLoad(cache, 0);
+
+		afterPageLoaded = () -> {
+			afterPageLoaded = () -> {};
+			changeRow(1);
+			cache.invalidateAll();
+		};
+		runPrefetchTasks();
+
+		getOrLoad(cache, 10);
+		Assert.assertEquals("Staled prefetched page shall not be served", 2, getLoadCount(10));
+		assertRowVersion(1, getOrLoad(cache, 0), 1);
+		Assert.assertEquals(2, getLoadCount(0));
+	}
+}
@@ -0,0 +1,163 @@
+package de.metas.ui.web.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.ui.web.websocket.WebSocketProducersRegistry.WebSocketProducerInstance;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class WebSocketProducerInstanceTest
+{
+	private static final String TOPIC_NAME = "/test/topic";
+
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+	private final BlockingQueue<Object> publishedEvents = new LinkedBlockingQueue<>();
+	private final SimpMessagingTemplate websocketMessagingTemplate = new SimpMessagingTemplate(new MessageChannel()
+	{
+		@Override
+		public boolean send(final Message<?> message)
+		{
+			publishedEvents.add(message.getPayload());
+			return true;
+		}
+
+		@Override
+		public boolean send(final Message<?> message, final long timeout)
+		{
+			return send(message);
+		}
+	});
+
+	@After
+	public void shutdownScheduler()
+	{
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * A producer which is not polled, but signals its changes.
+	 * Its events are including a sequence number, which is not considered when checking if the event changed.
+	 */
+	private static final class PushProducer implements WebSocketProducer
+	{
+		private volatile String value = "v1";
+		private volatile int eventSeqNo = 0;
+		private volatile Runnable changesNotifier;
+
+		public void setValueAndNotify(final String value)
+		{
+			this.value = value;
+			changesNotifier.run();
+		}
+
+		@Override
+		public Object produceEvent()
+		{
+			eventSeqNo++;
+			return ImmutableMap.of("value", value, "seqNo", eventSeqNo);
+		}
+
+		@Override
+		public boolean isSameEvent(final Object event, final Object lastPublishedEvent)
+		{
+			return lastPublishedEvent != null
+					&& Objects.equals(((ImmutableMap<?, ?>)event).get("value"), ((ImmutableMap<?, ?>)lastPublishedEvent).get("value"));
+		}
+
+		@Override
+		public long getPollingPeriodMillis()
+		{
+			return 0; // not polled
+		}
+
+		@Override
+		public void onStart(final Runnable changesNotifier)
+		{
+			this.changesNotifier = changesNotifier;
+		}
+
+		@Override
+		public void onStop()
+		{
+			changesNotifier = null;
+		}
+	}
+
+	@Test
+	public void test_publishOnlyChangedEvents() throws Exception
+	{
+		final PushProducer producer = new PushProducer();
+		final WebSocketProducerInstance producerInstance = new WebSocketProducerInstance(TOPIC_NAME, producer, scheduler, 0, websocketMessagingTemplate);
+
+		producerInstance.subscribe("session1");
+		Assert.assertEquals("v1", pollPublishedValue());
+
+		producer.setValueAndNotify("v2");
+		Assert.assertEquals("v2", pollPublishedValue());
+
+		// Same value: shall not be published again, so the next published value is "v3"
+		producer.setValueAndNotify("v2");
+		producer.setValueAndNotify("v3");
+		Assert.assertEquals("v3", pollPublishedValue());
+
+		// New subscriber: shall get the current value, even if it was already published
+		producerInstance.subscribe("session2");
+		Assert.assertEquals("v3", pollPublishedValue());
+
+		producerInstance.unsubscribe("session1");
+		producerInstance.unsubscribe("session2");
+		Assert.assertNull("producer shall be stopped", producer.changesNotifier);
+		Assert.assertEquals(ImmutableList.of(), drainPublishedValues());
+	}
+
+	private Object pollPublishedValue() throws InterruptedException
+	{
+		final Object event = publishedEvents.poll(10, TimeUnit.SECONDS);
+		Assert.assertNotNull("No event was published", event);
+		return ((ImmutableMap<?, ?>)event).get("value");
+	}
+
+	private List<Object> drainPublishedValues()
+	{
+		final List<Object> events = new ArrayList<>();
+		publishedEvents.drainTo(events);
+		return events;
+	}
+}
@@ -0,0 +1,63 @@
+package de.metas.ui.web.window.model.lookup;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.metas.ui.web.window.datatypes.LookupValue.IntegerLookupValue;
+import de.metas.ui.web.window.model.lookup.LookupValueFilterPredicates.LookupValueFilterPredicate;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class LookupValueFilterPredicatesTest
+{
+	@Test
+	public void test_emptyFilter()
+	{
+		Assert.assertSame(LookupValueFilterPredicates.MATCH_ALL, LookupValueFilterPredicates.of(null));
+		Assert.assertSame(LookupValueFilterPredicates.MATCH_ALL, LookupValueFilterPredicates.of("   "));
+	}
+
+	@Test
+	public void test_ignoreCase()
+	{
+		final LookupValueFilterPredicate predicate = LookupValueFilterPredicates.of("ORDER");
+		Assert.assertTrue(predicate.test(IntegerLookupValue.of(1, "Sales order")));
+		Assert.assertFalse(predicate.test(IntegerLookupValue.of(2, "Invoice")));
+	}
+
+	/** NOTE: before, the in-memory matching was only case insensitive, while the SQL lookups were also accent insensitive */
+	@Test
+	public void test_ignoreAccents()
+	{
+		Assert.assertTrue(LookupValueFilterPredicates.of("muller").test(IntegerLookupValue.of(1, "Müller GmbH")));
+		Assert.assertTrue(LookupValueFilterPredicates.of("MÜLLER").test(IntegerLookupValue.of(1, "Muller GmbH")));
+		Assert.assertTrue(LookupValueFilterPredicates.of("societe generale").test(IntegerLookupValue.of(1, "Société Générale")));
+		Assert.assertFalse(LookupValueFilterPredicates.of("mueller").test(IntegerLookupValue.of(1, "Müller GmbH")));
+	}
+
+	@Test
+	public void test_nullLookupValue()
+	{
+		Assert.assertFalse(LookupValueFilterPredicates.of("a").test(null));
+	}
+}
@@ -0,0 +1,130 @@
+package de.metas.ui.web.window.model.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValue.IntegerLookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class LookupValuesIndexTest
+{
+	@Test
+	public void test_filter_caseAndAccentInsensitive()
+	{
+		final LookupValuesList list = createLookupValuesList("Müller GmbH", "Mueller AG", "Schmidt", "MÜLLERSTRASSE", "Société Générale");
+		final LookupValuesIndex index = LookupValuesIndex.of(list);
+
+		assertFilterResult(index, "muller", "Müller GmbH", "MÜLLERSTRASSE");
+		assertFilterResult(index, "  MÜLL ", "Müller GmbH", "MÜLLERSTRASSE");
+		assertFilterResult(index, "generale", "Société Générale");
+		assertFilterResult(index, "mu", "Müller GmbH", "Mueller AG", "MÜLLERSTRASSE");
+		assertFilterResult(index, "xyz");
+	}
+
+	@Test
+	public void test_filter_emptyFilter()
+	{
+		final LookupValuesList list = createLookupValuesList("a", "b", "c");
+		final LookupValuesIndex index = LookupValuesIndex.of(list);
+
+		Assert.assertSame(list, index.filter(null, 0, 0));
+		Assert.assertSame(list, index.filter("  ", 0, 10));
+		assertFilterResult(index.filter("", 1, 1), "b");
+	}
+
+	@Test
+	public void test_filter_offsetAndLimit()
+	{
+		final LookupValuesList list = createLookupValuesList("item 1", "other", "item 2", "item 3", "item 4");
+		final LookupValuesIndex index = LookupValuesIndex.of(list);
+
+		assertFilterResult(index.filter("item", 0, 2), "item 1", "item 2");
+		assertFilterResult(index.filter("item", 2, 2), "item 3", "item 4");
+		assertFilterResult(index.filter("item", 4, 2));
+	}
+
+	/** Checks the index is returning the same as filtering the list using {@link LookupValueFilterPredicates} */
+	@Test
+	public void test_filter_sameAsScanning()
+	{
+		final Random random = new Random(1234);
+		final List<String> displayNames = new ArrayList<>();
+		for (int i = 0; i < 2000; i++)
+		{
+			displayNames.add(generateRandomString(random, 3 + random.nextInt(15)));
+		}
+		final LookupValuesList list = createLookupValuesList(displayNames.toArray(new String[0]));
+		final LookupValuesIndex index = LookupValuesIndex.of(list);
+
+		for (int i = 0; i < 500; i++)
+		{
+			final String filter = generateRandomString(random, 1 + random.nextInt(4));
+			final int offset = random.nextInt(3);
+			final int limit = random.nextInt(20);
+
+			final LookupValuesList expected = list.filter(LookupValueFilterPredicates.of(filter), offset, limit);
+			final LookupValuesList actual = index.filter(filter, offset, limit);
+			Assert.assertEquals("filter=" + filter + ", offset=" + offset + ", limit=" + limit, expected, actual);
+		}
+	}
+
+	private static LookupValuesList createLookupValuesList(final String... displayNames)
+	{
+		return IntStream.range(0, displayNames.length)
+				.mapToObj(i -> IntegerLookupValue.of(i + 1, displayNames[i]))
+				.collect(LookupValuesList.collect());
+	}
+
+	private static String generateRandomString(final Random random, final int length)
+	{
+		final String chars = "abcdeéäABCDE ";
+		final StringBuilder str = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+		{
+			str.append(chars.charAt(random.nextInt(chars.length())));
+		}
+		return str.toString();
+	}
+
+	private static void assertFilterResult(final LookupValuesIndex index, final String filter, final String... expectedDisplayNames)
+	{
+		assertFilterResult(index.filter(filter, 0, 0), expectedDisplayNames);
+	}
+
+	private static void assertFilterResult(final LookupValuesList result, final String... expectedDisplayNames)
+	{
+		final String[] actualDisplayNames = result.getValues()
+				.stream()
+				.map(LookupValue::getDisplayName)
+				.toArray(String[]::new);
+		Assert.assertArrayEquals(expectedDisplayNames, actualDisplayNames);
+	}
+}